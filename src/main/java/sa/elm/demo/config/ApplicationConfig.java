@@ -1,16 +1,28 @@
 package sa.elm.demo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import sa.elm.demo.security.hashing.BoundedPasswordEncoder;
+
+import java.time.Duration;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(JwtKeyProperties.class)
 public class ApplicationConfig {
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public BoundedPasswordEncoder passwordEncoder(@Value("${sa.elm.demo.passwordHashing.strength:10}") int strength,
+                                                @Value("${sa.elm.demo.passwordHashing.poolSize:4}") int poolSize,
+                                                @Value("${sa.elm.demo.passwordHashing.queueCapacity:100}") int queueCapacity,
+                                                @Value("${sa.elm.demo.passwordHashing.timeout:PT5S}") Duration timeout,
+                                                MeterRegistry meterRegistry) {
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity, timeout, meterRegistry);
   }
 
 }
@@ -0,0 +1,16 @@
+package sa.elm.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * The base64 HMAC secrets tokens are verified with, by key id, and the id of the one new tokens are signed with. Keep
+ * a retired secret here until every token it signed has expired.
+ */
+@ConfigurationProperties(JwtKeyProperties.PREFIX)
+public record JwtKeyProperties(String activeKeyId, Map<String, String> secrets) {
+
+  public static final String PREFIX = "sa.elm.demo.jwt";
+
+}
@@ -1,5 +1,6 @@
 package sa.elm.demo.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,7 +36,10 @@ public class SecurityConfig {
         .cors(AbstractHttpConfigurer::disable)
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(auth -> auth
+            // Streamed responses finish on an async dispatch of a request that was already authorized
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             .requestMatchers("/login", "/register", "/h2-console/**", "/error").permitAll()
+            .requestMatchers("/actuator/**").hasAuthority("ADMIN")
             .anyRequest().authenticated()
         )
         .addFilterAfter(jwtAuthenticationFilter, ExceptionTranslationFilter.class)
@@ -1,5 +1,6 @@
 package sa.elm.demo.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,7 @@ import sa.elm.models.RegistrationRequest;
 public class AuthController implements AuthApi {
 
   private final UsersService usersService;
+  private final HttpServletRequest request;
 
   @Override
   public ResponseEntity<Void> registerUser(RegistrationRequest registrationRequest) {
@@ -25,7 +27,7 @@ public class AuthController implements AuthApi {
 
   @Override
   public ResponseEntity<LoginResponse> loginUser(LoginRequest loginRequest) {
-    LoginResponse loginResponse = usersService.loginUser(loginRequest);
+    LoginResponse loginResponse = usersService.loginUser(loginRequest, request.getRemoteAddr());
     return ResponseEntity.ok(loginResponse);
   }
 
@@ -2,15 +2,34 @@ package sa.elm.demo.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import sa.elm.api.ProductsApi;
+import sa.elm.demo.service.ProductBulkImportService;
+import sa.elm.demo.service.ProductBulkStatusService;
+import sa.elm.demo.service.ProductExportService;
 import sa.elm.demo.service.ProductsService;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.CataloguePage;
+import sa.elm.models.ProductBulkCreationRequest;
+import sa.elm.models.ProductBulkCreationResponse;
+import sa.elm.models.ProductBulkStatusChangeRequest;
+import sa.elm.models.ProductBulkStatusChangeResponse;
 import sa.elm.models.ProductCreationRequest;
+import sa.elm.models.ProductExportFormat;
 import sa.elm.models.ProductsResponse;
 import sa.elm.models.StatisticsResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 
 @Slf4j
@@ -19,15 +38,17 @@ import java.time.LocalDate;
 public class ProductsController implements ProductsApi {
 
   public static final String X_TOTAL_COUNT = "X-TOTAL-COUNT";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
   private final ProductsService productsService;
+  private final ProductBulkImportService productBulkImportService;
+  private final ProductBulkStatusService productBulkStatusService;
+  private final ProductExportService productExportService;
 
   @Secured("DEALER")
   @Override
-  public ResponseEntity<ProductsResponse> getProducts(Integer limit, Integer offset) {
-    ProductsResponse productsResponse = productsService.getAllDealerProducts(limit, offset);
-    return ResponseEntity.ok()
-        .header(X_TOTAL_COUNT, String.valueOf(productsResponse.getTotal()))
-        .body(productsResponse);
+  public ResponseEntity<ProductsResponse> getProducts(Integer limit, Integer offset, String cursor, Boolean exactCount) {
+    ProductsResponse productsResponse = productsService.getAllDealerProducts(limit, offset, cursor, Boolean.TRUE.equals(exactCount));
+    return withTotalCount(productsResponse);
   }
 
   @Secured("DEALER")
@@ -37,6 +58,22 @@ public class ProductsController implements ProductsApi {
     return ResponseEntity.ok().build();
   }
 
+  @Secured("DEALER")
+  @Override
+  public ResponseEntity<ProductBulkCreationResponse> addProducts(ProductBulkCreationRequest productBulkCreationRequest) {
+    return ResponseEntity.ok(productBulkImportService.importProducts(productBulkCreationRequest.getItems()));
+  }
+
+  @Secured("DEALER")
+  @Override
+  public ResponseEntity<ProductBulkCreationResponse> addProductsFromNdjson(InputStreamResource body) {
+    try (InputStream ndjson = body.getInputStream()) {
+      return ResponseEntity.ok(productBulkImportService.importProducts(ndjson));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the uploaded products", e);
+    }
+  }
+
   @Secured("DEALER")
   @Override
   public ResponseEntity<Void> changeProductStatus(Long id) {
@@ -45,22 +82,43 @@ public class ProductsController implements ProductsApi {
   }
 
 
+  @Secured({"DEALER", "ADMIN"})
+  @Override
+  public ResponseEntity<ProductBulkStatusChangeResponse> changeProductStatuses(ProductBulkStatusChangeRequest productBulkStatusChangeRequest) {
+    return ResponseEntity.ok(productBulkStatusService.changeProductStatuses(productBulkStatusChangeRequest));
+  }
+
   @Secured("CLIENT")
   @Override
-  public ResponseEntity<ProductsResponse> getActiveProducts(Integer limit, Integer offset) {
-    ProductsResponse productsResponse = productsService.getAllActiveProducts(limit, offset);
-    return ResponseEntity.ok()
-        .header(X_TOTAL_COUNT, String.valueOf(productsResponse.getTotal()))
-        .body(productsResponse);
+  public ResponseEntity<ProductsResponse> getActiveProducts(Integer limit, Integer offset, String cursor, Boolean exactCount,
+                                                            String ifNoneMatch) {
+    boolean exact = Boolean.TRUE.equals(exactCount);
+    String etag = productsService.getActiveProductsETag(limit, offset, cursor, exact);
+    if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    CataloguePage page = productsService.getActiveProductsPage(limit, offset, cursor, exact);
+    return withTotalCount(ResponseEntity.ok().eTag(page.etag()), page.response());
+  }
+
+  @Secured("ADMIN")
+  @Override
+  public ResponseEntity<ProductsResponse> getAllProducts(Integer limit, Integer offset, String cursor, Boolean exactCount) {
+    ProductsResponse productsResponse = productsService.getAllProducts(limit, offset, cursor, Boolean.TRUE.equals(exactCount));
+    return withTotalCount(productsResponse);
   }
 
   @Secured("ADMIN")
   @Override
-  public ResponseEntity<ProductsResponse> getAllProducts(Integer limit, Integer offset) {
-    ProductsResponse productsResponse = productsService.getAllProducts(limit, offset);
+  public ResponseEntity<StreamingResponseBody> exportProducts(ProductExportFormat format) {
+    boolean csv = format == ProductExportFormat.CSV;
+    ContentDisposition contentDisposition = ContentDisposition.attachment()
+        .filename(csv ? "products.csv" : "products.ndjson")
+        .build();
     return ResponseEntity.ok()
-        .header(X_TOTAL_COUNT, String.valueOf(productsResponse.getTotal()))
-        .body(productsResponse);
+        .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+        .body(outputStream -> productExportService.export(format, outputStream));
   }
 
   @Secured("ADMIN")
@@ -70,5 +128,24 @@ public class ProductsController implements ProductsApi {
     return ResponseEntity.ok(productStatisticsResponse);
   }
 
+  // If-None-Match always uses the weak comparison, and may list several ETags or be a wildcard
+  private static boolean matches(String ifNoneMatch, String etag) {
+    String currentTag = ETag.parse(etag).get(0).tag();
+    return ETag.parse(ifNoneMatch).stream()
+        .anyMatch(candidate -> candidate.isWildcard() || candidate.tag().equals(currentTag));
+  }
+
+  private static ResponseEntity<ProductsResponse> withTotalCount(ProductsResponse productsResponse) {
+    return withTotalCount(ResponseEntity.ok(), productsResponse);
+  }
+
+  private static ResponseEntity<ProductsResponse> withTotalCount(ResponseEntity.BodyBuilder responseBuilder,
+                                                                 ProductsResponse productsResponse) {
+    if (productsResponse.getTotal() != null) {
+      responseBuilder.header(X_TOTAL_COUNT, String.valueOf(productsResponse.getTotal()));
+    }
+    return responseBuilder.body(productsResponse);
+  }
+
 
 }
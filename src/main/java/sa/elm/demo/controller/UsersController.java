@@ -6,7 +6,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.RestController;
 import sa.elm.api.UsersApi;
+import sa.elm.demo.service.UserBulkProvisioningService;
 import sa.elm.demo.service.UsersService;
+import sa.elm.models.UserBulkCreationRequest;
+import sa.elm.models.UserBulkCreationResponse;
 import sa.elm.models.UserCreationRequest;
 
 @Slf4j
@@ -15,6 +18,7 @@ import sa.elm.models.UserCreationRequest;
 public class UsersController implements UsersApi {
 
   private final UsersService usersService;
+  private final UserBulkProvisioningService userBulkProvisioningService;
 
   @Secured("ADMIN")
   @Override
@@ -23,6 +27,12 @@ public class UsersController implements UsersApi {
     return ResponseEntity.ok().build();
   }
 
+  @Secured("ADMIN")
+  @Override
+  public ResponseEntity<UserBulkCreationResponse> createUsers(UserBulkCreationRequest userBulkCreationRequest) {
+    return ResponseEntity.ok(userBulkProvisioningService.createUsers(userBulkCreationRequest.getItems()));
+  }
+
   @Secured("ADMIN")
   @Override
   public ResponseEntity<String> changeUserStatus(Long id) {
@@ -0,0 +1,11 @@
+package sa.elm.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidBulkRequestException extends ApplicationBusinessException {
+
+  public InvalidBulkRequestException(String message) {
+    super(message, HttpStatus.BAD_REQUEST);
+  }
+
+}
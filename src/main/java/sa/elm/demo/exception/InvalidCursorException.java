@@ -0,0 +1,11 @@
+package sa.elm.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends ApplicationBusinessException {
+
+  public InvalidCursorException(String message) {
+    super(message, HttpStatus.BAD_REQUEST);
+  }
+
+}
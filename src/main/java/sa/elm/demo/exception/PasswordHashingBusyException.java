@@ -0,0 +1,11 @@
+package sa.elm.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PasswordHashingBusyException extends ApplicationBusinessException {
+
+  public PasswordHashingBusyException(String message) {
+    super(message, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+}
@@ -0,0 +1,11 @@
+package sa.elm.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyLoginAttemptsException extends ApplicationBusinessException {
+
+  public TooManyLoginAttemptsException(String message) {
+    super(message, HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+}
@@ -3,8 +3,9 @@ package sa.elm.demo.mapper;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
-import sa.elm.demo.models.entity.Product;
 import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductSummaryView;
 import sa.elm.models.ProductItem;
 import sa.elm.models.ProductSummary;
 import sa.elm.models.ProductsResponse;
@@ -16,7 +17,7 @@ import java.util.stream.Collectors;
 @Component
 public class ProductEntityToProductResponseMapper {
 
-  public ProductsResponse mapForDealer(Page<Product> productPage) {
+  public ProductsResponse mapForDealer(Page<ProductListingView> productPage) {
 
     return ProductsResponse.builder()
         .total(productPage.getTotalElements())
@@ -24,7 +25,15 @@ public class ProductEntityToProductResponseMapper {
         .build();
   }
 
-  private List<ProductItem> mapItemsForDealer(List<Product> productList) {
+  public ProductsResponse mapForDealer(List<ProductListingView> products, String nextCursor) {
+
+    return ProductsResponse.builder()
+        .items(mapItemsForDealer(products))
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  private List<ProductItem> mapItemsForDealer(List<ProductListingView> productList) {
     List<ProductItem> productItemList = new ArrayList<>();
     if (!CollectionUtils.isEmpty(productList)) {
       productItemList = productList.stream()
@@ -34,17 +43,17 @@ public class ProductEntityToProductResponseMapper {
     return productItemList;
   }
 
-  private ProductItem mapItemForDealer(Product product) {
+  private ProductItem mapItemForDealer(ProductListingView product) {
     return ProductItem.builder()
-        .id(product.getId())
-        .name(product.getName())
-        .price(product.getPrice())
-        .status(product.getStatus() == ProductStatus.ACTIVE ? ProductItem.StatusEnum.ACTIVE : ProductItem.StatusEnum.INACTIVE)
+        .id(product.id())
+        .name(product.name())
+        .price(product.price())
+        .status(product.status() == ProductStatus.ACTIVE ? ProductItem.StatusEnum.ACTIVE : ProductItem.StatusEnum.INACTIVE)
         .build();
   }
 
 
-  public ProductsResponse mapForClient(Page<Product> productPage) {
+  public ProductsResponse mapForClient(Page<ProductListingView> productPage) {
 
     return ProductsResponse.builder()
         .total(productPage.getTotalElements())
@@ -52,7 +61,15 @@ public class ProductEntityToProductResponseMapper {
         .build();
   }
 
-  private List<ProductItem> mapItemsForClient(List<Product> productList) {
+  public ProductsResponse mapForClient(List<ProductListingView> products, String nextCursor) {
+
+    return ProductsResponse.builder()
+        .items(mapItemsForClient(products))
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  private List<ProductItem> mapItemsForClient(List<ProductListingView> productList) {
     List<ProductItem> productItemList = new ArrayList<>();
     if (!CollectionUtils.isEmpty(productList)) {
       productItemList = productList.stream()
@@ -62,23 +79,30 @@ public class ProductEntityToProductResponseMapper {
     return productItemList;
   }
 
-  private ProductItem mapItemForClient(Product product) {
+  private ProductItem mapItemForClient(ProductListingView product) {
     return ProductItem.builder()
-        .id(product.getId())
-        .name(product.getName())
-        .dealerName(product.getUser().getUsername())
-        .price(product.getPrice())
+        .id(product.id())
+        .name(product.name())
+        .dealerName(product.dealerName())
+        .price(product.price())
         .build();
   }
 
-  public ProductsResponse mapForAdmin(Page<Product> productPage) {
+  public ProductsResponse mapForAdmin(Page<ProductListingView> productPage) {
     return ProductsResponse.builder()
         .total(productPage.getTotalElements())
         .items(mapItemsForAdmin(productPage.getContent()))
         .build();
   }
 
-  private List<ProductItem> mapItemsForAdmin(List<Product> productList) {
+  public ProductsResponse mapForAdmin(List<ProductListingView> products, String nextCursor) {
+    return ProductsResponse.builder()
+        .items(mapItemsForAdmin(products))
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  private List<ProductItem> mapItemsForAdmin(List<ProductListingView> productList) {
     List<ProductItem> productItemList = new ArrayList<>();
     if (!CollectionUtils.isEmpty(productList)) {
       productItemList = productList.stream()
@@ -88,21 +112,22 @@ public class ProductEntityToProductResponseMapper {
     return productItemList;
   }
 
-  private ProductItem mapItemForAdmin(Product product) {
+  private ProductItem mapItemForAdmin(ProductListingView product) {
     return ProductItem.builder()
-        .id(product.getId())
-        .name(product.getName())
-        .dealerName(product.getUser().getUsername())
-        .price(product.getPrice())
-        .status(product.getStatus() == ProductStatus.ACTIVE ? ProductItem.StatusEnum.ACTIVE : ProductItem.StatusEnum.INACTIVE)
+        .id(product.id())
+        .name(product.name())
+        .dealerName(product.dealerName())
+        .price(product.price())
+        .status(product.status() == ProductStatus.ACTIVE ? ProductItem.StatusEnum.ACTIVE : ProductItem.StatusEnum.INACTIVE)
         .build();
   }
 
-  public ProductSummary mapToProductSummary(Product product) {
+  public ProductSummary mapToProductSummary(ProductSummaryView productSummaryView) {
     return ProductSummary.builder()
-        .name(product.getName())
-        .dealerName(product.getUser().getUsername())
-        .price(product.getPrice())
+        .id(productSummaryView.id())
+        .name(productSummaryView.name())
+        .dealerName(productSummaryView.dealerName())
+        .price(productSummaryView.price())
         .build();
   }
 }
@@ -4,8 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import lombok.ToString;
 import org.hibernate.annotations.UpdateTimestamp;
 import sa.elm.demo.models.entity.enums.ProductStatus;
 
@@ -18,11 +19,17 @@ import java.time.OffsetDateTime;
 @Builder
 @Data
 @Entity(name = "product")
-@Table(name = "PRODUCTS")
+@Table(name = "PRODUCTS", indexes = {
+    @Index(name = "IDX_PRODUCTS_CREATED_AT_PRICE_ID", columnList = "CREATED_AT, PRICE, ID"),
+    @Index(name = "IDX_PRODUCTS_USER_ID_ID", columnList = "USER_ID, ID"),
+    @Index(name = "IDX_PRODUCTS_STATUS_ID", columnList = "STATUS, ID")
+})
 public class Product {
 
+  // Pooled sequence ids are assigned without a round trip per row, which lets inserts be sent as JDBC batches
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+  @SequenceGenerator(name = "products_seq", sequenceName = "PRODUCTS_SEQ", allocationSize = 50)
   private Long id;
 
   @Column(name = "NAME")
@@ -35,11 +42,13 @@ public class Product {
   @Column(name = "STATUS")
   private ProductStatus status;
 
-  @ManyToOne
+  // Lazy so loading a product never drags in its dealer; listings select the dealer name through a projection instead
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "USER_ID")
   private User user;
 
-  @CreationTimestamp
   @Column(name = "CREATED_AT")
   private OffsetDateTime createdAt;
 
@@ -47,4 +56,11 @@ public class Product {
   @Column(name = "UPDATED_AT")
   private OffsetDateTime updatedAt;
 
+  // Set on persist rather than on insert: sequence ids defer the insert to flush, and the statistics hooks need the
+  // creation day before that
+  @PrePersist
+  void onPersist() {
+    createdAt = OffsetDateTime.now();
+  }
+
 }
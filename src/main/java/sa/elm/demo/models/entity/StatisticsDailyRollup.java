@@ -0,0 +1,67 @@
+package sa.elm.demo.models.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day totals of the products and users created on that (UTC) day, kept up to date by
+ * {@link sa.elm.demo.service.StatisticsRollupService} so the dashboard sums days instead of scanning rows.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity(name = "statisticsDailyRollup")
+@Table(name = "STATISTICS_DAILY_ROLLUP")
+public class StatisticsDailyRollup {
+
+  @Id
+  @Column(name = "STAT_DATE")
+  private LocalDate statDate;
+
+  @Column(name = "ACTIVE_PRODUCTS", nullable = false)
+  private Long activeProducts;
+
+  @Column(name = "INACTIVE_PRODUCTS", nullable = false)
+  private Long inactiveProducts;
+
+  @Column(name = "ACTIVE_PRICE_SUM", nullable = false, precision = 19, scale = 2)
+  private BigDecimal activePriceSum;
+
+  @Column(name = "HIGHEST_PRICE", precision = 10, scale = 2)
+  private BigDecimal highestPrice;
+
+  @Column(name = "HIGHEST_PRICED_PRODUCT_ID")
+  private Long highestPricedProductId;
+
+  @Column(name = "LOWEST_PRICE", precision = 10, scale = 2)
+  private BigDecimal lowestPrice;
+
+  @Column(name = "LOWEST_PRICED_PRODUCT_ID")
+  private Long lowestPricedProductId;
+
+  @Column(name = "ACTIVE_CLIENTS", nullable = false)
+  private Long activeClients;
+
+  @Column(name = "INACTIVE_CLIENTS", nullable = false)
+  private Long inactiveClients;
+
+  @Column(name = "ACTIVE_DEALERS", nullable = false)
+  private Long activeDealers;
+
+  @Column(name = "INACTIVE_DEALERS", nullable = false)
+  private Long inactiveDealers;
+
+  @Column(name = "DEALERS_WITH_PRODUCTS", nullable = false)
+  private Long dealersWithProducts;
+
+}
@@ -4,8 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import lombok.ToString;
 import org.hibernate.annotations.UpdateTimestamp;
 import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
@@ -18,11 +19,17 @@ import java.util.List;
 @Builder
 @Data
 @Entity(name = "user")
-@Table(name = "USERS")
+@Table(name = "USERS", uniqueConstraints = {
+    @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "USERNAME"),
+    @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "EMAIL")})
 public class User {
 
+  public static final String USERNAME_CONSTRAINT = "UK_USERS_USERNAME";
+  public static final String EMAIL_CONSTRAINT = "UK_USERS_EMAIL";
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+  @SequenceGenerator(name = "users_seq", sequenceName = "USERS_SEQ", allocationSize = 50)
   private Long id;
 
   @Column(name = "USERNAME")
@@ -42,7 +49,6 @@ public class User {
   @Column(name = "ROLE")
   private UserRoleEnum userRole;
 
-  @CreationTimestamp
   @Column(name = "CREATED_AT")
   private OffsetDateTime createdAt;
 
@@ -50,6 +56,14 @@ public class User {
   @Column(name = "UPDATED_AT")
   private OffsetDateTime updatedAt;
 
-  @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
   private List<Product> products;
+
+  // Set on persist for the same reason as Product: sequence ids defer the insert to flush
+  @PrePersist
+  void onPersist() {
+    createdAt = OffsetDateTime.now();
+  }
 }
@@ -0,0 +1,10 @@
+package sa.elm.demo.models.projection;
+
+import sa.elm.demo.models.entity.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public record ProductExportView(Long id, String name, String dealerName, BigDecimal price, ProductStatus status,
+                                OffsetDateTime createdAt) {
+}
@@ -0,0 +1,8 @@
+package sa.elm.demo.models.projection;
+
+import sa.elm.demo.models.entity.enums.ProductStatus;
+
+import java.math.BigDecimal;
+
+public record ProductListingView(Long id, String name, BigDecimal price, ProductStatus status, String dealerName) {
+}
@@ -0,0 +1,9 @@
+package sa.elm.demo.models.projection;
+
+import sa.elm.demo.models.entity.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public record ProductOwnershipView(Long id, boolean owned, ProductStatus status, BigDecimal price, OffsetDateTime createdAt) {
+}
@@ -0,0 +1,6 @@
+package sa.elm.demo.models.projection;
+
+import java.math.BigDecimal;
+
+public record ProductStatisticsAggregate(Long total, Long active, Long inactive, BigDecimal activePriceSum) {
+}
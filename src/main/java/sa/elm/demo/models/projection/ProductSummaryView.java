@@ -0,0 +1,6 @@
+package sa.elm.demo.models.projection;
+
+import java.math.BigDecimal;
+
+public record ProductSummaryView(Long id, String name, BigDecimal price, String dealerName) {
+}
@@ -0,0 +1,13 @@
+package sa.elm.demo.models.projection;
+
+import java.math.BigDecimal;
+
+public record StatisticsRollupTotals(Long activeProducts,
+                                     Long inactiveProducts,
+                                     BigDecimal activePriceSum,
+                                     Long activeClients,
+                                     Long inactiveClients,
+                                     Long activeDealers,
+                                     Long inactiveDealers,
+                                     Long dealersWithProducts) {
+}
@@ -0,0 +1,4 @@
+package sa.elm.demo.models.projection;
+
+public record UserIdentityMatch(Long emails, Long usernames) {
+}
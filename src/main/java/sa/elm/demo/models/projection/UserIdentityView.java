@@ -0,0 +1,4 @@
+package sa.elm.demo.models.projection;
+
+public record UserIdentityView(Long id, String username, String email) {
+}
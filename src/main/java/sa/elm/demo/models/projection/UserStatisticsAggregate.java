@@ -0,0 +1,9 @@
+package sa.elm.demo.models.projection;
+
+public record UserStatisticsAggregate(Long totalClients,
+                                      Long activeClients,
+                                      Long inactiveClients,
+                                      Long totalDealers,
+                                      Long dealersWithProducts,
+                                      Long dealersWithNoProducts) {
+}
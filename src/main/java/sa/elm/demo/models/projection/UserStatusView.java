@@ -0,0 +1,9 @@
+package sa.elm.demo.models.projection;
+
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+
+import java.time.OffsetDateTime;
+
+public record UserStatusView(Long id, UserRoleEnum userRole, UserStatusEnum userStatus, OffsetDateTime createdAt) {
+}
@@ -0,0 +1,10 @@
+package sa.elm.demo.models.security;
+
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+
+/**
+ * The subset of a user row needed to authenticate a request, without the password hash or products.
+ */
+public record UserPrincipal(Long id, String username, UserRoleEnum role, UserStatusEnum status) {
+}
@@ -0,0 +1,20 @@
+package sa.elm.demo.models.security;
+
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked, so callers never need to parse it again.
+ */
+public record VerifiedToken(String subject, UserRoleEnum role, String name, Instant expiresAt) {
+
+  public Long getUserId() {
+    return Long.valueOf(subject);
+  }
+
+  public boolean isExpired(Instant now) {
+    return expiresAt != null && !expiresAt.isAfter(now);
+  }
+
+}
@@ -1,41 +1,140 @@
 package sa.elm.demo.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import sa.elm.demo.models.entity.Product;
-import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.projection.ProductExportView;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductOwnershipView;
+import sa.elm.demo.models.projection.ProductStatisticsAggregate;
+import sa.elm.demo.models.projection.ProductStatusView;
+import sa.elm.demo.models.projection.ProductSummaryView;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-  Page<Product> findByUser(User user, Pageable pageable);
+  // Listings select straight into ProductListingView, joining the dealer for its username, so a page is a single
+  // statement and no Product or User entities are hydrated
 
-  Page<Product> findByStatus(ProductStatus productStatus, Pageable pageable);
+  String LISTING_SELECT = "SELECT new sa.elm.demo.models.projection.ProductListingView(p.id, p.name, p.price, p.status, u.username) " +
+      "FROM product p JOIN p.user u ";
 
-  @Query("SELECT COUNT(p) FROM product p WHERE p.createdAt >= :from AND p.createdAt <= :to")
-  Long countTotalProducts(OffsetDateTime from, OffsetDateTime to);
+  @Query(value = LISTING_SELECT + "WHERE u.id = :userId",
+      countQuery = "SELECT COUNT(p) FROM product p WHERE p.user.id = :userId")
+  Page<ProductListingView> findListingByUserId(Long userId, Pageable pageable);
 
-  @Query("SELECT COUNT(p) FROM product p WHERE p.status = :status AND p.createdAt >= :from AND  p.createdAt <= :to")
-  Long countProductsByStatus(ProductStatus status, OffsetDateTime from, OffsetDateTime to);
+  @Query(value = LISTING_SELECT + "WHERE p.status = :status",
+      countQuery = "SELECT COUNT(p) FROM product p WHERE p.status = :status")
+  Page<ProductListingView> findListingByStatus(ProductStatus status, Pageable pageable);
 
-  @Query("SELECT SUM(p.price) FROM product p WHERE p.status = 'ACTIVE' AND p.createdAt >= :from AND p.createdAt <= :to")
-  BigDecimal sumActiveProductPrices(OffsetDateTime from, OffsetDateTime to);
+  @Query(value = LISTING_SELECT, countQuery = "SELECT COUNT(p) FROM product p")
+  Page<ProductListingView> findListing(Pageable pageable);
 
-  @Query("SELECT p FROM product p WHERE p.createdAt >= :from AND p.createdAt <= :to ORDER BY p.price ASC, p.id DESC")
-  List<Product> findLowestPricedProduct(OffsetDateTime from, OffsetDateTime to);
+  long countByUserId(Long userId);
 
-  @Query("SELECT p FROM product p WHERE p.createdAt >= :from AND p.createdAt <= :to ORDER BY p.price DESC, p.id DESC")
-  List<Product> findHighestPricedProduct(OffsetDateTime from, OffsetDateTime to);
+  long countByStatus(ProductStatus status);
 
+  // Slices fetch one row past the page instead of running a COUNT query
 
-  @Query("SELECT p.id FROM product p WHERE p.user.id = :userId")
-  List<Long> findAllProductIdsByUserId(Long userId);
+  @Query(LISTING_SELECT + "WHERE u.id = :userId")
+  Slice<ProductListingView> findListingSliceByUserId(Long userId, Pageable pageable);
+
+  @Query(LISTING_SELECT + "WHERE p.status = :status")
+  Slice<ProductListingView> findListingSliceByStatus(ProductStatus status, Pageable pageable);
+
+  @Query(LISTING_SELECT)
+  Slice<ProductListingView> findListingSlice(Pageable pageable);
+
+  // Seek pagination: each page starts right after the last id of the previous one, whatever its depth
+
+  @Query(LISTING_SELECT + "WHERE u.id = :userId AND p.id > :id ORDER BY p.id ASC")
+  List<ProductListingView> findListingByUserIdAfter(Long userId, Long id, Limit limit);
+
+  @Query(LISTING_SELECT + "WHERE p.status = :status AND p.id > :id ORDER BY p.id ASC")
+  List<ProductListingView> findListingByStatusAfter(ProductStatus status, Long id, Limit limit);
+
+  @Query(LISTING_SELECT + "WHERE p.id > :id ORDER BY p.id ASC")
+  List<ProductListingView> findListingAfter(Long id, Limit limit);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductStatisticsAggregate(" +
+      "COUNT(p), " +
+      "COALESCE(SUM(CASE WHEN p.status = 'ACTIVE' THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN p.status = 'INACTIVE' THEN 1L ELSE 0L END), 0L), " +
+      "SUM(CASE WHEN p.status = 'ACTIVE' THEN p.price END)) " +
+      "FROM product p WHERE p.createdAt >= :from AND p.createdAt < :to")
+  ProductStatisticsAggregate aggregateProductStatistics(OffsetDateTime from, OffsetDateTime to);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductSummaryView(p.id, p.name, p.price, u.username) " +
+      "FROM product p JOIN p.user u WHERE p.createdAt >= :from AND p.createdAt < :to ORDER BY p.price ASC, p.id DESC LIMIT 1")
+  Optional<ProductSummaryView> findLowestPricedProduct(OffsetDateTime from, OffsetDateTime to);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductSummaryView(p.id, p.name, p.price, u.username) " +
+      "FROM product p JOIN p.user u WHERE p.createdAt >= :from AND p.createdAt < :to ORDER BY p.price DESC, p.id DESC LIMIT 1")
+  Optional<ProductSummaryView> findHighestPricedProduct(OffsetDateTime from, OffsetDateTime to);
+
+  // Flips the status only if the dealer owns the product, so ownership costs no reads; 0 means missing or not owned
+  @Transactional
+  @Modifying
+  @Query("UPDATE product p SET p.status = CASE WHEN p.status = sa.elm.demo.models.entity.enums.ProductStatus.ACTIVE " +
+      "THEN sa.elm.demo.models.entity.enums.ProductStatus.INACTIVE ELSE sa.elm.demo.models.entity.enums.ProductStatus.ACTIVE END, " +
+      "p.updatedAt = :updatedAt WHERE p.id = :id AND p.user.id = :userId")
+  int toggleStatusOfDealerProduct(Long id, Long userId, OffsetDateTime updatedAt);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductStatusView(p.id, p.status, p.price, p.createdAt) FROM product p WHERE p.id = :id")
+  Optional<ProductStatusView> findStatusViewById(Long id);
+
+  /**
+   * Every product in id order, read forward-only in batches of the fetch size. Rows are projections, so nothing
+   * accumulates in the persistence context; the stream must be consumed and closed inside a transaction.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT new sa.elm.demo.models.projection.ProductExportView(p.id, p.name, u.username, p.price, p.status, p.createdAt) " +
+      "FROM product p JOIN p.user u ORDER BY p.id")
+  Stream<ProductExportView> streamExport();
+
+  // Bulk status changes: userId null means an admin, who may change any product
+
+  // Locks the rows in id order until the transaction ends, so concurrent changes of overlapping chunks queue up
+  // instead of deadlocking, and the statuses read here are the ones the following update changes
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT new sa.elm.demo.models.projection.ProductOwnershipView(p.id, " +
+      "CASE WHEN :userId IS NULL OR p.user.id = :userId THEN true ELSE false END, p.status, p.price, p.createdAt) " +
+      "FROM product p WHERE p.id IN :ids ORDER BY p.id")
+  List<ProductOwnershipView> findOwnershipViewsForUpdate(Collection<Long> ids, Long userId);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE product p SET p.status = :status, p.updatedAt = :updatedAt " +
+      "WHERE p.id IN :ids AND (:userId IS NULL OR p.user.id = :userId) AND p.status <> :status")
+  int updateStatusOfProducts(Collection<Long> ids, Long userId, ProductStatus status, OffsetDateTime updatedAt);
+
+  @Query("SELECT p.id FROM product p WHERE p.id > :afterId AND p.status <> :status " +
+      "AND (:dealerId IS NULL OR p.user.id = :dealerId) " +
+      "AND (:minPrice IS NULL OR p.price >= :minPrice) AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+      "AND (:createdFrom IS NULL OR p.createdAt >= :createdFrom) AND (:createdTo IS NULL OR p.createdAt < :createdTo) " +
+      "ORDER BY p.id")
+  List<Long> findIdsForStatusChange(ProductStatus status, Long dealerId, BigDecimal minPrice, BigDecimal maxPrice,
+                                    OffsetDateTime createdFrom, OffsetDateTime createdTo, Long afterId, Limit limit);
 
 }
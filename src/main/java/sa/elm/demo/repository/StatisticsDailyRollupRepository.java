@@ -0,0 +1,160 @@
+package sa.elm.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import sa.elm.demo.models.entity.StatisticsDailyRollup;
+import sa.elm.demo.models.projection.ProductSummaryView;
+import sa.elm.demo.models.projection.StatisticsRollupTotals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StatisticsDailyRollupRepository extends JpaRepository<StatisticsDailyRollup, LocalDate> {
+
+  @Query("SELECT new sa.elm.demo.models.projection.StatisticsRollupTotals(" +
+      "COALESCE(SUM(r.activeProducts), 0L), COALESCE(SUM(r.inactiveProducts), 0L), SUM(r.activePriceSum), " +
+      "COALESCE(SUM(r.activeClients), 0L), COALESCE(SUM(r.inactiveClients), 0L), " +
+      "COALESCE(SUM(r.activeDealers), 0L), COALESCE(SUM(r.inactiveDealers), 0L), COALESCE(SUM(r.dealersWithProducts), 0L)) " +
+      "FROM statisticsDailyRollup r WHERE r.statDate >= :from AND r.statDate < :to")
+  StatisticsRollupTotals sumTotals(LocalDate from, LocalDate to);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductSummaryView(p.id, p.name, p.price, u.username) " +
+      "FROM statisticsDailyRollup r JOIN product p ON p.id = r.highestPricedProductId JOIN p.user u " +
+      "WHERE r.statDate >= :from AND r.statDate < :to ORDER BY p.price DESC, p.id DESC LIMIT 1")
+  Optional<ProductSummaryView> findHighestPricedProduct(LocalDate from, LocalDate to);
+
+  @Query("SELECT new sa.elm.demo.models.projection.ProductSummaryView(p.id, p.name, p.price, u.username) " +
+      "FROM statisticsDailyRollup r JOIN product p ON p.id = r.lowestPricedProductId JOIN p.user u " +
+      "WHERE r.statDate >= :from AND r.statDate < :to ORDER BY p.price ASC, p.id DESC LIMIT 1")
+  Optional<ProductSummaryView> findLowestPricedProduct(LocalDate from, LocalDate to);
+
+  @Query("SELECT r.statDate FROM statisticsDailyRollup r")
+  List<LocalDate> findAllStatDates();
+
+  @Modifying
+  @Query(value = "MERGE INTO STATISTICS_DAILY_ROLLUP r USING (SELECT CAST(:day AS DATE) AS STAT_DATE) d " +
+      "ON r.STAT_DATE = d.STAT_DATE WHEN NOT MATCHED THEN INSERT (STAT_DATE, ACTIVE_PRODUCTS, INACTIVE_PRODUCTS, " +
+      "ACTIVE_PRICE_SUM, ACTIVE_CLIENTS, INACTIVE_CLIENTS, ACTIVE_DEALERS, INACTIVE_DEALERS, DEALERS_WITH_PRODUCTS) " +
+      "VALUES (d.STAT_DATE, 0, 0, 0, 0, 0, 0, 0, 0)", nativeQuery = true)
+  void insertDayIfAbsent(LocalDate day);
+
+  /**
+   * Adds a new product to its day. The highest and lowest candidates follow the same tie-break on the newest id
+   * as the live queries in {@link ProductRepository}; all right-hand sides see the row as it was before the update.
+   */
+  @Modifying
+  @Query("UPDATE statisticsDailyRollup r SET " +
+      "r.activeProducts = r.activeProducts + :activeDelta, " +
+      "r.inactiveProducts = r.inactiveProducts + :inactiveDelta, " +
+      "r.activePriceSum = r.activePriceSum + :activePriceDelta, " +
+      "r.highestPricedProductId = CASE WHEN r.highestPrice IS NULL OR r.highestPrice < :price " +
+      "OR (r.highestPrice = :price AND r.highestPricedProductId < :productId) THEN :productId ELSE r.highestPricedProductId END, " +
+      "r.highestPrice = CASE WHEN r.highestPrice IS NULL OR r.highestPrice < :price THEN :price ELSE r.highestPrice END, " +
+      "r.lowestPricedProductId = CASE WHEN r.lowestPrice IS NULL OR r.lowestPrice > :price " +
+      "OR (r.lowestPrice = :price AND r.lowestPricedProductId < :productId) THEN :productId ELSE r.lowestPricedProductId END, " +
+      "r.lowestPrice = CASE WHEN r.lowestPrice IS NULL OR r.lowestPrice > :price THEN :price ELSE r.lowestPrice END " +
+      "WHERE r.statDate = :day")
+  int addProduct(LocalDate day, long activeDelta, long inactiveDelta, BigDecimal activePriceDelta, BigDecimal price, Long productId);
+
+  @Modifying
+  @Query("UPDATE statisticsDailyRollup r SET " +
+      "r.activeProducts = r.activeProducts + :activeDelta, " +
+      "r.inactiveProducts = r.inactiveProducts - :activeDelta, " +
+      "r.activePriceSum = r.activePriceSum + :activePriceDelta " +
+      "WHERE r.statDate = :day")
+  int moveProductStatus(LocalDate day, long activeDelta, BigDecimal activePriceDelta);
+
+  @Modifying
+  @Query("UPDATE statisticsDailyRollup r SET " +
+      "r.activeClients = r.activeClients + :activeClientsDelta, " +
+      "r.inactiveClients = r.inactiveClients + :inactiveClientsDelta, " +
+      "r.activeDealers = r.activeDealers + :activeDealersDelta, " +
+      "r.inactiveDealers = r.inactiveDealers + :inactiveDealersDelta " +
+      "WHERE r.statDate = :day")
+  int addUsers(LocalDate day, long activeClientsDelta, long inactiveClientsDelta, long activeDealersDelta, long inactiveDealersDelta);
+
+  /**
+   * Recounts the dealers with products on the day the given dealer was created. Recounting rather than incrementing
+   * keeps the value right when two first products of the same dealer are added concurrently.
+   */
+  @Modifying
+  @Query(value = "UPDATE STATISTICS_DAILY_ROLLUP r SET DEALERS_WITH_PRODUCTS = (" +
+      "SELECT COUNT(*) FROM USERS u WHERE u.ROLE = 'DEALER' AND CAST(u.CREATED_AT AS DATE) = r.STAT_DATE " +
+      "AND EXISTS (SELECT 1 FROM PRODUCTS p WHERE p.USER_ID = u.ID)) " +
+      "WHERE r.STAT_DATE = (SELECT CAST(d.CREATED_AT AS DATE) FROM USERS d WHERE d.ID = :dealerId)", nativeQuery = true)
+  int recountDealersWithProducts(Long dealerId);
+
+  @Modifying
+  @Query("DELETE FROM statisticsDailyRollup r")
+  int deleteAllDays();
+
+  // The rebuild runs as one grouped scan per statement; joining the grouped scans would re-run them for every day
+
+  @Modifying
+  @Query(value = """
+      INSERT INTO STATISTICS_DAILY_ROLLUP (STAT_DATE, ACTIVE_PRODUCTS, INACTIVE_PRODUCTS, ACTIVE_PRICE_SUM,
+          ACTIVE_CLIENTS, INACTIVE_CLIENTS, ACTIVE_DEALERS, INACTIVE_DEALERS, DEALERS_WITH_PRODUCTS)
+      SELECT CAST(CREATED_AT AS DATE),
+          SUM(CASE WHEN STATUS = 'ACTIVE' THEN 1 ELSE 0 END),
+          SUM(CASE WHEN STATUS = 'INACTIVE' THEN 1 ELSE 0 END),
+          SUM(CASE WHEN STATUS = 'ACTIVE' THEN PRICE ELSE 0 END),
+          0, 0, 0, 0, 0
+      FROM PRODUCTS GROUP BY CAST(CREATED_AT AS DATE)
+      """, nativeQuery = true)
+  int insertProductDaysFromBaseTable();
+
+  @Modifying
+  @Query(value = """
+      MERGE INTO STATISTICS_DAILY_ROLLUP r
+      USING (SELECT CAST(usr.CREATED_AT AS DATE) AS STAT_DATE,
+                 SUM(CASE WHEN usr.ROLE = 'CLIENT' AND usr.STATUS = 'ACTIVE' THEN 1 ELSE 0 END) AS ACTIVE_CLIENTS,
+                 SUM(CASE WHEN usr.ROLE = 'CLIENT' AND usr.STATUS = 'INACTIVE' THEN 1 ELSE 0 END) AS INACTIVE_CLIENTS,
+                 SUM(CASE WHEN usr.ROLE = 'DEALER' AND usr.STATUS = 'ACTIVE' THEN 1 ELSE 0 END) AS ACTIVE_DEALERS,
+                 SUM(CASE WHEN usr.ROLE = 'DEALER' AND usr.STATUS = 'INACTIVE' THEN 1 ELSE 0 END) AS INACTIVE_DEALERS,
+                 SUM(CASE WHEN usr.ROLE = 'DEALER'
+                     AND EXISTS (SELECT 1 FROM PRODUCTS p WHERE p.USER_ID = usr.ID) THEN 1 ELSE 0 END) AS DEALERS_WITH_PRODUCTS
+             FROM USERS usr WHERE usr.ROLE IN ('CLIENT', 'DEALER')
+             GROUP BY CAST(usr.CREATED_AT AS DATE)) u
+      ON r.STAT_DATE = u.STAT_DATE
+      WHEN MATCHED THEN UPDATE SET ACTIVE_CLIENTS = u.ACTIVE_CLIENTS, INACTIVE_CLIENTS = u.INACTIVE_CLIENTS,
+          ACTIVE_DEALERS = u.ACTIVE_DEALERS, INACTIVE_DEALERS = u.INACTIVE_DEALERS,
+          DEALERS_WITH_PRODUCTS = u.DEALERS_WITH_PRODUCTS
+      WHEN NOT MATCHED THEN INSERT (STAT_DATE, ACTIVE_PRODUCTS, INACTIVE_PRODUCTS, ACTIVE_PRICE_SUM,
+          ACTIVE_CLIENTS, INACTIVE_CLIENTS, ACTIVE_DEALERS, INACTIVE_DEALERS, DEALERS_WITH_PRODUCTS)
+          VALUES (u.STAT_DATE, 0, 0, 0, u.ACTIVE_CLIENTS, u.INACTIVE_CLIENTS, u.ACTIVE_DEALERS, u.INACTIVE_DEALERS,
+              u.DEALERS_WITH_PRODUCTS)
+      """, nativeQuery = true)
+  int mergeUserDaysFromBaseTable();
+
+  @Modifying
+  @Query(value = """
+      MERGE INTO STATISTICS_DAILY_ROLLUP r
+      USING (SELECT ranked.STAT_DATE, ranked.PRICE, ranked.ID
+             FROM (SELECT CAST(CREATED_AT AS DATE) AS STAT_DATE, PRICE, ID,
+                       ROW_NUMBER() OVER (PARTITION BY CAST(CREATED_AT AS DATE) ORDER BY PRICE DESC, ID DESC) AS RN
+                   FROM PRODUCTS) ranked
+             WHERE ranked.RN = 1) h
+      ON r.STAT_DATE = h.STAT_DATE
+      WHEN MATCHED THEN UPDATE SET HIGHEST_PRICE = h.PRICE, HIGHEST_PRICED_PRODUCT_ID = h.ID
+      """, nativeQuery = true)
+  int mergeHighestPricedProductsFromBaseTable();
+
+  @Modifying
+  @Query(value = """
+      MERGE INTO STATISTICS_DAILY_ROLLUP r
+      USING (SELECT ranked.STAT_DATE, ranked.PRICE, ranked.ID
+             FROM (SELECT CAST(CREATED_AT AS DATE) AS STAT_DATE, PRICE, ID,
+                       ROW_NUMBER() OVER (PARTITION BY CAST(CREATED_AT AS DATE) ORDER BY PRICE ASC, ID DESC) AS RN
+                   FROM PRODUCTS) ranked
+             WHERE ranked.RN = 1) l
+      ON r.STAT_DATE = l.STAT_DATE
+      WHEN MATCHED THEN UPDATE SET LOWEST_PRICE = l.PRICE, LOWEST_PRICED_PRODUCT_ID = l.ID
+      """, nativeQuery = true)
+  int mergeLowestPricedProductsFromBaseTable();
+
+}
@@ -1,13 +1,22 @@
 package sa.elm.demo.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import sa.elm.demo.models.entity.User;
-import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.UserIdentityMatch;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.models.projection.UserStatisticsAggregate;
+import sa.elm.demo.models.projection.UserStatusView;
+import sa.elm.demo.models.security.UserPrincipal;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,16 +26,53 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
   Optional<User> findByEmail(String email);
 
-  @Query("SELECT COUNT(u) FROM user u WHERE u.userRole = :role AND u.createdAt >= :from AND  u.createdAt <= :to")
-  Long countTotalUsersBasedOnRole(UserRoleEnum role, OffsetDateTime from, OffsetDateTime to);
+  // Both uniqueness checks in one statement, each answered by its unique index
+  @Query("SELECT new sa.elm.demo.models.projection.UserIdentityMatch(" +
+      "COALESCE(SUM(CASE WHEN u.email = :email THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.username = :username THEN 1L ELSE 0L END), 0L)) " +
+      "FROM user u WHERE u.email = :email OR u.username = :username")
+  UserIdentityMatch countIdentityMatches(String email, String username);
 
-  @Query("SELECT COUNT(u) FROM user u WHERE u.userRole = :role AND u.userStatus = :status AND u.createdAt >= :from AND u.createdAt <= :to")
-  Long countTotalUsersBasedOnRoleAndStatus(UserRoleEnum role, UserStatusEnum status, OffsetDateTime from, OffsetDateTime to);
+  @Query("SELECT new sa.elm.demo.models.projection.UserIdentityView(u.id, u.username, u.email) FROM user u " +
+      "WHERE u.id > :id ORDER BY u.id ASC")
+  List<UserIdentityView> findIdentitiesAfter(Long id, Limit limit);
 
-  @Query("SELECT COUNT(u) FROM user u WHERE u.userRole = 'DEALER' AND u.products IS EMPTY AND u.createdAt >= :from AND u.createdAt <= :to")
-  long countDealersWithNoProducts(OffsetDateTime from, OffsetDateTime to);
+  // The uniqueness check of a whole batch in one statement
+  @Query("SELECT new sa.elm.demo.models.projection.UserIdentityView(u.id, u.username, u.email) FROM user u " +
+      "WHERE u.username IN :usernames OR u.email IN :emails")
+  List<UserIdentityView> findTakenIdentities(Collection<String> usernames, Collection<String> emails);
 
-  @Query("SELECT COUNT(u) FROM user u WHERE u.userRole = 'DEALER' AND u.products IS NOT EMPTY AND u.createdAt >= :from AND  u.createdAt <= :to")
-  long countDealersWithProducts(OffsetDateTime from, OffsetDateTime to);
+  @Query("SELECT new sa.elm.demo.models.security.UserPrincipal(u.id, u.username, u.userRole, u.userStatus) FROM user u WHERE u.id = :id")
+  Optional<UserPrincipal> findPrincipalById(Long id);
+
+  // Flips the status in the database, so concurrent toggles queue on the row lock instead of overwriting each other
+  @Transactional
+  @Modifying
+  @Query("UPDATE user u SET u.userStatus = CASE WHEN u.userStatus = sa.elm.demo.models.entity.enums.UserStatusEnum.ACTIVE " +
+      "THEN sa.elm.demo.models.entity.enums.UserStatusEnum.INACTIVE ELSE sa.elm.demo.models.entity.enums.UserStatusEnum.ACTIVE END, " +
+      "u.updatedAt = :updatedAt WHERE u.id = :id")
+  int toggleStatus(Long id, OffsetDateTime updatedAt);
+
+  // Only replaces the hash that was verified, so a password changed in the meantime is not overwritten
+  @Transactional
+  @Modifying
+  @Query("UPDATE user u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+  int replacePasswordHash(Long id, String oldPassword, String newPassword);
+
+  @Query("SELECT new sa.elm.demo.models.projection.UserStatusView(u.id, u.userRole, u.userStatus, u.createdAt) FROM user u WHERE u.id = :id")
+  Optional<UserStatusView> findStatusViewById(Long id);
+
+  @Query("SELECT u.id FROM user u WHERE u.userStatus = :status")
+  List<Long> findIdsByStatus(UserStatusEnum status);
+
+  @Query("SELECT new sa.elm.demo.models.projection.UserStatisticsAggregate(" +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'CLIENT' THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'CLIENT' AND u.userStatus = 'ACTIVE' THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'CLIENT' AND u.userStatus = 'INACTIVE' THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'DEALER' THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'DEALER' AND u.products IS NOT EMPTY THEN 1L ELSE 0L END), 0L), " +
+      "COALESCE(SUM(CASE WHEN u.userRole = 'DEALER' AND u.products IS EMPTY THEN 1L ELSE 0L END), 0L)) " +
+      "FROM user u WHERE u.userRole IN ('CLIENT', 'DEALER') AND u.createdAt >= :from AND u.createdAt < :to")
+  UserStatisticsAggregate aggregateUserStatistics(OffsetDateTime from, OffsetDateTime to);
 
 }
@@ -0,0 +1,63 @@
+package sa.elm.demo.security.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.models.security.UserPrincipal;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Process-wide cache of user id to {@link UserPrincipal}. Entries are invalidated explicitly whenever a user is
+ * mutated; the time to live only bounds staleness for changes made outside this application.
+ * <p>
+ * Principals are loaded outside the cache's own locking, which holds a monitor for the whole computation and would pin
+ * a virtual thread to its carrier for the length of the query. Concurrent misses for the same user may each load it.
+ */
+@Component
+public class PrincipalCache {
+
+  private final Cache<Long, UserPrincipal> cache;
+  // Bumped by every invalidation, so a principal loaded while its user changed is not kept
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public PrincipalCache(@Value("${sa.elm.demo.principalCache.maximumSize:10000}") long maximumSize,
+                        @Value("${sa.elm.demo.principalCache.ttl:PT5M}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+  }
+
+  public UserPrincipal get(Long id, Function<Long, UserPrincipal> loader) {
+    UserPrincipal cachedPrincipal = cache.getIfPresent(id);
+    if (cachedPrincipal != null) {
+      return cachedPrincipal;
+    }
+    long invalidationsBeforeLoad = invalidations.get();
+    UserPrincipal principal = loader.apply(id);
+    cache.put(id, principal);
+    // An invalidation that started after the load may have missed the entry just put; drop it ourselves
+    if (invalidations.get() != invalidationsBeforeLoad) {
+      cache.invalidate(id);
+    }
+    return principal;
+  }
+
+  public void invalidate(Long id) {
+    if (id != null) {
+      invalidations.incrementAndGet();
+      cache.invalidate(id);
+    }
+  }
+
+}
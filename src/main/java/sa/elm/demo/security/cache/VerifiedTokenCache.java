@@ -0,0 +1,126 @@
+package sa.elm.demo.security.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.models.security.VerifiedToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Remembers tokens whose signature has already been verified, keyed by the SHA-256 digest of the raw token,
+ * until the earlier of the token's own expiry and the configured maximum time to live.
+ * <p>
+ * Invalidating a subject does not scan the cache: it records a "not valid before" stamp for the subject, and lookups
+ * verify again any of its tokens cached before that stamp. A stamp only needs to outlive the tokens cached before
+ * it, so it expires after the maximum time to live.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+  private final Cache<String, CachedToken> cache;
+  private final Cache<String, Long> subjectsNotValidBefore;
+  // Orders cache writes against subject invalidations
+  private final AtomicLong clock = new AtomicLong();
+
+  public VerifiedTokenCache(@Value("${sa.elm.demo.tokenCache.maximumSize:10000}") long maximumSize,
+                            @Value("${sa.elm.demo.tokenCache.maximumTtl:PT15M}") Duration maximumTtl,
+                            MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new TokenExpiry(maximumTtl))
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+    this.subjectsNotValidBefore = Caffeine.newBuilder()
+        .expireAfterWrite(maximumTtl)
+        .executor(Runnable::run)
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+  }
+
+  public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+    String key = digest(token);
+    CachedToken cachedToken = cache.getIfPresent(key);
+    if (cachedToken != null && !cachedToken.verifiedToken().isExpired(Instant.now()) && !isInvalidated(cachedToken)) {
+      return cachedToken.verifiedToken();
+    }
+    // Read before verifying, so a subject invalidated while the token is verified also invalidates this entry
+    long cachedAt = clock.get();
+    CachedToken newEntry = new CachedToken(verifier.apply(token), cachedAt);
+    cache.put(key, newEntry);
+    // The subject's stamp may expire before this entry does, so do not leave it to the lookup
+    if (isInvalidated(newEntry)) {
+      cache.invalidate(key);
+    }
+    return newEntry.verifiedToken();
+  }
+
+  /**
+   * Forces every cached token issued to the given subject through full verification again, in constant time.
+   */
+  public void invalidateSubject(String subject) {
+    subjectsNotValidBefore.put(subject, clock.incrementAndGet());
+    log.info("Invalidated cached tokens of subject:{}", subject);
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private boolean isInvalidated(CachedToken cachedToken) {
+    String subject = cachedToken.verifiedToken().subject();
+    Long notValidBefore = subject != null ? subjectsNotValidBefore.getIfPresent(subject) : null;
+    return notValidBefore != null && cachedToken.cachedAt() < notValidBefore;
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private record CachedToken(VerifiedToken verifiedToken, long cachedAt) {
+  }
+
+  private record TokenExpiry(Duration maximumTtl) implements Expiry<String, CachedToken> {
+
+    @Override
+    public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+      Instant expiresAt = value.verifiedToken().expiresAt();
+      if (expiresAt == null) {
+        return maximumTtl.toNanos();
+      }
+      Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+      return Math.max(0, Math.min(untilExpiry.toNanos(), maximumTtl.toNanos()));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+}
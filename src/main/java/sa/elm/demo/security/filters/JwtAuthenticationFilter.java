@@ -1,26 +1,31 @@
 package sa.elm.demo.security.filters;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
 import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.models.security.UserPrincipal;
+import sa.elm.demo.models.security.VerifiedToken;
+import sa.elm.demo.security.cache.VerifiedTokenCache;
+import sa.elm.demo.security.revocation.DeactivatedUserDenyList;
 import sa.elm.demo.service.UsersService;
 import sa.elm.demo.util.JwtUtil;
 
 import java.io.IOException;
 import java.util.List;
 
+@Slf4j
 @RequiredArgsConstructor
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -29,6 +34,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final UsersService usersService;
   private final JwtUtil jwtUtil;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final DeactivatedUserDenyList deactivatedUserDenyList;
+
+  @Value("${sa.elm.demo.security.statelessPrincipal:false}")
+  private boolean statelessPrincipal;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -41,28 +51,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     String jwt = authHeader.substring(7);
-    if (jwtUtil.validateToken(jwt)) {
+    VerifiedToken verifiedToken = verifiedTokenCache.get(jwt, jwtUtil::verifyToken);
 
-      String idAsString = jwtUtil.extractClaim(jwt, Claims::getSubject);
+    if (statelessPrincipal && deactivatedUserDenyList.isDenied(verifiedToken.getUserId())) {
+      log.warn("Rejected token of deactivated user with Id:{}", verifiedToken.getUserId());
+      filterChain.doFilter(request, response);
+      return;
+    }
 
-      User user = usersService.findUserById(Long.valueOf(idAsString));
-      SecurityUser securityUser = map(user);
-      UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
-          securityUser,
-          null,
-          securityUser.getAuthorities()
-      );
+    UserPrincipal principal = resolvePrincipal(verifiedToken);
+    SecurityUser securityUser = map(principal);
+    UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+        securityUser,
+        null,
+        securityUser.getAuthorities()
+    );
 
-      SecurityContextHolder.getContext().setAuthentication(token);
-    }
+    SecurityContextHolder.getContext().setAuthentication(token);
 
     filterChain.doFilter(request, response);
   }
 
-  public SecurityUser map(User entity) {
-    return new SecurityUser(String.valueOf(entity.getId()),
-        entity.getUserStatus() == UserStatusEnum.ACTIVE,
-        List.of(new SimpleGrantedAuthority(entity.getUserRole().name())));
+  // In stateless mode the signed role and name claims are trusted as-is; tokens without a role fall back to the user table
+  private UserPrincipal resolvePrincipal(VerifiedToken verifiedToken) {
+    if (statelessPrincipal && verifiedToken.role() != null) {
+      return new UserPrincipal(verifiedToken.getUserId(), verifiedToken.name(), verifiedToken.role(), UserStatusEnum.ACTIVE);
+    }
+    return usersService.findPrincipalById(verifiedToken.getUserId());
+  }
+
+  public SecurityUser map(UserPrincipal principal) {
+    return new SecurityUser(String.valueOf(principal.id()),
+        principal.status() == UserStatusEnum.ACTIVE,
+        List.of(new SimpleGrantedAuthority(principal.role().name())));
   }
 
 
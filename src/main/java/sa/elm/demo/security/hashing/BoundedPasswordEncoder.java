@@ -0,0 +1,124 @@
+package sa.elm.demo.security.hashing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sa.elm.demo.exception.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a deliberately slow password encoder on a small dedicated pool instead of the request threads, so a burst of
+ * logins or registrations takes at most {@code poolSize} cores and the rest of the application keeps serving. Work
+ * beyond the pool waits in a bounded queue; when that is full, or a hash has waited longer than {@code timeout}, the
+ * caller gets a {@link PasswordHashingBusyException} at once rather than adding to the backlog.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+  private final PasswordEncoder delegate;
+  private final int poolSize;
+  private final Duration timeout;
+  private final ExecutorService executorService;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity, Duration timeout,
+                                MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.poolSize = poolSize;
+    this.timeout = timeout;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+    threadFactory.setDaemon(true);
+    this.executorService = ExecutorServiceMetrics.monitor(meterRegistry,
+        new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy()),
+        "passwordHashing");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Hashes a batch in parallel, keeping at most {@code poolSize} of its hashes queued or running so a batch never
+   * fills the queue that logins share. Fails as a whole when the pool is too busy to take its next hash.
+   */
+  public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+    List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+    List<String> encodedPasswords = new ArrayList<>(rawPasswords.size());
+    try {
+      for (CharSequence rawPassword : rawPasswords) {
+        if (futures.size() - encodedPasswords.size() == poolSize) {
+          encodedPasswords.add(await(futures.get(encodedPasswords.size())));
+        }
+        futures.add(submit(() -> delegate.encode(rawPassword)));
+      }
+      while (encodedPasswords.size() < futures.size()) {
+        encodedPasswords.add(await(futures.get(encodedPasswords.size())));
+      }
+      return encodedPasswords;
+    } catch (RuntimeException e) {
+      futures.forEach(future -> future.cancel(false));
+      throw e;
+    }
+  }
+
+  // Only reads the cost from the stored hash, so it stays on the caller's thread
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T run(Supplier<T> hashing) {
+    return await(submit(hashing));
+  }
+
+  private <T> Future<T> submit(Supplier<T> hashing) {
+    try {
+      return executorService.submit(hashing::get);
+    } catch (RejectedExecutionException e) {
+      throw new PasswordHashingBusyException("Too many sign-ins at the moment, please try again shortly");
+    }
+  }
+
+  private <T> T await(Future<T> future) {
+    try {
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Drops it from the queue if it has not started; a hash already running cannot be interrupted
+      future.cancel(false);
+      throw new PasswordHashingBusyException("Too many sign-ins at the moment, please try again shortly");
+    } catch (InterruptedException e) {
+      future.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingBusyException("Interrupted while waiting for the password to be checked");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdown();
+  }
+
+}
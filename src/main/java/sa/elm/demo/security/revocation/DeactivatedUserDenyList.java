@@ -0,0 +1,115 @@
+package sa.elm.demo.security.revocation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids of deactivated users, kept as a sorted copy-on-write {@code long[]} so the per-request lookup is a lock-free
+ * binary search. Local status changes are applied immediately and the whole list is reloaded periodically so
+ * changes made on other instances are picked up without a per-request database call. Each local change is stamped
+ * with a version, and a reload re-applies the changes stamped after its query started, so a snapshot read while a
+ * user was being deactivated cannot bring their tokens back.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class DeactivatedUserDenyList {
+
+  private final UserRepository userRepository;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile long[] deactivatedUserIds = new long[0];
+  // Guarded by writeLock
+  private final Map<Long, LocalChange> localChanges = new HashMap<>();
+  private long version;
+
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${sa.elm.demo.security.denyListRefreshInterval:PT1M}",
+      initialDelayString = "${sa.elm.demo.security.denyListRefreshInterval:PT1M}")
+  public void reload() {
+    long queryStart;
+    writeLock.lock();
+    try {
+      queryStart = version;
+    } finally {
+      writeLock.unlock();
+    }
+    // Changes are applied after their transaction commits, so those stamped before the query are in its result
+    Set<Long> ids = new HashSet<>(userRepository.findIdsByStatus(UserStatusEnum.INACTIVE));
+    long[] reloaded;
+    writeLock.lock();
+    try {
+      localChanges.values().removeIf(change -> change.version() <= queryStart);
+      localChanges.forEach((userId, change) -> {
+        if (change.denied()) {
+          ids.add(userId);
+        } else {
+          ids.remove(userId);
+        }
+      });
+      reloaded = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+      deactivatedUserIds = reloaded;
+    } finally {
+      writeLock.unlock();
+    }
+    log.debug("Loaded {} deactivated user id(s)", reloaded.length);
+  }
+
+  public boolean isDenied(Long userId) {
+    return Arrays.binarySearch(deactivatedUserIds, userId) >= 0;
+  }
+
+  public void deny(Long userId) {
+    writeLock.lock();
+    try {
+      localChanges.put(userId, new LocalChange(true, ++version));
+      long[] current = deactivatedUserIds;
+      int index = Arrays.binarySearch(current, userId);
+      if (index >= 0) {
+        return;
+      }
+      int insertionPoint = -index - 1;
+      long[] updated = new long[current.length + 1];
+      System.arraycopy(current, 0, updated, 0, insertionPoint);
+      updated[insertionPoint] = userId;
+      System.arraycopy(current, insertionPoint, updated, insertionPoint + 1, current.length - insertionPoint);
+      deactivatedUserIds = updated;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public void allow(Long userId) {
+    writeLock.lock();
+    try {
+      localChanges.put(userId, new LocalChange(false, ++version));
+      long[] current = deactivatedUserIds;
+      int index = Arrays.binarySearch(current, userId);
+      if (index < 0) {
+        return;
+      }
+      long[] updated = new long[current.length - 1];
+      System.arraycopy(current, 0, updated, 0, index);
+      System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+      deactivatedUserIds = updated;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private record LocalChange(boolean denied, long version) {
+  }
+
+}
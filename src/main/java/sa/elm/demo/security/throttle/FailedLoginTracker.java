@@ -0,0 +1,184 @@
+package sa.elm.demo.security.throttle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.exception.TooManyLoginAttemptsException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts failed logins per username and per client address, so callers that keep failing are turned away before
+ * their login costs a user lookup or a password check. Each count leaks away at {@code maxFailures} per
+ * {@code window}: a key may fail that many times in a burst, and after that gets one more attempt each
+ * {@code window / maxFailures}. Keys are spread over independently locked stripes, each an LRU map holding its share
+ * of {@code maximumEntries}, so a flood of new keys only pushes out the oldest ones.
+ */
+@Component
+public class FailedLoginTracker {
+
+  private static final String USERNAME_PREFIX = "user:";
+  private static final String CLIENT_PREFIX = "ip:";
+
+  private final Stripe[] stripes;
+  private final int maxFailuresPerUsername;
+  private final int maxFailuresPerClient;
+  private final long windowNanos;
+  private final LongSupplier nanoClock;
+  private final Counter usernameFailures;
+  private final Counter clientFailures;
+  private final Counter usernameRejections;
+  private final Counter clientRejections;
+
+  @Autowired
+  public FailedLoginTracker(@Value("${sa.elm.demo.loginThrottle.maxFailuresPerUsername:5}") int maxFailuresPerUsername,
+                            @Value("${sa.elm.demo.loginThrottle.maxFailuresPerClient:20}") int maxFailuresPerClient,
+                            @Value("${sa.elm.demo.loginThrottle.window:PT15M}") Duration window,
+                            @Value("${sa.elm.demo.loginThrottle.maximumEntries:100000}") int maximumEntries,
+                            @Value("${sa.elm.demo.loginThrottle.stripes:64}") int stripeCount,
+                            MeterRegistry meterRegistry) {
+    this(maxFailuresPerUsername, maxFailuresPerClient, window, maximumEntries, stripeCount, meterRegistry, System::nanoTime);
+  }
+
+  FailedLoginTracker(int maxFailuresPerUsername, int maxFailuresPerClient, Duration window, int maximumEntries,
+                     int stripeCount, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+    this.maxFailuresPerUsername = maxFailuresPerUsername;
+    this.maxFailuresPerClient = maxFailuresPerClient;
+    this.windowNanos = window.toNanos();
+    this.nanoClock = nanoClock;
+    this.stripes = new Stripe[stripeCount];
+    int entriesPerStripe = Math.max(1, maximumEntries / stripeCount);
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(entriesPerStripe);
+    }
+    this.usernameFailures = counter(meterRegistry, "login.failures", "username");
+    this.clientFailures = counter(meterRegistry, "login.failures", "client");
+    this.usernameRejections = counter(meterRegistry, "login.rejections", "username");
+    this.clientRejections = counter(meterRegistry, "login.rejections", "client");
+  }
+
+  /**
+   * Throws when either the username or the client has used up its failures.
+   */
+  public void checkAllowed(String username, String clientAddress) {
+    long now = nanoClock.getAsLong();
+    if (clientAddress != null && failures(CLIENT_PREFIX + clientAddress, maxFailuresPerClient, now) >= maxFailuresPerClient) {
+      clientRejections.increment();
+      throw new TooManyLoginAttemptsException("Too many failed logins, please try again later");
+    }
+    if (username != null && failures(usernameKey(username), maxFailuresPerUsername, now) >= maxFailuresPerUsername) {
+      usernameRejections.increment();
+      throw new TooManyLoginAttemptsException("Too many failed logins, please try again later");
+    }
+  }
+
+  public void recordFailure(String username, String clientAddress) {
+    long now = nanoClock.getAsLong();
+    if (clientAddress != null) {
+      addFailure(CLIENT_PREFIX + clientAddress, maxFailuresPerClient, now);
+      clientFailures.increment();
+    }
+    if (username != null) {
+      addFailure(usernameKey(username), maxFailuresPerUsername, now);
+      usernameFailures.increment();
+    }
+  }
+
+  // A client address is shared by everyone behind it, so only the username is forgiven
+  public void recordSuccess(String username) {
+    if (username == null) {
+      return;
+    }
+    String key = usernameKey(username);
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      stripe.scores.remove(key);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  private double failures(String key, int maxFailures, long now) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      Score score = stripe.scores.get(key);
+      if (score == null) {
+        return 0;
+      }
+      double failures = score.leak(maxFailures, windowNanos, now);
+      if (failures == 0) {
+        stripe.scores.remove(key);
+      }
+      return failures;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  private void addFailure(String key, int maxFailures, long now) {
+    Stripe stripe = stripeFor(key);
+    stripe.lock.lock();
+    try {
+      Score score = stripe.scores.computeIfAbsent(key, k -> new Score(now));
+      score.failures = score.leak(maxFailures, windowNanos, now) + 1;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  private Stripe stripeFor(String key) {
+    int hash = key.hashCode();
+    return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+  }
+
+  private static String usernameKey(String username) {
+    return USERNAME_PREFIX + username.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String name, String key) {
+    return Counter.builder(name).tag("key", key).register(meterRegistry);
+  }
+
+  private static final class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Score> scores;
+
+    private Stripe(int maximumEntries) {
+      this.scores = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Score> eldest) {
+          return size() > maximumEntries;
+        }
+      };
+    }
+  }
+
+  private static final class Score {
+
+    private double failures;
+    private long updatedAt;
+
+    private Score(long now) {
+      this.updatedAt = now;
+    }
+
+    // Applies the leak since the last update and returns what is left
+    private double leak(int maxFailures, long windowNanos, long now) {
+      double leaked = (double) (now - updatedAt) * maxFailures / windowNanos;
+      failures = Math.max(0, failures - leaked);
+      updatedAt = now;
+      return failures;
+    }
+  }
+
+}
@@ -0,0 +1,144 @@
+package sa.elm.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.elm.models.ProductBulkCreationError;
+import sa.elm.models.ProductBulkCreationItem;
+import sa.elm.models.ProductBulkCreationLine;
+import sa.elm.models.ProductBulkCreationResponse;
+import sa.elm.models.ProductCreationRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validates bulk product uploads item by item and hands the valid ones to {@link ProductsService} in chunks, each
+ * stored in its own transaction. A chunk that fails to store fails the request, leaving the chunks before it stored.
+ */
+@Slf4j
+@Service
+public class ProductBulkImportService {
+
+  // Enough to explain what is wrong with an upload without the response growing with it
+  static final int MAX_REPORTED_ERRORS = 1000;
+
+  private final ProductsService productsService;
+  private final Validator validator;
+  private final ObjectReader productBulkCreationLineReader;
+  private final int chunkSize;
+
+  public ProductBulkImportService(ProductsService productsService,
+                                  Validator validator,
+                                  ObjectMapper objectMapper,
+                                  @Value("${sa.elm.demo.bulkAdd.chunkSize:500}") int chunkSize) {
+    this.productsService = productsService;
+    this.validator = validator;
+    this.productBulkCreationLineReader = objectMapper.readerFor(ProductBulkCreationLine.class);
+    this.chunkSize = chunkSize;
+  }
+
+  public ProductBulkCreationResponse importProducts(List<ProductBulkCreationItem> items) {
+    Import productImport = new Import();
+    for (ProductBulkCreationItem item : items) {
+      productImport.add(item == null ? null
+          : ProductBulkCreationLine.builder().name(item.getName()).price(item.getPrice()).build());
+    }
+    return productImport.finish();
+  }
+
+  /**
+   * Reads one product per line as the body arrives, so only the current chunk is held in memory.
+   */
+  public ProductBulkCreationResponse importProducts(InputStream ndjson) {
+    Import productImport = new Import();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (StringUtils.isBlank(line)) {
+          productImport.skip();
+          continue;
+        }
+        try {
+          productImport.add(productBulkCreationLineReader.readValue(line));
+        } catch (JsonProcessingException e) {
+          productImport.reject("Malformed JSON: " + e.getOriginalMessage());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the uploaded products", e);
+    }
+    return productImport.finish();
+  }
+
+  private class Import {
+
+    private final List<ProductCreationRequest> chunk = new ArrayList<>(chunkSize);
+    private final List<ProductBulkCreationError> errors = new ArrayList<>();
+    private long index;
+    private long created;
+    private long rejected;
+
+    // A JSON null item or NDJSON line arrives as null
+    void add(ProductBulkCreationLine product) {
+      if (product == null) {
+        reject("Item must not be null");
+        return;
+      }
+      Set<ConstraintViolation<ProductBulkCreationLine>> violations = validator.validate(product);
+      if (!violations.isEmpty()) {
+        reject(violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; ")));
+        return;
+      }
+      chunk.add(ProductCreationRequest.builder().name(product.getName()).price(product.getPrice()).build());
+      index++;
+      if (chunk.size() == chunkSize) {
+        flush();
+      }
+    }
+
+    void reject(String message) {
+      rejected++;
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(ProductBulkCreationError.builder().index(index).message(message).build());
+      }
+      index++;
+    }
+
+    void skip() {
+      index++;
+    }
+
+    ProductBulkCreationResponse finish() {
+      flush();
+      log.info("Bulk product upload created {} products and rejected {}", created, rejected);
+      return ProductBulkCreationResponse.builder().created(created).rejected(rejected).errors(errors).build();
+    }
+
+    private void flush() {
+      if (!chunk.isEmpty()) {
+        created += productsService.addNewProducts(List.copyOf(chunk)).size();
+        chunk.clear();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,72 @@
+package sa.elm.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.elm.demo.exception.InvalidBulkRequestException;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.models.ProductBulkStatusChangeRequest;
+import sa.elm.models.ProductBulkStatusChangeResponse;
+import sa.elm.models.ProductStatusChangeFilter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Applies a status to many products by handing them to {@link ProductsService} in chunks, each changed with one
+ * update in its own transaction. A chunk that fails fails the request, leaving the chunks before it changed.
+ */
+@Slf4j
+@Service
+public class ProductBulkStatusService {
+
+  private final ProductsService productsService;
+  private final int chunkSize;
+
+  public ProductBulkStatusService(ProductsService productsService,
+                                  @Value("${sa.elm.demo.bulkStatus.chunkSize:1000}") int chunkSize) {
+    this.productsService = productsService;
+    this.chunkSize = chunkSize;
+  }
+
+  public ProductBulkStatusChangeResponse changeProductStatuses(ProductBulkStatusChangeRequest request) {
+    if (request.getStatus() == null) {
+      throw new InvalidBulkRequestException("Status is required");
+    }
+    // The generated request starts with an empty id list, so an empty list means no ids were given
+    boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+    if (byIds == (request.getFilter() != null)) {
+      throw new InvalidBulkRequestException("Give either ids or a filter");
+    }
+    ProductStatus status = ProductStatus.valueOf(request.getStatus().getValue());
+    ProductBulkStatusChangeResponse total = ProductBulkStatusChangeResponse.builder()
+        .changed(0L).unchanged(0L).notOwned(0L).notFound(0L).build();
+
+    if (byIds) {
+      List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+      for (int from = 0; from < ids.size(); from += chunkSize) {
+        add(total, productsService.changeProductStatuses(ids.subList(from, Math.min(from + chunkSize, ids.size())), status));
+      }
+    } else {
+      ProductStatusChangeFilter filter = request.getFilter();
+      List<Long> ids = productsService.findIdsForStatusChange(filter, status, 0L, chunkSize);
+      while (!ids.isEmpty()) {
+        add(total, productsService.changeProductStatuses(ids, status));
+        ids = ids.size() < chunkSize ? List.of()
+            : productsService.findIdsForStatusChange(filter, status, ids.get(ids.size() - 1), chunkSize);
+      }
+    }
+
+    log.info("Bulk status change to {} changed {} products", status, total.getChanged());
+    return total;
+  }
+
+  private static void add(ProductBulkStatusChangeResponse total, ProductBulkStatusChangeResponse chunk) {
+    total.setChanged(total.getChanged() + chunk.getChanged());
+    total.setUnchanged(total.getUnchanged() + chunk.getUnchanged());
+    total.setNotOwned(total.getNotOwned() + chunk.getNotOwned());
+    total.setNotFound(total.getNotFound() + chunk.getNotFound());
+  }
+
+}
@@ -0,0 +1,111 @@
+package sa.elm.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sa.elm.demo.models.projection.ProductExportView;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.models.ProductExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalogue to an output stream while it is read from a single forward-only query, so memory use
+ * stays flat however many products there are. Output is flushed only as the buffers fill up.
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+  static final String CSV_HEADER = "id,name,dealerName,price,status,createdAt";
+
+  private final ProductRepository productRepository;
+  private final ObjectWriter ndjsonWriter;
+
+  public ProductExportService(ProductRepository productRepository, ObjectMapper objectMapper) {
+    this.productRepository = productRepository;
+    // The response stream belongs to the servlet container, and flushing every line would defeat the buffering
+    this.ndjsonWriter = objectMapper.writerFor(ProductExportView.class)
+        .withRootValueSeparator("\n")
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Runs in one read-only transaction, which keeps the cursor open until the last row has been written.
+   */
+  @Transactional(readOnly = true)
+  public long export(ProductExportFormat format, OutputStream outputStream) throws IOException {
+    try (Stream<ProductExportView> products = productRepository.streamExport()) {
+      Iterator<ProductExportView> rows = products.iterator();
+      long exported = format == ProductExportFormat.CSV ? writeCsv(rows, outputStream) : writeNdjson(rows, outputStream);
+      log.info("Exported {} products as {}", exported, format);
+      return exported;
+    }
+  }
+
+  private long writeNdjson(Iterator<ProductExportView> rows, OutputStream outputStream) throws IOException {
+    long exported = 0;
+    try (SequenceWriter sequenceWriter = ndjsonWriter.writeValues(outputStream)) {
+      while (rows.hasNext()) {
+        sequenceWriter.write(rows.next());
+        exported++;
+      }
+    }
+    if (exported > 0) {
+      outputStream.write('\n');
+    }
+    outputStream.flush();
+    return exported;
+  }
+
+  private static long writeCsv(Iterator<ProductExportView> rows, OutputStream outputStream) throws IOException {
+    long exported = 0;
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writer.write(CSV_HEADER);
+    writer.write('\n');
+    while (rows.hasNext()) {
+      ProductExportView product = rows.next();
+      writer.write(String.valueOf(product.id()));
+      writer.write(',');
+      writer.write(csvField(product.name()));
+      writer.write(',');
+      writer.write(csvField(product.dealerName()));
+      writer.write(',');
+      writer.write(product.price().toPlainString());
+      writer.write(',');
+      writer.write(product.status().name());
+      writer.write(',');
+      writer.write(product.createdAt() == null ? "" : product.createdAt().withOffsetSameInstant(ZoneOffset.UTC).toString());
+      writer.write('\n');
+      exported++;
+    }
+    writer.flush();
+    return exported;
+  }
+
+  // RFC 4180: fields holding a separator, quote or line break are quoted, with quotes doubled
+  static String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+}
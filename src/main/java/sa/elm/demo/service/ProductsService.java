@@ -2,60 +2,92 @@ package sa.elm.demo.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import sa.elm.demo.exception.NotAuthorizedToChangeStatusOfProduct;
 import sa.elm.demo.exception.ProductNotFoundException;
 import sa.elm.demo.mapper.ProductEntityToProductResponseMapper;
 import sa.elm.demo.models.entity.Product;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.ProductStatus;
-import sa.elm.demo.models.entity.enums.UserRoleEnum;
-import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductOwnershipView;
+import sa.elm.demo.models.projection.ProductStatusView;
 import sa.elm.demo.models.security.SecurityUser;
 import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.service.cache.ActiveCatalogueCache;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.CataloguePage;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.PageKey;
+import sa.elm.demo.service.cache.CatalogueChangedEvent;
+import sa.elm.demo.service.cache.ProductCountCache;
+import sa.elm.demo.service.cache.StatisticsDataChangedEvent;
+import sa.elm.demo.service.cache.StatisticsResponseCache;
+import sa.elm.demo.util.ProductCursor;
 import sa.elm.models.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @AllArgsConstructor
 @Service
 public class ProductsService {
 
+  // Offset pages use the same order as cursor pages, so a client can continue an offset page with its cursor
+  private static final Sort ID_ORDER = Sort.by("id");
+
   private final UsersService usersService;
   private final ProductRepository productRepository;
   private final ProductEntityToProductResponseMapper entityToProductResponseMapper;
+  private final StatisticsService statisticsService;
+  private final StatisticsRollupService statisticsRollupService;
+  private final StatisticsResponseCache statisticsResponseCache;
+  private final ProductCountCache productCountCache;
+  private final ActiveCatalogueCache activeCatalogueCache;
+  private final ApplicationEventPublisher applicationEventPublisher;
 
 
-  public ProductsResponse getAllDealerProducts(Integer limit, Integer offset) {
+  public ProductsResponse getAllDealerProducts(Integer limit, Integer offset, String cursor, boolean exactCount) {
 
-    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    SecurityUser securityUser = (SecurityUser) authentication.getPrincipal();
-    User user = usersService.findUserById(securityUser.getId());
+    Long dealerId = getLoggedInUserId();
 
-    PageRequest pageRequest = PageRequest.of(offset / limit, limit);
-    Page<Product> productPage = productRepository.findByUser(user, pageRequest);
+    if (cursor != null) {
+      List<ProductListingView> products = productRepository.findListingByUserIdAfter(dealerId,
+          ProductCursor.decode(cursor), Limit.of(limit + 1));
+      ProductsResponse productsResponse = entityToProductResponseMapper.mapForDealer(pageContent(products, limit), nextCursor(products, limit));
+      productsResponse.setTotal(productCountCache.countByDealer(dealerId, exactCount));
+      return productsResponse;
+    }
 
-    return entityToProductResponseMapper.mapForDealer(productPage);
+    PageRequest pageRequest = PageRequest.of(offset / limit, limit, ID_ORDER);
+    if (exactCount) {
+      Page<ProductListingView> productPage = productRepository.findListingByUserId(dealerId, pageRequest);
+      return withNextCursor(entityToProductResponseMapper.mapForDealer(productPage), productPage);
+    }
+
+    Slice<ProductListingView> productSlice = productRepository.findListingSliceByUserId(dealerId, pageRequest);
+    ProductsResponse productsResponse = entityToProductResponseMapper.mapForDealer(productSlice.getContent(), null);
+    productsResponse.setTotal(productCountCache.countByDealer(dealerId, false));
+    return withNextCursor(productsResponse, productSlice);
   }
 
+  @Transactional
   public void addNewProduct(ProductCreationRequest productCreationRequest) {
 
-    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    SecurityUser securityUser = (SecurityUser) authentication.getPrincipal();
-
-    User user = usersService.findUserById(securityUser.getId());
+    User user = usersService.getUserReference(getLoggedInUserId());
 
     Product newProduct = Product.builder()
         .name(productCreationRequest.getName())
@@ -63,104 +95,219 @@ public class ProductsService {
         .user(user)
         .status(ProductStatus.ACTIVE).build();
     productRepository.save(newProduct);
+    boolean firstProduct = statisticsRollupService.onProductCreated(newProduct);
+    productCountCache.onProductCreated(user.getId(), newProduct.getStatus());
+    applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(newProduct.getCreatedAt()));
+    if (firstProduct) {
+      publishDealerStatisticsChanged(user.getId());
+    }
+    applicationEventPublisher.publishEvent(new CatalogueChangedEvent());
   }
 
-  public void changeProductStatus(Long id) {
-    Product product = findProductById(id);
+  /**
+   * Stores products of the logged in dealer that were already validated, in one transaction. Their inserts go out as
+   * JDBC batches and the statistics and counts are adjusted once for all of them.
+   */
+  @Transactional
+  public List<Product> addNewProducts(List<ProductCreationRequest> productCreationRequests) {
+
+    Long dealerId = getLoggedInUserId();
+    User user = usersService.getUserReference(dealerId);
+
+    List<Product> newProducts = productCreationRequests.stream()
+        .map(productCreationRequest -> Product.builder()
+            .name(productCreationRequest.getName())
+            .price(productCreationRequest.getPrice())
+            .user(user)
+            .status(ProductStatus.ACTIVE).build())
+        .toList();
+    productRepository.saveAll(newProducts);
+    boolean firstProducts = statisticsRollupService.onProductsCreated(dealerId, newProducts);
+    productCountCache.onProductsCreated(dealerId, ProductStatus.ACTIVE, newProducts.size());
+    publishStatisticsDataChanged(newProducts.stream().map(Product::getCreatedAt));
+    if (firstProducts) {
+      publishDealerStatisticsChanged(dealerId);
+    }
+    applicationEventPublisher.publishEvent(new CatalogueChangedEvent());
+    return newProducts;
+  }
 
-    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    SecurityUser securityUser = (SecurityUser) authentication.getPrincipal();
-    User user = usersService.findUserById(securityUser.getId());
-    List<Long> allProductIdsOfThatDealer = productRepository.findAllProductIdsByUserId(user.getId());
+  @Transactional
+  public void changeProductStatus(Long id) {
 
-    if (!allProductIdsOfThatDealer.contains(product.getId())) {
-      throw new NotAuthorizedToChangeStatusOfProduct("Not Authorized to change this Product Status");
+    int updated = productRepository.toggleStatusOfDealerProduct(id, getLoggedInUserId(), OffsetDateTime.now());
+    if (updated == 0) {
+      // Only the failure path pays for telling a missing product from someone else's
+      if (productRepository.existsById(id)) {
+        throw new NotAuthorizedToChangeStatusOfProduct("Not Authorized to change this Product Status");
+      }
+      log.error("Product with Id:{} not found", id);
+      throw new ProductNotFoundException("Product Not Found");
     }
 
-    if (product.getStatus() == ProductStatus.ACTIVE) {
-      product.setStatus(ProductStatus.INACTIVE);
-    } else {
-      product.setStatus(ProductStatus.ACTIVE);
+    ProductStatusView product = productRepository.findStatusViewById(id).orElseThrow();
+    statisticsRollupService.onProductStatusChanged(product);
+    productCountCache.onProductStatusChanged(product.status());
+    applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(product.createdAt()));
+    applicationEventPublisher.publishEvent(new CatalogueChangedEvent());
+  }
+
+  /**
+   * Sets the status of one chunk of products with a single update. The chunk's rows are read and locked first, so
+   * the counts, the update and the statistics deltas all follow from the same read. Dealers only change their own
+   * products: both the read and the update check the owner in SQL.
+   */
+  @Transactional
+  public ProductBulkStatusChangeResponse changeProductStatuses(Collection<Long> ids, ProductStatus status) {
+
+    Long ownerId = isAdmin() ? null : getLoggedInUserId();
+    List<ProductOwnershipView> foundProducts = productRepository.findOwnershipViewsForUpdate(ids, ownerId);
+    List<ProductOwnershipView> ownedProducts = foundProducts.stream()
+        .filter(ProductOwnershipView::owned)
+        .toList();
+    List<ProductStatusView> changedProducts = ownedProducts.stream()
+        .filter(product -> product.status() != status)
+        .map(product -> new ProductStatusView(product.id(), status, product.price(), product.createdAt()))
+        .toList();
+
+    if (!changedProducts.isEmpty()) {
+      productRepository.updateStatusOfProducts(changedProducts.stream().map(ProductStatusView::id).toList(), ownerId,
+          status, OffsetDateTime.now());
+      statisticsRollupService.onProductStatusesChanged(changedProducts);
+      productCountCache.onProductStatusesChanged(status, changedProducts.size());
+      publishStatisticsDataChanged(changedProducts.stream().map(ProductStatusView::createdAt));
+      applicationEventPublisher.publishEvent(new CatalogueChangedEvent());
     }
-    productRepository.save(product);
+
+    return ProductBulkStatusChangeResponse.builder()
+        .changed((long) changedProducts.size())
+        .unchanged((long) (ownedProducts.size() - changedProducts.size()))
+        .notOwned((long) (foundProducts.size() - ownedProducts.size()))
+        .notFound((long) (ids.size() - foundProducts.size()))
+        .build();
   }
 
-  public ProductsResponse getAllActiveProducts(Integer limit, Integer offset) {
+  /**
+   * Ids of the next products after {@code afterId} matching the filter that are not in the given status yet.
+   * Dealers are always limited to their own products.
+   */
+  public List<Long> findIdsForStatusChange(ProductStatusChangeFilter filter, ProductStatus status, Long afterId, int limit) {
+
+    Long dealerId = filter.getDealerId();
+    if (!isAdmin()) {
+      Long loggedInUserId = getLoggedInUserId();
+      if (dealerId != null && !dealerId.equals(loggedInUserId)) {
+        throw new NotAuthorizedToChangeStatusOfProduct("Not Authorized to change the status of another dealer's products");
+      }
+      dealerId = loggedInUserId;
+    }
+    return productRepository.findIdsForStatusChange(status, dealerId, filter.getMinPrice(), filter.getMaxPrice(),
+        filter.getCreatedFrom(), filter.getCreatedTo(), afterId, Limit.of(limit));
+  }
 
-    PageRequest pageRequest = PageRequest.of(offset / limit, limit);
-    Page<Product> productPage = productRepository.findByStatus(ProductStatus.ACTIVE, pageRequest);
+  /**
+   * Weak ETag of the active catalogue page, which changes with every committed product change. Costs no query, so a
+   * client still holding the page can be answered before anything is loaded.
+   */
+  public String getActiveProductsETag(Integer limit, Integer offset, String cursor, boolean exactCount) {
+    return activeCatalogueCache.etag(PageKey.of(limit, offset, cursor, exactCount));
+  }
 
-    return entityToProductResponseMapper.mapForClient(productPage);
+  public CataloguePage getActiveProductsPage(Integer limit, Integer offset, String cursor, boolean exactCount) {
+    return activeCatalogueCache.get(PageKey.of(limit, offset, cursor, exactCount),
+        () -> getAllActiveProducts(limit, offset, cursor, exactCount));
   }
 
+  public ProductsResponse getAllActiveProducts(Integer limit, Integer offset, String cursor, boolean exactCount) {
 
-  private Product findProductById(Long id) {
+    if (cursor != null) {
+      List<ProductListingView> products = productRepository.findListingByStatusAfter(ProductStatus.ACTIVE,
+          ProductCursor.decode(cursor), Limit.of(limit + 1));
+      ProductsResponse productsResponse = entityToProductResponseMapper.mapForClient(pageContent(products, limit), nextCursor(products, limit));
+      productsResponse.setTotal(productCountCache.countByStatus(ProductStatus.ACTIVE, exactCount));
+      return productsResponse;
+    }
 
-    Optional<Product> optionalProduct = productRepository.findById(id);
-    return optionalProduct.orElseThrow(() -> {
-          log.error("Product with Id:{} not found", id);
-          return new ProductNotFoundException("Product Not Found");
-        }
-    );
+    PageRequest pageRequest = PageRequest.of(offset / limit, limit, ID_ORDER);
+    if (exactCount) {
+      Page<ProductListingView> productPage = productRepository.findListingByStatus(ProductStatus.ACTIVE, pageRequest);
+      return withNextCursor(entityToProductResponseMapper.mapForClient(productPage), productPage);
+    }
+
+    Slice<ProductListingView> productSlice = productRepository.findListingSliceByStatus(ProductStatus.ACTIVE, pageRequest);
+    ProductsResponse productsResponse = entityToProductResponseMapper.mapForClient(productSlice.getContent(), null);
+    productsResponse.setTotal(productCountCache.countByStatus(ProductStatus.ACTIVE, false));
+    return withNextCursor(productsResponse, productSlice);
   }
 
-  public ProductsResponse getAllProducts(Integer limit, Integer offset) {
 
-    PageRequest pageRequest = PageRequest.of(offset / limit, limit);
-    Page<Product> productPage = productRepository.findAll(pageRequest);
+  // The authenticated principal already carries the user id, so no user row is needed to resolve it
+  private Long getLoggedInUserId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    SecurityUser securityUser = (SecurityUser) authentication.getPrincipal();
+    return securityUser.getId();
+  }
 
-    return entityToProductResponseMapper.mapForAdmin(productPage);
+  private static boolean isAdmin() {
+    return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+        .anyMatch(authority -> "ADMIN".equals(authority.getAuthority()));
   }
 
-  public StatisticsResponse getProductStatistics(LocalDate from, LocalDate to) {
+  // One event per UTC day is enough, the statistics cache evicts whole days
+  private void publishStatisticsDataChanged(Stream<OffsetDateTime> createdAts) {
+    createdAts
+        .collect(Collectors.toMap(createdAt -> createdAt.atZoneSameInstant(ZoneOffset.UTC).toLocalDate(),
+            createdAt -> createdAt, (first, second) -> first))
+        .values()
+        .forEach(createdAt -> applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(createdAt)));
+  }
 
-    ZoneOffset offset = ZoneOffset.UTC;
-    OffsetDateTime fromAsOffsetDateTime = Objects.nonNull(from) ? from.atStartOfDay().atOffset(offset) : OffsetDateTime.now();
-    OffsetDateTime toAsOffsetDateTime = Objects.nonNull(to) ? to.atStartOfDay().atOffset(offset) : OffsetDateTime.now();
-
-    // Product statistics
-    Long totalProducts = productRepository.countTotalProducts(fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalActiveProducts = productRepository.countProductsByStatus(ProductStatus.ACTIVE, fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalInactiveProducts = productRepository.countProductsByStatus(ProductStatus.INACTIVE, fromAsOffsetDateTime, toAsOffsetDateTime);
-    BigDecimal totalSumActivePrices = productRepository.sumActiveProductPrices(fromAsOffsetDateTime, toAsOffsetDateTime);
-    List<Product> highestPricedProduct = productRepository.findHighestPricedProduct(fromAsOffsetDateTime, toAsOffsetDateTime);
-    List<Product> lowestPricedProduct = productRepository.findLowestPricedProduct(fromAsOffsetDateTime, toAsOffsetDateTime);
-    ProductStatisticsResponse productStatisticsResponse = ProductStatisticsResponse.builder()
-        .totalProducts(totalProducts)
-        .active(totalActiveProducts)
-        .inactive(totalInactiveProducts)
-        .totalPrice(totalSumActivePrices)
-        .highest(!CollectionUtils.isEmpty(highestPricedProduct) ?
-            entityToProductResponseMapper.mapToProductSummary(highestPricedProduct.get(0)) : null)
-        .lowest(!CollectionUtils.isEmpty(lowestPricedProduct) ?
-            entityToProductResponseMapper.mapToProductSummary(lowestPricedProduct.get(0)) : null)
-        .build();
+  // A dealer's first product moves the dealer from the dealers without products to the ones with products of the day
+  // the dealer was created, which can be long before the product's own day
+  private void publishDealerStatisticsChanged(Long dealerId) {
+    applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(usersService.findCreatedAt(dealerId)));
+  }
 
-    // Client statistics
-    Long totalClients = usersService.getTotalUsers(UserRoleEnum.CLIENT, fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalActiveClients = usersService.getTotalUsersBasedOnStatus(UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE, fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalInactiveClient = usersService.getTotalUsersBasedOnStatus(UserRoleEnum.CLIENT, UserStatusEnum.INACTIVE, fromAsOffsetDateTime, toAsOffsetDateTime);
-    ClientsStatisticsResponse clientsStatisticsResponse = ClientsStatisticsResponse.builder()
-        .total(totalClients)
-        .active(totalActiveClients)
-        .inactive(totalInactiveClient)
-        .build();
+  public ProductsResponse getAllProducts(Integer limit, Integer offset, String cursor, boolean exactCount) {
 
-    // Dealer statistics
-    Long totalDealers = usersService.getTotalUsers(UserRoleEnum.DEALER, fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalDealersWithProducts = usersService.getTotalDealersWithProducts(fromAsOffsetDateTime, toAsOffsetDateTime);
-    Long totalDealersWithNoProducts = usersService.getTotalDealersWithNoProducts(fromAsOffsetDateTime, toAsOffsetDateTime);
-    DealersStatisticsResponse dealersStatisticsResponse = DealersStatisticsResponse.builder()
-        .total(totalDealers)
-        .hasProducts(totalDealersWithProducts)
-        .hasNoProducts(totalDealersWithNoProducts)
-        .build();
+    if (cursor != null) {
+      List<ProductListingView> products = productRepository.findListingAfter(ProductCursor.decode(cursor), Limit.of(limit + 1));
+      ProductsResponse productsResponse = entityToProductResponseMapper.mapForAdmin(pageContent(products, limit), nextCursor(products, limit));
+      productsResponse.setTotal(productCountCache.countAll(exactCount));
+      return productsResponse;
+    }
 
-    return StatisticsResponse.builder()
-        .products(productStatisticsResponse)
-        .dealers(dealersStatisticsResponse)
-        .clients(clientsStatisticsResponse)
-        .build();
+    PageRequest pageRequest = PageRequest.of(offset / limit, limit, ID_ORDER);
+    if (exactCount) {
+      Page<ProductListingView> productPage = productRepository.findListing(pageRequest);
+      return withNextCursor(entityToProductResponseMapper.mapForAdmin(productPage), productPage);
+    }
+
+    Slice<ProductListingView> productSlice = productRepository.findListingSlice(pageRequest);
+    ProductsResponse productsResponse = entityToProductResponseMapper.mapForAdmin(productSlice.getContent(), null);
+    productsResponse.setTotal(productCountCache.countAll(false));
+    return withNextCursor(productsResponse, productSlice);
+  }
+
+  // Cursor pages fetch one row more than requested to tell whether another page follows
+  private static List<ProductListingView> pageContent(List<ProductListingView> products, int limit) {
+    return products.size() > limit ? products.subList(0, limit) : products;
+  }
+
+  private static String nextCursor(List<ProductListingView> products, int limit) {
+    return products.size() > limit ? ProductCursor.encode(products.get(limit - 1).id()) : null;
+  }
+
+  private static ProductsResponse withNextCursor(ProductsResponse productsResponse, Slice<ProductListingView> productSlice) {
+    if (productSlice.hasNext()) {
+      List<ProductListingView> content = productSlice.getContent();
+      productsResponse.setNextCursor(ProductCursor.encode(content.get(content.size() - 1).id()));
+    }
+    return productsResponse;
+  }
+
+  public StatisticsResponse getProductStatistics(LocalDate from, LocalDate to) {
+    return statisticsResponseCache.get(from, to, () -> statisticsService.getStatistics(from, to));
   }
 
 }
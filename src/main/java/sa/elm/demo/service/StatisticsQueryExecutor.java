@@ -0,0 +1,80 @@
+package sa.elm.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent statistics sub-queries, either inline or fanned out on virtual threads. Fanned out queries
+ * each get their own read-only transaction and share a process-wide cap, so a burst of dashboard requests cannot
+ * take more than {@code maxConcurrentQueries} connections. Every query is timed as {@code statistics.query}.
+ */
+@Component
+public class StatisticsQueryExecutor {
+
+  private final boolean parallel;
+  private final Semaphore permits;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final MeterRegistry meterRegistry;
+  private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+  public StatisticsQueryExecutor(@Value("${sa.elm.demo.statistics.parallelQueries:false}") boolean parallel,
+                                 @Value("${sa.elm.demo.statistics.maxConcurrentQueries:8}") int maxConcurrentQueries,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+    this.parallel = parallel;
+    this.permits = new Semaphore(maxConcurrentQueries, true);
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
+    this.meterRegistry = meterRegistry;
+  }
+
+  public <T> CompletableFuture<T> submit(String queryName, Supplier<T> query) {
+    Timer timer = Timer.builder("statistics.query")
+        .tag("query", queryName)
+        .tag("mode", parallel ? "parallel" : "sequential")
+        .register(meterRegistry);
+    if (!parallel) {
+      return CompletableFuture.completedFuture(timer.record(query));
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      permits.acquireUninterruptibly();
+      try {
+        return timer.record(() -> readOnlyTransactionTemplate.execute(status -> query.get()));
+      } finally {
+        permits.release();
+      }
+    }, executorService);
+  }
+
+  /**
+   * Waits for a submitted query, rethrowing its own exception rather than the {@link CompletionException} wrapper.
+   */
+  public static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdown();
+  }
+
+}
@@ -0,0 +1,235 @@
+package sa.elm.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.ProductStatusView;
+import sa.elm.demo.models.projection.UserStatusView;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.StatisticsDailyRollupRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code STATISTICS_DAILY_ROLLUP} in step with the writes to products and users. Every hook joins the
+ * caller's transaction when there is one, so a rolled back write never leaves its delta behind. Days are UTC dates, matching the
+ * UTC day boundaries the dashboard queries with.
+ */
+@Slf4j
+@Service
+public class StatisticsRollupService {
+
+  private final StatisticsDailyRollupRepository rollupRepository;
+  private final ProductRepository productRepository;
+  private final TransactionTemplate newTransactionTemplate;
+  // Days whose row is known to exist; rows are only ever removed by a rebuild, which resets this set
+  private final Set<LocalDate> knownDays = ConcurrentHashMap.newKeySet();
+
+  @Value("${sa.elm.demo.statistics.rebuildOnStartup:true}")
+  protected boolean rebuildOnStartup;
+
+  public StatisticsRollupService(StatisticsDailyRollupRepository rollupRepository,
+                                 ProductRepository productRepository,
+                                 PlatformTransactionManager transactionManager) {
+    this.rollupRepository = rollupRepository;
+    this.productRepository = productRepository;
+    this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void rebuildOnStartup() {
+    if (rebuildOnStartup) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Recomputes every day from the PRODUCTS and USERS tables.
+   */
+  @Transactional
+  public void rebuild() {
+    knownDays.clear();
+    rollupRepository.deleteAllDays();
+    rollupRepository.insertProductDaysFromBaseTable();
+    rollupRepository.mergeUserDaysFromBaseTable();
+    rollupRepository.mergeHighestPricedProductsFromBaseTable();
+    rollupRepository.mergeLowestPricedProductsFromBaseTable();
+    knownDays.addAll(rollupRepository.findAllStatDates());
+    log.info("Rebuilt statistics rollup for {} days", knownDays.size());
+  }
+
+  @Transactional
+  public boolean onProductCreated(Product product) {
+    return onProductsCreated(product.getUser().getId(), List.of(product));
+  }
+
+  /**
+   * Adds products one dealer created together with one update per day, plus one more when the day's cheapest new
+   * product is not also its most expensive. Returns whether they were the dealer's first products, which also moves
+   * the dealer to the dealers with products of the day the dealer was created.
+   */
+  @Transactional
+  public boolean onProductsCreated(Long dealerId, List<Product> products) {
+    Map<LocalDate, List<Product>> productsByDay = products.stream()
+        .collect(Collectors.groupingBy(product -> dayOf(product.getCreatedAt())));
+    productsByDay.forEach((day, dayProducts) -> {
+      ensureDay(day);
+      long active = 0;
+      BigDecimal activePriceSum = BigDecimal.ZERO;
+      Product highest = dayProducts.get(0);
+      Product lowest = dayProducts.get(0);
+      for (Product product : dayProducts) {
+        if (product.getStatus() == ProductStatus.ACTIVE) {
+          active++;
+          activePriceSum = activePriceSum.add(product.getPrice());
+        }
+        // Ties go to the newest product, as in the rollup queries
+        if (ranksAbove(product, highest, 1)) {
+          highest = product;
+        }
+        if (ranksAbove(product, lowest, -1)) {
+          lowest = product;
+        }
+      }
+      rollupRepository.addProduct(day, active, dayProducts.size() - active, activePriceSum, highest.getPrice(), highest.getId());
+      if (lowest != highest) {
+        rollupRepository.addProduct(day, 0, 0, BigDecimal.ZERO, lowest.getPrice(), lowest.getId());
+      }
+    });
+
+    if (productRepository.countByUserId(dealerId) != products.size()) {
+      return false;
+    }
+    rollupRepository.recountDealersWithProducts(dealerId);
+    return true;
+  }
+
+  /**
+   * Moves a product between the active and inactive counts of its day; called after the status has been flipped.
+   */
+  @Transactional
+  public void onProductStatusChanged(ProductStatusView product) {
+    onProductStatusesChanged(List.of(product));
+  }
+
+  /**
+   * Moves products between the active and inactive counts with one update per day; called after their statuses
+   * have been flipped.
+   */
+  @Transactional
+  public void onProductStatusesChanged(List<ProductStatusView> products) {
+    Map<LocalDate, List<ProductStatusView>> productsByDay = products.stream()
+        .collect(Collectors.groupingBy(product -> dayOf(product.createdAt())));
+    productsByDay.forEach((day, dayProducts) -> {
+      ensureDay(day);
+      long activeDelta = 0;
+      BigDecimal activePriceDelta = BigDecimal.ZERO;
+      for (ProductStatusView product : dayProducts) {
+        boolean active = product.status() == ProductStatus.ACTIVE;
+        activeDelta += active ? 1 : -1;
+        activePriceDelta = active ? activePriceDelta.add(product.price()) : activePriceDelta.subtract(product.price());
+      }
+      rollupRepository.moveProductStatus(day, activeDelta, activePriceDelta);
+    });
+  }
+
+  @Transactional
+  public void onUserCreated(User user) {
+    onUsersCreated(List.of(user));
+  }
+
+  /**
+   * Adds users created together with one update per day; admins are not counted.
+   */
+  @Transactional
+  public void onUsersCreated(List<User> users) {
+    Map<LocalDate, List<User>> usersByDay = users.stream()
+        .filter(user -> user.getUserRole() != UserRoleEnum.ADMIN)
+        .collect(Collectors.groupingBy(user -> dayOf(user.getCreatedAt())));
+    usersByDay.forEach((day, dayUsers) -> {
+      ensureDay(day);
+      long activeClients = 0;
+      long inactiveClients = 0;
+      long activeDealers = 0;
+      long inactiveDealers = 0;
+      for (User user : dayUsers) {
+        boolean active = user.getUserStatus() == UserStatusEnum.ACTIVE;
+        if (user.getUserRole() == UserRoleEnum.CLIENT) {
+          activeClients += active ? 1 : 0;
+          inactiveClients += active ? 0 : 1;
+        } else {
+          activeDealers += active ? 1 : 0;
+          inactiveDealers += active ? 0 : 1;
+        }
+      }
+      rollupRepository.addUsers(day, activeClients, inactiveClients, activeDealers, inactiveDealers);
+    });
+  }
+
+  /**
+   * Moves a user between the active and inactive counts of their day; called after the status has been flipped.
+   */
+  @Transactional
+  public void onUserStatusChanged(UserStatusView user) {
+    if (user.userRole() == UserRoleEnum.ADMIN) {
+      return;
+    }
+    LocalDate day = dayOf(user.createdAt());
+    ensureDay(day);
+    long toActive = user.userStatus() == UserStatusEnum.ACTIVE ? 1 : -1;
+    if (user.userRole() == UserRoleEnum.CLIENT) {
+      rollupRepository.addUsers(day, toActive, -toActive, 0, 0);
+    } else {
+      rollupRepository.addUsers(day, 0, 0, toActive, -toActive);
+    }
+  }
+
+  /**
+   * Creates the empty row of a day in its own transaction, so concurrent first writes of the same day race on a
+   * committed insert instead of failing the callers' transactions with a duplicate key.
+   */
+  private void ensureDay(LocalDate day) {
+    if (knownDays.contains(day)) {
+      return;
+    }
+    try {
+      newTransactionTemplate.executeWithoutResult(status -> rollupRepository.insertDayIfAbsent(day));
+    } catch (DataIntegrityViolationException e) {
+      log.debug("Statistics rollup row for {} was created concurrently", day);
+    }
+    knownDays.add(day);
+  }
+
+  // direction 1 ranks higher prices first, -1 lower prices first
+  private static boolean ranksAbove(Product candidate, Product current, int direction) {
+    int byPrice = candidate.getPrice().compareTo(current.getPrice()) * direction;
+    return byPrice > 0 || byPrice == 0 && candidate.getId() > current.getId();
+  }
+
+  private static LocalDate dayOf(OffsetDateTime createdAt) {
+    return createdAt.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+  }
+
+}
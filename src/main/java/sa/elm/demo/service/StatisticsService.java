@@ -0,0 +1,150 @@
+package sa.elm.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.elm.demo.mapper.ProductEntityToProductResponseMapper;
+import sa.elm.demo.models.projection.ProductStatisticsAggregate;
+import sa.elm.demo.models.projection.ProductSummaryView;
+import sa.elm.demo.models.projection.StatisticsRollupTotals;
+import sa.elm.demo.models.projection.UserStatisticsAggregate;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.StatisticsDailyRollupRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.models.ClientsStatisticsResponse;
+import sa.elm.models.DealersStatisticsResponse;
+import sa.elm.models.ProductStatisticsResponse;
+import sa.elm.models.StatisticsResponse;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static sa.elm.demo.service.StatisticsQueryExecutor.await;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class StatisticsService {
+
+  private final ProductRepository productRepository;
+  private final UserRepository userRepository;
+  private final StatisticsDailyRollupRepository rollupRepository;
+  private final ProductEntityToProductResponseMapper entityToProductResponseMapper;
+  private final StatisticsQueryExecutor statisticsQueryExecutor;
+
+  @Value("${sa.elm.demo.statistics.source:ROLLUP}")
+  protected Source source;
+
+  /**
+   * Where the dashboard numbers come from: scanning the base tables, or summing the daily rollup.
+   */
+  public enum Source {
+    LIVE, ROLLUP
+  }
+
+  // The sub-queries are independent; each runs in its own read-only transaction, inline or fanned out
+  public StatisticsResponse getStatistics(LocalDate from, LocalDate to) {
+    return source == Source.ROLLUP ? getStatisticsFromRollup(from, to) : getStatisticsFromBaseTables(from, to);
+  }
+
+  // Rows created in [from, to), counting from the start of each day, so a row stamped at midnight of to is left out
+  private StatisticsResponse getStatisticsFromBaseTables(LocalDate from, LocalDate to) {
+
+    ZoneOffset offset = ZoneOffset.UTC;
+    OffsetDateTime fromAsOffsetDateTime = Objects.nonNull(from) ? from.atStartOfDay().atOffset(offset) : OffsetDateTime.now();
+    OffsetDateTime toAsOffsetDateTime = Objects.nonNull(to) ? to.atStartOfDay().atOffset(offset) : OffsetDateTime.now();
+
+    CompletableFuture<ProductStatisticsAggregate> productAggregateFuture = statisticsQueryExecutor.submit("productAggregate",
+        () -> productRepository.aggregateProductStatistics(fromAsOffsetDateTime, toAsOffsetDateTime));
+    CompletableFuture<Optional<ProductSummaryView>> highestPricedProductFuture = statisticsQueryExecutor.submit("highestPricedProduct",
+        () -> productRepository.findHighestPricedProduct(fromAsOffsetDateTime, toAsOffsetDateTime));
+    CompletableFuture<Optional<ProductSummaryView>> lowestPricedProductFuture = statisticsQueryExecutor.submit("lowestPricedProduct",
+        () -> productRepository.findLowestPricedProduct(fromAsOffsetDateTime, toAsOffsetDateTime));
+    CompletableFuture<UserStatisticsAggregate> userAggregateFuture = statisticsQueryExecutor.submit("userAggregate",
+        () -> userRepository.aggregateUserStatistics(fromAsOffsetDateTime, toAsOffsetDateTime));
+
+    // Product statistics
+    ProductStatisticsAggregate productAggregate = await(productAggregateFuture);
+    Optional<ProductSummaryView> highestPricedProduct = await(highestPricedProductFuture);
+    Optional<ProductSummaryView> lowestPricedProduct = await(lowestPricedProductFuture);
+    ProductStatisticsResponse productStatisticsResponse = ProductStatisticsResponse.builder()
+        .totalProducts(productAggregate.total())
+        .active(productAggregate.active())
+        .inactive(productAggregate.inactive())
+        .totalPrice(productAggregate.activePriceSum())
+        .highest(highestPricedProduct.map(entityToProductResponseMapper::mapToProductSummary).orElse(null))
+        .lowest(lowestPricedProduct.map(entityToProductResponseMapper::mapToProductSummary).orElse(null))
+        .build();
+
+    // Client and dealer statistics
+    UserStatisticsAggregate userAggregate = await(userAggregateFuture);
+    ClientsStatisticsResponse clientsStatisticsResponse = ClientsStatisticsResponse.builder()
+        .total(userAggregate.totalClients())
+        .active(userAggregate.activeClients())
+        .inactive(userAggregate.inactiveClients())
+        .build();
+    DealersStatisticsResponse dealersStatisticsResponse = DealersStatisticsResponse.builder()
+        .total(userAggregate.totalDealers())
+        .hasProducts(userAggregate.dealersWithProducts())
+        .hasNoProducts(userAggregate.dealersWithNoProducts())
+        .build();
+
+    return StatisticsResponse.builder()
+        .products(productStatisticsResponse)
+        .dealers(dealersStatisticsResponse)
+        .clients(clientsStatisticsResponse)
+        .build();
+  }
+
+  // The rollup covers whole days in [from, to), the same days the base-table queries see
+  private StatisticsResponse getStatisticsFromRollup(LocalDate from, LocalDate to) {
+
+    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    LocalDate fromDay = Objects.nonNull(from) ? from : today;
+    LocalDate toDay = Objects.nonNull(to) ? to : today;
+
+    CompletableFuture<StatisticsRollupTotals> totalsFuture = statisticsQueryExecutor.submit("rollupTotals",
+        () -> rollupRepository.sumTotals(fromDay, toDay));
+    CompletableFuture<Optional<ProductSummaryView>> highestPricedProductFuture = statisticsQueryExecutor.submit("rollupHighestPricedProduct",
+        () -> rollupRepository.findHighestPricedProduct(fromDay, toDay));
+    CompletableFuture<Optional<ProductSummaryView>> lowestPricedProductFuture = statisticsQueryExecutor.submit("rollupLowestPricedProduct",
+        () -> rollupRepository.findLowestPricedProduct(fromDay, toDay));
+
+    StatisticsRollupTotals totals = await(totalsFuture);
+    Optional<ProductSummaryView> highestPricedProduct = await(highestPricedProductFuture);
+    Optional<ProductSummaryView> lowestPricedProduct = await(lowestPricedProductFuture);
+    ProductStatisticsResponse productStatisticsResponse = ProductStatisticsResponse.builder()
+        .totalProducts(totals.activeProducts() + totals.inactiveProducts())
+        .active(totals.activeProducts())
+        .inactive(totals.inactiveProducts())
+        // The base tables report no total at all when nothing is active
+        .totalPrice(totals.activeProducts() > 0 ? totals.activePriceSum() : null)
+        .highest(highestPricedProduct.map(entityToProductResponseMapper::mapToProductSummary).orElse(null))
+        .lowest(lowestPricedProduct.map(entityToProductResponseMapper::mapToProductSummary).orElse(null))
+        .build();
+
+    long totalDealers = totals.activeDealers() + totals.inactiveDealers();
+    ClientsStatisticsResponse clientsStatisticsResponse = ClientsStatisticsResponse.builder()
+        .total(totals.activeClients() + totals.inactiveClients())
+        .active(totals.activeClients())
+        .inactive(totals.inactiveClients())
+        .build();
+    DealersStatisticsResponse dealersStatisticsResponse = DealersStatisticsResponse.builder()
+        .total(totalDealers)
+        .hasProducts(totals.dealersWithProducts())
+        .hasNoProducts(totalDealers - totals.dealersWithProducts())
+        .build();
+
+    return StatisticsResponse.builder()
+        .products(productStatisticsResponse)
+        .dealers(dealersStatisticsResponse)
+        .clients(clientsStatisticsResponse)
+        .build();
+  }
+
+}
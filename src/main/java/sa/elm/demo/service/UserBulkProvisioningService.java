@@ -0,0 +1,164 @@
+package sa.elm.demo.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.security.hashing.BoundedPasswordEncoder;
+import sa.elm.demo.service.cache.RegisteredIdentityFilter;
+import sa.elm.models.UserBulkCreationError;
+import sa.elm.models.UserBulkCreationItem;
+import sa.elm.models.UserBulkCreationResponse;
+import sa.elm.models.UserCreationRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validates bulk user creations item by item and rejects usernames and emails taken by existing users or by earlier
+ * items, checking the whole batch against the users table with one query. The rest are stored in chunks: the
+ * passwords of a chunk are hashed in parallel outside any transaction, then {@link UsersService} stores its users
+ * with batched inserts in one transaction. A chunk that fails to store fails the request, leaving the chunks before
+ * it stored.
+ */
+@Slf4j
+@Service
+public class UserBulkProvisioningService {
+
+  private final UsersService usersService;
+  private final UserRepository userRepository;
+  private final RegisteredIdentityFilter registeredIdentityFilter;
+  private final BoundedPasswordEncoder passwordEncoder;
+  private final Validator validator;
+  private final int chunkSize;
+
+  public UserBulkProvisioningService(UsersService usersService,
+                                     UserRepository userRepository,
+                                     RegisteredIdentityFilter registeredIdentityFilter,
+                                     BoundedPasswordEncoder passwordEncoder,
+                                     Validator validator,
+                                     @Value("${sa.elm.demo.bulkUsers.chunkSize:200}") int chunkSize) {
+    this.usersService = usersService;
+    this.userRepository = userRepository;
+    this.registeredIdentityFilter = registeredIdentityFilter;
+    this.passwordEncoder = passwordEncoder;
+    this.validator = validator;
+    this.chunkSize = chunkSize;
+  }
+
+  public UserBulkCreationResponse createUsers(List<UserBulkCreationItem> items) {
+    List<UserBulkCreationError> errors = new ArrayList<>();
+    List<Candidate> candidates = validate(items, errors);
+    List<Candidate> accepted = rejectTaken(candidates, errors);
+
+    long created = 0;
+    for (int from = 0; from < accepted.size(); from += chunkSize) {
+      created += store(accepted.subList(from, Math.min(from + chunkSize, accepted.size())));
+    }
+
+    errors.sort(Comparator.comparing(UserBulkCreationError::getIndex));
+    log.info("Bulk user creation created {} users and rejected {}", created, errors.size());
+    return UserBulkCreationResponse.builder().created(created).rejected((long) errors.size()).errors(errors).build();
+  }
+
+  // Also rejects items repeating the username or email of an earlier valid item
+  private List<Candidate> validate(List<UserBulkCreationItem> items, List<UserBulkCreationError> errors) {
+    List<Candidate> candidates = new ArrayList<>(items.size());
+    Set<String> emails = new HashSet<>();
+    Set<String> usernames = new HashSet<>();
+    for (int index = 0; index < items.size(); index++) {
+      UserBulkCreationItem item = items.get(index);
+      UserCreationRequest request = UserCreationRequest.builder()
+          .username(item.getUsername())
+          .email(item.getEmail())
+          .password(item.getPassword())
+          .role(item.getRole() == null ? null : UserCreationRequest.RoleEnum.fromValue(item.getRole().getValue()))
+          .build();
+      Set<ConstraintViolation<UserCreationRequest>> violations = validator.validate(request);
+      if (!violations.isEmpty()) {
+        errors.add(error(index, violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "))));
+      } else if (emails.contains(request.getEmail())) {
+        errors.add(error(index, "Email Already Exist"));
+      } else if (usernames.contains(request.getUsername())) {
+        errors.add(error(index, "Username Already Exist"));
+      } else {
+        emails.add(request.getEmail());
+        usernames.add(request.getUsername());
+        candidates.add(new Candidate(index, request));
+      }
+    }
+    return candidates;
+  }
+
+  // Only the items the filter cannot rule out are looked up, all of them in one statement
+  private List<Candidate> rejectTaken(List<Candidate> candidates, List<UserBulkCreationError> errors) {
+    Set<String> maybeTakenEmails = new HashSet<>();
+    Set<String> maybeTakenUsernames = new HashSet<>();
+    for (Candidate candidate : candidates) {
+      if (registeredIdentityFilter.mightBeTaken(candidate.request().getEmail(), candidate.request().getUsername())) {
+        maybeTakenEmails.add(candidate.request().getEmail());
+        maybeTakenUsernames.add(candidate.request().getUsername());
+      }
+    }
+    if (maybeTakenEmails.isEmpty()) {
+      return candidates;
+    }
+
+    Set<String> takenEmails = new HashSet<>();
+    Set<String> takenUsernames = new HashSet<>();
+    for (UserIdentityView identity : userRepository.findTakenIdentities(maybeTakenUsernames, maybeTakenEmails)) {
+      takenEmails.add(identity.email());
+      takenUsernames.add(identity.username());
+    }
+    List<Candidate> accepted = new ArrayList<>(candidates.size());
+    for (Candidate candidate : candidates) {
+      if (takenEmails.contains(candidate.request().getEmail())) {
+        errors.add(error(candidate.index(), "Email Already Exist"));
+      } else if (takenUsernames.contains(candidate.request().getUsername())) {
+        errors.add(error(candidate.index(), "Username Already Exist"));
+      } else {
+        accepted.add(candidate);
+      }
+    }
+    return accepted;
+  }
+
+  private int store(List<Candidate> chunk) {
+    List<String> encodedPasswords = passwordEncoder.encodeAll(chunk.stream()
+        .map(candidate -> candidate.request().getPassword())
+        .toList());
+    List<User> users = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      UserCreationRequest request = chunk.get(i).request();
+      users.add(User.builder()
+          .email(request.getEmail())
+          .username(request.getUsername())
+          .password(encodedPasswords.get(i))
+          .userStatus(UserStatusEnum.ACTIVE)
+          .userRole(request.getRole() == UserCreationRequest.RoleEnum.ADMIN ? UserRoleEnum.ADMIN : UserRoleEnum.DEALER)
+          .build());
+    }
+    return usersService.addNewUsers(users).size();
+  }
+
+  private static UserBulkCreationError error(int index, String message) {
+    return UserBulkCreationError.builder().index((long) index).message(message).build();
+  }
+
+  private record Candidate(int index, UserCreationRequest request) {
+  }
+
+}
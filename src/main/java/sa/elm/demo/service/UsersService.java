@@ -2,16 +2,30 @@ package sa.elm.demo.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import sa.elm.demo.exception.*;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.UserIdentityMatch;
+import sa.elm.demo.models.projection.UserStatusView;
 import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.models.security.UserPrincipal;
 import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.security.cache.PrincipalCache;
+import sa.elm.demo.security.revocation.DeactivatedUserDenyList;
+import sa.elm.demo.security.throttle.FailedLoginTracker;
+import sa.elm.demo.service.cache.RegisteredIdentityFilter;
+import sa.elm.demo.service.cache.StatisticsDataChangedEvent;
+import sa.elm.demo.security.cache.VerifiedTokenCache;
 import sa.elm.demo.util.JwtUtil;
 import sa.elm.models.LoginRequest;
 import sa.elm.models.LoginResponse;
@@ -19,9 +33,13 @@ import sa.elm.models.RegistrationRequest;
 import sa.elm.models.UserCreationRequest;
 
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -31,7 +49,19 @@ public class UsersService {
   private final JwtUtil jwtUtil;
   private final UserRepository userRepository;
   private final PasswordEncoder bCryptPasswordEncoder;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final PrincipalCache principalCache;
+  private final DeactivatedUserDenyList deactivatedUserDenyList;
+  private final FailedLoginTracker failedLoginTracker;
+  private final RegisteredIdentityFilter registeredIdentityFilter;
+  private final StatisticsRollupService statisticsRollupService;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final TransactionTemplate transactionTemplate;
 
+  /**
+   * Hashes the password before the transaction that stores the user begins, so no connection is held while the hash
+   * waits for or runs on the hashing pool.
+   */
   public void registerUser(RegistrationRequest registrationRequest) {
 
     checkIfUserExistBefore(registrationRequest.getEmail(), registrationRequest.getUsername());
@@ -45,26 +75,35 @@ public class UsersService {
         .userStatus(UserStatusEnum.ACTIVE)
         .userRole(UserRoleEnum.CLIENT)
         .build();
-    userRepository.save(user);
+    transactionTemplate.execute(status -> storeNewUser(user));
   }
 
   private String hashPassword(String password) {
     return bCryptPasswordEncoder.encode(password);
   }
 
-  public LoginResponse loginUser(LoginRequest loginRequest) {
+  /**
+   * Callers that have failed too often recently are turned away before the user is looked up or any password is
+   * checked.
+   */
+  public LoginResponse loginUser(LoginRequest loginRequest, String clientAddress) {
 
+    failedLoginTracker.checkAllowed(loginRequest.getUsername(), clientAddress);
     Optional<User> userOptional = userRepository.findByUsername(loginRequest.getUsername());
     if (userOptional.isEmpty()) {
+      failedLoginTracker.recordFailure(loginRequest.getUsername(), clientAddress);
       throw new AuthenticationException("Username or Password wrong");
     }
     User user = userOptional.get();
     if (!bCryptPasswordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+      failedLoginTracker.recordFailure(loginRequest.getUsername(), clientAddress);
       throw new AuthenticationException("Username or Password wrong");
     }
+    failedLoginTracker.recordSuccess(loginRequest.getUsername());
     if (user.getUserStatus() == UserStatusEnum.INACTIVE) {
       throw new UserNotActiveException("User Is Not Active");
     }
+    upgradePasswordHash(user, loginRequest.getPassword());
     Map<String, Object> claims = new HashMap<>();
     claims.put("role", user.getUserRole());
     claims.put("name", user.getUsername());
@@ -73,6 +112,19 @@ public class UsersService {
     return LoginResponse.builder().token(jwt).build();
   }
 
+  // Re-hashes with the configured cost once the password is known to be right; a busy pool just leaves it for next time
+  private void upgradePasswordHash(User user, String rawPassword) {
+    if (!bCryptPasswordEncoder.upgradeEncoding(user.getPassword())) {
+      return;
+    }
+    try {
+      userRepository.replacePasswordHash(user.getId(), user.getPassword(), hashPassword(rawPassword));
+    } catch (PasswordHashingBusyException e) {
+      log.debug("Skipped upgrading the password hash of user {}: {}", user.getId(), e.getMessage());
+    }
+  }
+
+  // Hashes before the transaction begins, like registerUser
   public void createNewAdminOrDealer(UserCreationRequest userCreationRequest) {
 
     checkIfUserExistBefore(userCreationRequest.getEmail(), userCreationRequest.getUsername());
@@ -86,20 +138,71 @@ public class UsersService {
         .userStatus(UserStatusEnum.ACTIVE)
         .userRole(userCreationRequest.getRole() == UserCreationRequest.RoleEnum.ADMIN ? UserRoleEnum.ADMIN : UserRoleEnum.DEALER)
         .build();
-    userRepository.save(user);
+    transactionTemplate.execute(status -> storeNewUser(user));
+    principalCache.invalidate(user.getId());
   }
 
+  private User storeNewUser(User user) {
+    saveNewUser(user);
+    statisticsRollupService.onUserCreated(user);
+    applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(user.getCreatedAt()));
+    return user;
+  }
+
+  // Only an early answer for the common cases; two concurrent registrations are told apart by the unique constraints
   private void checkIfUserExistBefore(String email, String username) {
-    Optional<User> optionalUserByEmail = userRepository.findByEmail(email);
-    if (optionalUserByEmail.isPresent()) {
+    if (!registeredIdentityFilter.mightBeTaken(email, username)) {
+      return;
+    }
+    UserIdentityMatch match = userRepository.countIdentityMatches(email, username);
+    if (match.emails() > 0) {
       throw new UserAlreadyExistsException("Email Already Exist");
     }
-    Optional<User> optionalUserByUsername = userRepository.findByUsername(username);
-    if (optionalUserByUsername.isPresent()) {
+    if (match.usernames() > 0) {
       throw new UserAlreadyExistsException("Username Already Exist");
     }
   }
 
+  /**
+   * Stores users whose passwords are already hashed, with one batched insert per statement limit of the JDBC batch.
+   * Their uniqueness is expected to have been checked before; a clash with a concurrent registration fails them all.
+   */
+  @Transactional
+  public List<User> addNewUsers(List<User> users) {
+    saveNewUsers(users);
+    statisticsRollupService.onUsersCreated(users);
+    users.stream()
+        .collect(Collectors.toMap(user -> user.getCreatedAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDate(),
+            User::getCreatedAt, (first, second) -> first))
+        .values()
+        .forEach(createdAt -> applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(createdAt)));
+    users.forEach(user -> principalCache.invalidate(user.getId()));
+    return users;
+  }
+
+  // Ids come from a sequence, so the inserts wait for the flush and a violated unique constraint surfaces there
+  private void saveNewUser(User user) {
+    saveNewUsers(List.of(user));
+  }
+
+  private void saveNewUsers(List<User> users) {
+    try {
+      userRepository.saveAll(users);
+      userRepository.flush();
+    } catch (DataIntegrityViolationException e) {
+      String constraintName = e.getCause() instanceof ConstraintViolationException violation
+          ? String.valueOf(violation.getConstraintName()).toUpperCase(Locale.ROOT) : "";
+      if (constraintName.contains(User.EMAIL_CONSTRAINT)) {
+        throw new UserAlreadyExistsException("Email Already Exist");
+      }
+      if (constraintName.contains(User.USERNAME_CONSTRAINT)) {
+        throw new UserAlreadyExistsException("Username Already Exist");
+      }
+      throw e;
+    }
+    users.forEach(user -> registeredIdentityFilter.add(user.getUsername(), user.getEmail()));
+  }
+
   public User findUserById(Long id) {
     return userRepository.findById(id)
         .orElseThrow(() -> {
@@ -108,40 +211,53 @@ public class UsersService {
         });
   }
 
-  public void changeUserStatus(Long id) {
+  public UserPrincipal findPrincipalById(Long id) {
+    return principalCache.get(id, userId -> userRepository.findPrincipalById(userId)
+        .orElseThrow(() -> {
+          log.error("User with Id:{} Not Found", userId);
+          return new UserNotFoundException("User Not Found");
+        }));
+  }
+
+  // Null when the user does not exist
+  public OffsetDateTime findCreatedAt(Long id) {
+    return userRepository.findStatusViewById(id).map(UserStatusView::createdAt).orElse(null);
+  }
 
-    User user = findUserById(id);
+  public User getUserReference(Long id) {
+    return userRepository.getReferenceById(id);
+  }
+
+  public void changeUserStatus(Long id) {
 
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     SecurityUser principal = (SecurityUser) authentication.getPrincipal();
     Long loggedInAdminId = principal.getId();
 
-    if (loggedInAdminId.equals(user.getId())) {
+    if (loggedInAdminId.equals(id)) {
       throw new OperationNotAllowedException("Admin Cannot Change their own status");
     }
 
-    if (user.getUserStatus() == UserStatusEnum.ACTIVE) {
-      user.setUserStatus(UserStatusEnum.INACTIVE);
+    // The toggle, its read-back and the rollup share a transaction, so a concurrent toggle cannot slip in between them
+    UserStatusView user = transactionTemplate.execute(status -> {
+      if (userRepository.toggleStatus(id, OffsetDateTime.now()) == 0) {
+        log.error("User with Id:{} Not Found", id);
+        throw new UserNotFoundException("User Not Found");
+      }
+      UserStatusView changedUser = userRepository.findStatusViewById(id).orElseThrow();
+      statisticsRollupService.onUserStatusChanged(changedUser);
+      return changedUser;
+    });
+
+    // The caches below must only be invalidated once the new status is committed
+    applicationEventPublisher.publishEvent(new StatisticsDataChangedEvent(user.createdAt()));
+    if (user.userStatus() == UserStatusEnum.INACTIVE) {
+      deactivatedUserDenyList.deny(id);
     } else {
-      user.setUserStatus(UserStatusEnum.ACTIVE);
+      deactivatedUserDenyList.allow(id);
     }
-    userRepository.save(user);
-  }
-
-  public Long getTotalUsers(UserRoleEnum roleEnum, OffsetDateTime from, OffsetDateTime to) {
-    return userRepository.countTotalUsersBasedOnRole(roleEnum, from, to);
-  }
-
-  public Long getTotalUsersBasedOnStatus(UserRoleEnum userRoleEnum, UserStatusEnum userStatusEnum, OffsetDateTime from, OffsetDateTime to) {
-    return userRepository.countTotalUsersBasedOnRoleAndStatus(userRoleEnum, userStatusEnum, from, to);
-  }
-
-  public Long getTotalDealersWithNoProducts(OffsetDateTime from, OffsetDateTime to) {
-    return userRepository.countDealersWithNoProducts(from, to);
-  }
-
-  public Long getTotalDealersWithProducts(OffsetDateTime from, OffsetDateTime to) {
-    return userRepository.countDealersWithProducts(from, to);
+    principalCache.invalidate(id);
+    verifiedTokenCache.invalidateSubject(String.valueOf(id));
   }
 
 
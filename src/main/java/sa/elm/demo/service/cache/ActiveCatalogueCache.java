@@ -0,0 +1,91 @@
+package sa.elm.demo.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sa.elm.demo.util.ProductCursor;
+import sa.elm.models.ProductsResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches pages of the active catalogue, tagged with a catalogue version that every committed change bumps. The
+ * version and the page parameters make up the page's weak ETag, so a client holding the current ETag can be answered
+ * without loading or serialising anything. A change drops every page; pages also expire after the configured time to
+ * live in case the products are changed behind the application's back.
+ */
+@Component
+public class ActiveCatalogueCache {
+
+  private final Cache<PageKey, CataloguePage> cache;
+  // Starts at the boot time, so ETags handed out before a restart are not mistaken for current ones
+  private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+  public ActiveCatalogueCache(@Value("${sa.elm.demo.catalogueCache.maximumSize:1000}") long maximumSize,
+                              @Value("${sa.elm.demo.catalogueCache.ttl:PT5M}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "activeCataloguePages");
+  }
+
+  public String etag(PageKey key) {
+    return key.etag(version.get());
+  }
+
+  public CataloguePage get(PageKey key, Supplier<ProductsResponse> loader) {
+    CataloguePage cachedPage = cache.getIfPresent(key);
+    if (cachedPage != null) {
+      return cachedPage;
+    }
+    // Tagged with the version read before the load, so a page that may predate a change is never tagged after it
+    long versionBeforeLoad = version.get();
+    CataloguePage page = new CataloguePage(key.etag(versionBeforeLoad), loader.get());
+    cache.put(key, page);
+    // A change that committed during the load may have cleared the cache before the page was put; drop it ourselves
+    if (version.get() != versionBeforeLoad) {
+      cache.invalidate(key);
+    }
+    return page;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCatalogueChanged(CatalogueChangedEvent event) {
+    invalidateAll();
+  }
+
+  public void invalidateAll() {
+    version.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  public record CataloguePage(String etag, ProductsResponse response) {
+  }
+
+  public record PageKey(int limit, int offset, Long afterId, boolean exactCount) {
+
+    // Offsets within one page read the same rows, and a cursor page ignores the offset altogether
+    public static PageKey of(int limit, int offset, String cursor, boolean exactCount) {
+      if (cursor != null) {
+        return new PageKey(limit, 0, ProductCursor.decode(cursor), exactCount);
+      }
+      return new PageKey(limit, offset / limit * limit, null, exactCount);
+    }
+
+    String etag(long version) {
+      return "W/\"" + version + '-' + limit + '-' + offset + '-' + (afterId == null ? "" : afterId) + '-'
+          + (exactCount ? 1 : 0) + '"';
+    }
+  }
+
+}
@@ -0,0 +1,7 @@
+package sa.elm.demo.service.cache;
+
+/**
+ * Published whenever products are added or change status, which is all that changes the active catalogue listing.
+ */
+public record CatalogueChangedEvent() {
+}
@@ -0,0 +1,98 @@
+package sa.elm.demo.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Product totals for the listing endpoints, so a page does not pay for a COUNT(*) over the whole catalogue. Cached
+ * totals are adjusted in place as products are added or change status, and recounted once they expire; a write that
+ * rolls back after adjusting can leave a total off by one until then. Totals are counted outside the cache's own
+ * locking, which would pin a virtual thread to its carrier for the length of the query.
+ */
+@Component
+public class ProductCountCache {
+
+  private static final CountKey ALL_PRODUCTS = new CountKey(null, null);
+
+  private final ProductRepository productRepository;
+  private final Cache<CountKey, Long> cache;
+
+  public ProductCountCache(ProductRepository productRepository,
+                           @Value("${sa.elm.demo.productCountCache.maximumSize:10000}") long maximumSize,
+                           @Value("${sa.elm.demo.productCountCache.ttl:PT5M}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+    this.productRepository = productRepository;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "productCounts");
+  }
+
+  public long countAll(boolean exact) {
+    return count(ALL_PRODUCTS, exact, productRepository::count);
+  }
+
+  public long countByStatus(ProductStatus status, boolean exact) {
+    return count(new CountKey(status, null), exact, () -> productRepository.countByStatus(status));
+  }
+
+  public long countByDealer(Long dealerId, boolean exact) {
+    return count(new CountKey(null, dealerId), exact, () -> productRepository.countByUserId(dealerId));
+  }
+
+  public void onProductCreated(Long dealerId, ProductStatus status) {
+    onProductsCreated(dealerId, status, 1);
+  }
+
+  public void onProductsCreated(Long dealerId, ProductStatus status, long count) {
+    adjust(ALL_PRODUCTS, count);
+    adjust(new CountKey(status, null), count);
+    adjust(new CountKey(null, dealerId), count);
+  }
+
+  public void onProductStatusChanged(ProductStatus newStatus) {
+    onProductStatusesChanged(newStatus, 1);
+  }
+
+  public void onProductStatusesChanged(ProductStatus newStatus, long count) {
+    adjust(new CountKey(newStatus, null), count);
+    adjust(new CountKey(newStatus == ProductStatus.ACTIVE ? ProductStatus.INACTIVE : ProductStatus.ACTIVE, null), -count);
+  }
+
+  // An exact count also refreshes the cached total
+  private long count(CountKey key, boolean exact, Supplier<Long> counter) {
+    if (exact) {
+      long total = counter.get();
+      cache.put(key, total);
+      return total;
+    }
+    Long cachedTotal = cache.getIfPresent(key);
+    if (cachedTotal != null) {
+      return cachedTotal;
+    }
+    long total = counter.get();
+    // Keeps a total another caller counted, and perhaps adjusted, in the meantime
+    Long concurrentTotal = cache.asMap().putIfAbsent(key, total);
+    return concurrentTotal != null ? concurrentTotal : total;
+  }
+
+  private void adjust(CountKey key, long delta) {
+    cache.asMap().computeIfPresent(key, (k, total) -> total + delta);
+  }
+
+  private record CountKey(ProductStatus status, Long dealerId) {
+  }
+
+}
@@ -0,0 +1,105 @@
+package sa.elm.demo.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.util.BloomFilter;
+
+import java.util.List;
+
+/**
+ * Bloom filters over the usernames and emails already taken, so most registrations learn that theirs are free without
+ * a query. Built from the users table at startup and rebuilt periodically to pick up users created on other instances;
+ * users created here are added as they are saved. A miss is only ever a hint: the unique constraints still decide.
+ */
+@Slf4j
+@Component
+public class RegisteredIdentityFilter {
+
+  private static final int REBUILD_PAGE_SIZE = 1000;
+
+  private final UserRepository userRepository;
+  private final long expectedUsers;
+  private final double falsePositiveRate;
+  private final Counter definitelyNew;
+  private final Counter maybeTaken;
+  private volatile Filters filters;
+  // Users added while a rebuild runs go into the filters being built as well
+  private volatile Filters rebuilding;
+
+  public RegisteredIdentityFilter(UserRepository userRepository,
+                                  @Value("${sa.elm.demo.identityFilter.expectedUsers:1000000}") long expectedUsers,
+                                  @Value("${sa.elm.demo.identityFilter.falsePositiveRate:0.01}") double falsePositiveRate,
+                                  MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    this.expectedUsers = expectedUsers;
+    this.falsePositiveRate = falsePositiveRate;
+    this.definitelyNew = Counter.builder("users.identityFilter").tag("result", "new").register(meterRegistry);
+    this.maybeTaken = Counter.builder("users.identityFilter").tag("result", "maybe").register(meterRegistry);
+  }
+
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${sa.elm.demo.identityFilter.rebuildInterval:PT1H}",
+      initialDelayString = "${sa.elm.demo.identityFilter.rebuildInterval:PT1H}")
+  public void rebuild() {
+    // Sized for twice the current users so the rate holds until the next rebuild
+    Filters next = new Filters(Math.max(expectedUsers, userRepository.count() * 2), falsePositiveRate);
+    rebuilding = next;
+    long loaded = 0;
+    try {
+      List<UserIdentityView> page = userRepository.findIdentitiesAfter(0L, Limit.of(REBUILD_PAGE_SIZE));
+      while (!page.isEmpty()) {
+        page.forEach(user -> next.put(user.username(), user.email()));
+        loaded += page.size();
+        page = page.size() < REBUILD_PAGE_SIZE ? List.of()
+            : userRepository.findIdentitiesAfter(page.get(page.size() - 1).id(), Limit.of(REBUILD_PAGE_SIZE));
+      }
+      filters = next;
+    } finally {
+      rebuilding = null;
+    }
+    log.debug("Loaded {} user identities into the registration filter", loaded);
+  }
+
+  /**
+   * {@code false} only when neither the email nor the username can belong to an existing user.
+   */
+  public boolean mightBeTaken(String email, String username) {
+    Filters current = filters;
+    boolean maybe = current.emails.mightContain(email) || current.usernames.mightContain(username);
+    (maybe ? maybeTaken : definitelyNew).increment();
+    return maybe;
+  }
+
+  public void add(String username, String email) {
+    filters.put(username, email);
+    Filters next = rebuilding;
+    if (next != null) {
+      next.put(username, email);
+    }
+  }
+
+  private static final class Filters {
+
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+
+    private Filters(long expectedUsers, double falsePositiveRate) {
+      this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+      this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    private void put(String username, String email) {
+      usernames.put(username);
+      emails.put(email);
+    }
+  }
+
+}
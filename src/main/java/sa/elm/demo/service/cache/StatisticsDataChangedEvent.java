@@ -0,0 +1,10 @@
+package sa.elm.demo.service.cache;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Published whenever a product or user is created or changes status, carrying the creation time the statistics
+ * dashboard buckets that row by.
+ */
+public record StatisticsDataChangedEvent(OffsetDateTime createdAt) {
+}
@@ -0,0 +1,118 @@
+package sa.elm.demo.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sa.elm.models.StatisticsResponse;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches dashboard responses per (from, to) range. A change only evicts the ranges whose days include the changed
+ * row's creation day, and only once that change is committed. Once a range's last day has begun no new row can fall
+ * into it, so it only changes through such evictions and never expires; other ranges expire after the configured
+ * time to live.
+ */
+@Component
+public class StatisticsResponseCache {
+
+  private final Cache<StatisticsRange, StatisticsResponse> cache;
+  // Bumped by every eviction, so a response loaded while a change committed is not kept
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public StatisticsResponseCache(@Value("${sa.elm.demo.statisticsCache.maximumSize:1000}") long maximumSize,
+                                 @Value("${sa.elm.demo.statisticsCache.ttl:PT1M}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new RangeExpiry(ttl))
+        .executor(Runnable::run)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "statisticsResponses");
+  }
+
+  public StatisticsResponse get(LocalDate from, LocalDate to, Supplier<StatisticsResponse> loader) {
+    StatisticsRange range = StatisticsRange.of(from, to);
+    StatisticsResponse cachedResponse = cache.getIfPresent(range);
+    if (cachedResponse != null) {
+      return cachedResponse;
+    }
+    long invalidationsBeforeLoad = invalidations.get();
+    StatisticsResponse response = loader.get();
+    cache.put(range, response);
+    // An eviction that started after the load may have missed the entry just put; drop it ourselves
+    if (invalidations.get() != invalidationsBeforeLoad) {
+      cache.invalidate(range);
+    }
+    return response;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStatisticsDataChanged(StatisticsDataChangedEvent event) {
+    invalidateCovering(event.createdAt());
+  }
+
+  public void invalidateCovering(OffsetDateTime createdAt) {
+    if (createdAt == null) {
+      invalidateAll();
+      return;
+    }
+    invalidations.incrementAndGet();
+    LocalDate day = createdAt.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    cache.asMap().keySet().removeIf(range -> range.covers(day));
+  }
+
+  public void invalidateAll() {
+    invalidations.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  record StatisticsRange(LocalDate from, LocalDate to) {
+
+    // A missing bound means today, as in StatisticsService
+    static StatisticsRange of(LocalDate from, LocalDate to) {
+      LocalDate today = LocalDate.now(ZoneOffset.UTC);
+      return new StatisticsRange(Objects.requireNonNullElse(from, today), Objects.requireNonNullElse(to, today));
+    }
+
+    // Inclusive of the last day, which the live queries reach at its first instant
+    boolean covers(LocalDate day) {
+      return !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    boolean isHistorical() {
+      return !to.isAfter(LocalDate.now(ZoneOffset.UTC));
+    }
+  }
+
+  private record RangeExpiry(Duration ttl) implements Expiry<StatisticsRange, StatisticsResponse> {
+
+    @Override
+    public long expireAfterCreate(StatisticsRange key, StatisticsResponse value, long currentTime) {
+      return key.isHistorical() ? Long.MAX_VALUE : ttl.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(StatisticsRange key, StatisticsResponse value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(StatisticsRange key, StatisticsResponse value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+}
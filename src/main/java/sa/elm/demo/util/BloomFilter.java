@@ -0,0 +1,76 @@
+package sa.elm.demo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. {@link #mightContain} never answers {@code false} for a value that was put, and
+ * answers {@code true} for a value that was not with about the false positive rate it was sized for, which grows once
+ * more values than expected are put. Puts and lookups are lock-free and may run concurrently.
+ */
+public final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long expected = Math.max(1, expectedInsertions);
+    long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (LN2 * LN2));
+    this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) / 64)));
+    this.bitCount = bits.length() * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * LN2));
+  }
+
+  public void put(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(hash1 + i * hash2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current = bits.get(word);
+      while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        current = bits.get(word);
+      }
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(hash1 + i * hash2);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Every bit position is a combination of the same two hashes, which keeps the false positive rate of independent ones
+  private long index(long combinedHash) {
+    return (combinedHash & Long.MAX_VALUE) % bitCount;
+  }
+
+  // FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer to spread the bits
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
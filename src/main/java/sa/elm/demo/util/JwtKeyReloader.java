@@ -0,0 +1,46 @@
+package sa.elm.demo.util;
+
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sa.elm.demo.config.JwtKeyProperties;
+
+/**
+ * Binds the JWT keys from the environment again every {@code sa.elm.demo.jwt.reloadInterval} and hands them to
+ * {@link JwtUtil} when they changed, so a key added to or retired from a property source that is read on access,
+ * such as the system properties, takes effect without a restart. Keys that do not form a valid ring are logged and
+ * the current ones kept.
+ */
+@Slf4j
+@Component
+public class JwtKeyReloader {
+
+  private final Environment environment;
+  private final JwtUtil jwtUtil;
+  private volatile JwtKeyProperties loadedKeys;
+
+  public JwtKeyReloader(Environment environment, JwtUtil jwtUtil, JwtKeyProperties keyProperties) {
+    this.environment = environment;
+    this.jwtUtil = jwtUtil;
+    this.loadedKeys = keyProperties;
+  }
+
+  @Scheduled(fixedDelayString = "${sa.elm.demo.jwt.reloadInterval:PT1M}",
+      initialDelayString = "${sa.elm.demo.jwt.reloadInterval:PT1M}")
+  public void reload() {
+    JwtKeyProperties keys = Binder.get(environment).bind(JwtKeyProperties.PREFIX, JwtKeyProperties.class).orElse(null);
+    if (keys == null || keys.equals(loadedKeys)) {
+      return;
+    }
+    try {
+      jwtUtil.reloadKeys(keys);
+      loadedKeys = keys;
+    } catch (IllegalArgumentException | JwtException e) {
+      log.error("Kept the current JWT keys, the configured ones are invalid: {}", e.getMessage());
+    }
+  }
+
+}
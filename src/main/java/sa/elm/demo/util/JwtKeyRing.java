@@ -0,0 +1,57 @@
+package sa.elm.demo.util;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.apache.commons.lang3.StringUtils;
+import sa.elm.demo.exception.InvalidJWTException;
+
+import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the HMAC keys known to the application, indexed by their {@code kid} header.
+ * Tokens are always signed with the active key; any key in the ring is accepted for verification.
+ */
+public final class JwtKeyRing {
+
+  private final String activeKeyId;
+  private final SecretKey activeKey;
+  private final Map<String, SecretKey> keys;
+
+  private JwtKeyRing(String activeKeyId, Map<String, SecretKey> keys) {
+    this.activeKeyId = activeKeyId;
+    this.activeKey = keys.get(activeKeyId);
+    this.keys = Map.copyOf(keys);
+  }
+
+  public static JwtKeyRing of(String activeKeyId, Map<String, String> base64Secrets) {
+    if (StringUtils.isBlank(activeKeyId) || base64Secrets == null || !base64Secrets.containsKey(activeKeyId)) {
+      throw new IllegalArgumentException("Active JWT key id must be one of the configured keys");
+    }
+    Map<String, SecretKey> keys = new HashMap<>();
+    base64Secrets.forEach((keyId, secret) -> keys.put(keyId, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret))));
+    return new JwtKeyRing(activeKeyId, keys);
+  }
+
+  public String getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  public SecretKey getActiveKey() {
+    return activeKey;
+  }
+
+  public SecretKey getVerificationKey(String keyId) {
+    // Tokens issued before key ids were introduced carry no kid header
+    if (keyId == null) {
+      return activeKey;
+    }
+    SecretKey key = keys.get(keyId);
+    if (key == null) {
+      throw new InvalidJWTException("Unknown JWT signing key");
+    }
+    return key;
+  }
+
+}
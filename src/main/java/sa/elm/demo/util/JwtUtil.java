@@ -1,48 +1,52 @@
 package sa.elm.demo.util;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import sa.elm.demo.config.JwtKeyProperties;
 import sa.elm.demo.exception.InvalidJWTException;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.security.VerifiedToken;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.Map;
-import java.util.function.Function;
 
 @Slf4j
 @Component
 public class JwtUtil {
 
-  @Value("${sa.elm.demo.jwtSecret}")
-  protected String JWT_SECRET;
-
-  public String extractUsername(String token) {
-    return extractClaim(token, Claims::getSubject);
-  }
-
-  public Claims extractAllClaims(String token) {
-    return Jwts.parser()
-        .verifyWith(getSecretKey())
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
+  private final JwtParser jwtParser;
+  private volatile JwtKeyRing keyRing;
+
+  public JwtUtil(JwtKeyProperties keyProperties) {
+    reloadKeys(keyProperties);
+    jwtParser = Jwts.parser()
+        .keyLocator(new LocatorAdapter<Key>() {
+          @Override
+          protected Key locate(JwsHeader header) {
+            return keyRing.getVerificationKey(header.getKeyId());
+          }
+        })
+        .build();
   }
 
-  public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolver.apply(claims);
+  /**
+   * Atomically swaps the key ring used for signing and verification; {@link JwtKeyReloader} calls it when the
+   * configured keys change. Keep the previous key in the secrets until every token it signed has expired.
+   */
+  public void reloadKeys(JwtKeyProperties keyProperties) {
+    keyRing = JwtKeyRing.of(keyProperties.activeKeyId(), keyProperties.secrets());
+    log.info("Loaded {} JWT key(s), signing with key id:{}", keyProperties.secrets().size(), keyProperties.activeKeyId());
   }
 
   public String generateToken(Map<String, Object> claims, String subject) {
 
-
+    JwtKeyRing currentKeyRing = keyRing;
     return Jwts.builder()
-        .signWith(getSecretKey())
+        .header().keyId(currentKeyRing.getActiveKeyId()).and()
+        .signWith(currentKeyRing.getActiveKey())
         .subject(subject)
         .claims(claims)
         .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
@@ -50,30 +54,33 @@ public class JwtUtil {
         .compact();
   }
 
-  private SecretKey getSecretKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(JWT_SECRET);
-    return Keys.hmacShaKeyFor(keyBytes);
-  }
-
-  public boolean validateToken(String token) {
-    return validateJwt(token) && !isTokenExpired(token);
+  /**
+   * Parses the token and verifies its signature and expiry exactly once, returning the claims the application uses.
+   */
+  public VerifiedToken verifyToken(String token) {
+    Claims claims = parseVerifiedClaims(token);
+    return new VerifiedToken(claims.getSubject(),
+        extractRole(claims),
+        claims.get("name", String.class),
+        claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
   }
 
-  private boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
-  }
-
-  public Date extractExpiration(String token) {
-    return extractClaim(token, Claims::getExpiration);
+  private UserRoleEnum extractRole(Claims claims) {
+    String role = claims.get("role", String.class);
+    if (role == null) {
+      return null;
+    }
+    try {
+      return UserRoleEnum.valueOf(role);
+    } catch (IllegalArgumentException e) {
+      log.error("JWT role claim is invalid: {}", role);
+      throw new InvalidJWTException("JWT role claim is invalid");
+    }
   }
 
-  private boolean validateJwt(String authToken) {
+  private Claims parseVerifiedClaims(String authToken) {
     try {
-      Jwts.parser()
-          .verifyWith(getSecretKey())
-          .build()
-          .parseSignedClaims(authToken);
-      return true;
+      return jwtParser.parseSignedClaims(authToken).getPayload();
     } catch (SignatureException e) {
       log.error("Invalid JWT signature: {}", e.getMessage());
       throw new InvalidJWTException("Invalid JWT signature");
@@ -0,0 +1,37 @@
+package sa.elm.demo.util;
+
+import sa.elm.demo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor for the product listings: the id of the last product of the previous page, Base64 encoded so
+ * clients do not build cursors themselves and the format can change without breaking them.
+ */
+public final class ProductCursor {
+
+  private static final String PREFIX = "id:";
+
+  private ProductCursor() {
+  }
+
+  public static String encode(Long lastProductId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((PREFIX + lastProductId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Long decode(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      if (!decoded.startsWith(PREFIX)) {
+        throw new InvalidCursorException("Invalid Cursor");
+      }
+      return Long.parseLong(decoded.substring(PREFIX.length()));
+    } catch (IllegalArgumentException e) {
+      // Covers both malformed Base64 and a non-numeric id
+      throw new InvalidCursorException("Invalid Cursor");
+    }
+  }
+
+}
@@ -1,16 +1,22 @@
+CREATE SEQUENCE USERS_SEQ START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE USERS (
-    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
-    USERNAME VARCHAR(255) UNIQUE NOT NULL,
-    EMAIL VARCHAR(255) UNIQUE NOT NULL,
+    ID BIGINT DEFAULT NEXT VALUE FOR USERS_SEQ PRIMARY KEY,
+    USERNAME VARCHAR(255) NOT NULL,
+    EMAIL VARCHAR(255) NOT NULL,
     PASSWORD VARCHAR(255) NOT NULL,
     ROLE VARCHAR(45) CHECK (ROLE IN ('ADMIN', 'CLIENT', 'DEALER')) NOT NULL,
     STATUS VARCHAR(25) CHECK (STATUS IN ('ACTIVE', 'INACTIVE')) NOT NULL,
     CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    UPDATED_AT TIMESTAMP
+    UPDATED_AT TIMESTAMP,
+    CONSTRAINT UK_USERS_USERNAME UNIQUE (USERNAME),
+    CONSTRAINT UK_USERS_EMAIL UNIQUE (EMAIL)
 );
 
+CREATE SEQUENCE PRODUCTS_SEQ START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE PRODUCTS (
-    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ID BIGINT DEFAULT NEXT VALUE FOR PRODUCTS_SEQ PRIMARY KEY,
     NAME VARCHAR(255) NOT NULL,
     PRICE DECIMAL(10, 2) NOT NULL,
     STATUS VARCHAR(25) CHECK (STATUS IN ('ACTIVE', 'INACTIVE')) NOT NULL,
@@ -20,6 +26,26 @@ CREATE TABLE PRODUCTS (
     CONSTRAINT FK_USER FOREIGN KEY (USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE
 );
 
+CREATE INDEX IDX_PRODUCTS_CREATED_AT_PRICE_ID ON PRODUCTS(CREATED_AT, PRICE, ID);
+CREATE INDEX IDX_PRODUCTS_USER_ID_ID ON PRODUCTS(USER_ID, ID);
+CREATE INDEX IDX_PRODUCTS_STATUS_ID ON PRODUCTS(STATUS, ID);
+
+CREATE TABLE STATISTICS_DAILY_ROLLUP (
+    STAT_DATE DATE PRIMARY KEY,
+    ACTIVE_PRODUCTS BIGINT DEFAULT 0 NOT NULL,
+    INACTIVE_PRODUCTS BIGINT DEFAULT 0 NOT NULL,
+    ACTIVE_PRICE_SUM DECIMAL(19, 2) DEFAULT 0 NOT NULL,
+    HIGHEST_PRICE DECIMAL(10, 2),
+    HIGHEST_PRICED_PRODUCT_ID BIGINT,
+    LOWEST_PRICE DECIMAL(10, 2),
+    LOWEST_PRICED_PRODUCT_ID BIGINT,
+    ACTIVE_CLIENTS BIGINT DEFAULT 0 NOT NULL,
+    INACTIVE_CLIENTS BIGINT DEFAULT 0 NOT NULL,
+    ACTIVE_DEALERS BIGINT DEFAULT 0 NOT NULL,
+    INACTIVE_DEALERS BIGINT DEFAULT 0 NOT NULL,
+    DEALERS_WITH_PRODUCTS BIGINT DEFAULT 0 NOT NULL
+);
+
 
 INSERT INTO USERS(USERNAME, EMAIL, PASSWORD, ROLE, STATUS)
 VALUES('testAdmin_1',
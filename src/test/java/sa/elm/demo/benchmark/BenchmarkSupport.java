@@ -0,0 +1,49 @@
+package sa.elm.demo.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sa.elm.demo.ElmDemoApplication;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+final class BenchmarkSupport {
+
+  private BenchmarkSupport() {
+  }
+
+  // Passed as command line arguments, since default properties would lose to the ones in application.yaml
+  static ConfigurableApplicationContext startApplication(String databaseName, String... properties) {
+    return new SpringApplicationBuilder(ElmDemoApplication.class)
+        .run(Stream.concat(
+                Stream.of("spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                    "server.port=0",
+                    "logging.level.root=WARN"),
+                Arrays.stream(properties))
+            .map(property -> "--" + property)
+            .toArray(String[]::new));
+  }
+
+  /**
+   * Seeds dealers, clients and products spread over the last three years, with every third product inactive.
+   */
+  static void seed(JdbcTemplate jdbcTemplate, int dealers, int clients, int products) {
+    jdbcTemplate.update("INSERT INTO USERS(USERNAME, EMAIL, PASSWORD, ROLE, STATUS, CREATED_AT) " +
+        "SELECT 'dealer_' || X, 'dealer_' || X || '@bench.com', 'password', 'DEALER', 'ACTIVE', " +
+        "DATEADD('DAY', -MOD(X, 1000), CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, ?)", dealers);
+    jdbcTemplate.update("INSERT INTO USERS(USERNAME, EMAIL, PASSWORD, ROLE, STATUS, CREATED_AT) " +
+        "SELECT 'client_' || X, 'client_' || X || '@bench.com', 'password', 'CLIENT', " +
+        "CASE WHEN MOD(X, 5) = 0 THEN 'INACTIVE' ELSE 'ACTIVE' END, " +
+        "DATEADD('DAY', -MOD(X, 1000), CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, ?)", clients);
+    // User ids come from a sequence with gaps, so products go to dealers by rank rather than by id arithmetic
+    jdbcTemplate.update("INSERT INTO PRODUCTS(NAME, PRICE, STATUS, USER_ID, CREATED_AT) " +
+        "SELECT 'product_' || R.X, MOD(R.X * 7919, 100000) / 100.0 + 1, " +
+        "CASE WHEN MOD(R.X, 3) = 0 THEN 'INACTIVE' ELSE 'ACTIVE' END, " +
+        "D.ID, DATEADD('MINUTE', -MOD(R.X, 1576800), CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, ?) R " +
+        "JOIN (SELECT ID, ROW_NUMBER() OVER (ORDER BY ID) - 1 AS RANK_ FROM USERS WHERE ROLE = 'DEALER') D " +
+        "ON D.RANK_ = MOD(R.X, ?)",
+        products, dealers / 2);
+  }
+
+}
@@ -0,0 +1,69 @@
+package sa.elm.demo.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sa.elm.demo.config.JwtKeyProperties;
+import sa.elm.demo.models.security.VerifiedToken;
+import sa.elm.demo.util.JwtUtil;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous per-call key decoding and parser construction against the parser cached by {@link JwtUtil},
+ * and the three parses the filter used to do per request against a single {@link JwtUtil#verifyToken(String)}.
+ * Run with {@code java -cp <test classpath> sa.elm.demo.benchmark.JwtUtilBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+  static final String JWT_SECRET = "2ECCD48E35ADF9C17813D4C22B4672ECCD48E35ADF9C17813D4C22B4672ECCD48E35ADF9C17813D4C22B467";
+
+  private JwtUtil jwtUtil;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtUtil = new JwtUtil(new JwtKeyProperties("primary", Map.of("primary", JWT_SECRET)));
+    token = jwtUtil.generateToken(Map.of("role", "CLIENT", "name", "benchmark"), "1");
+  }
+
+  @Benchmark
+  public Claims perCallKeyAndParser() {
+    return Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+  }
+
+  @Benchmark
+  public VerifiedToken threeParsesPerRequest() {
+    jwtUtil.verifyToken(token);
+    jwtUtil.verifyToken(token);
+    return jwtUtil.verifyToken(token);
+  }
+
+  @Benchmark
+  public VerifiedToken singleVerificationPerRequest() {
+    return jwtUtil.verifyToken(token);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JwtUtilBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
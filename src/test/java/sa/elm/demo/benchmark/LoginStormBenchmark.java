@@ -0,0 +1,85 @@
+package sa.elm.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import sa.elm.demo.exception.PasswordHashingBusyException;
+import sa.elm.demo.service.ProductsService;
+import sa.elm.demo.service.UsersService;
+import sa.elm.models.LoginRequest;
+import sa.elm.models.LoginResponse;
+import sa.elm.models.ProductsResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads catalogue pages on one thread while many others log in, as request threads would during a login storm.
+ * Compare the catalogue percentiles with the hashing pool bounded to a couple of cores against a pool as wide as the
+ * storm, which is what hashing on the request threads amounts to.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginStormBenchmark {
+
+  private static final String PASSWORD = "password";
+
+  @Param({"2", "32"})
+  public int poolSize;
+
+  private ConfigurableApplicationContext context;
+  private UsersService usersService;
+  private ProductsService productsService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkSupport.startApplication("login" + poolSize,
+        "sa.elm.demo.passwordHashing.poolSize=" + poolSize,
+        "sa.elm.demo.passwordHashing.queueCapacity=1000");
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkSupport.seed(jdbcTemplate, 100, 0, 50_000);
+    jdbcTemplate.update("INSERT INTO USERS(USERNAME, EMAIL, PASSWORD, ROLE, STATUS, CREATED_AT) " +
+        "VALUES ('storm_client', 'storm_client@bench.com', ?, 'CLIENT', 'ACTIVE', CURRENT_TIMESTAMP)",
+        new BCryptPasswordEncoder(10).encode(PASSWORD));
+    usersService = context.getBean(UsersService.class);
+    productsService = context.getBean(ProductsService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @Group("storm")
+  @GroupThreads(1)
+  public ProductsResponse catalogue() {
+    // Goes past the page cache, so every read does its queries and mapping
+    return productsService.getAllActiveProducts(50, 1_000, null, false);
+  }
+
+  @Benchmark
+  @Group("storm")
+  @GroupThreads(32)
+  public LoginResponse login() {
+    try {
+      return usersService.loginUser(new LoginRequest("storm_client", PASSWORD), null);
+    } catch (PasswordHashingBusyException e) {
+      return null;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(LoginStormBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
@@ -0,0 +1,94 @@
+package sa.elm.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.service.ProductBulkImportService;
+import sa.elm.demo.service.ProductsService;
+import sa.elm.models.ProductBulkCreationItem;
+import sa.elm.models.ProductBulkCreationResponse;
+import sa.elm.models.ProductCreationRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares adding a dealer catalogue one product per transaction, as {@code /products/add} does, against the bulk
+ * import that validates the whole upload and stores it in chunks with batched inserts. Scores are products per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProductBulkAddBenchmark {
+
+  private static final int CATALOGUE_SIZE = 1_000;
+
+  @Param({"50", "500"})
+  public int chunkSize;
+
+  private ConfigurableApplicationContext context;
+  private ProductsService productsService;
+  private ProductBulkImportService productBulkImportService;
+  private List<ProductCreationRequest> requests;
+  private List<ProductBulkCreationItem> items;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkSupport.startApplication("bulkadd" + chunkSize,
+        "sa.elm.demo.bulkAdd.chunkSize=" + chunkSize);
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkSupport.seed(jdbcTemplate, 2, 0, 0);
+    Long dealerId = jdbcTemplate.queryForObject("SELECT MIN(ID) FROM USERS WHERE ROLE = 'DEALER'", Long.class);
+    // JMH may call the benchmark from another thread than the one that ran the setup
+    SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+    SecurityUser dealer = new SecurityUser(String.valueOf(dealerId), true, List.of(new SimpleGrantedAuthority("DEALER")));
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(dealer, null, dealer.getAuthorities()));
+
+    productsService = context.getBean(ProductsService.class);
+    productBulkImportService = context.getBean(ProductBulkImportService.class);
+    requests = IntStream.range(0, CATALOGUE_SIZE)
+        .mapToObj(i -> ProductCreationRequest.builder().name("product_" + i).price(BigDecimal.valueOf(i % 1000 + 1)).build())
+        .toList();
+    items = requests.stream()
+        .map(request -> ProductBulkCreationItem.builder().name(request.getName()).price(request.getPrice()).build())
+        .toList();
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CATALOGUE_SIZE)
+  public void onePerTransaction() {
+    requests.forEach(productsService::addNewProduct);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CATALOGUE_SIZE)
+  public ProductBulkCreationResponse bulkImport() {
+    return productBulkImportService.importProducts(items);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ProductBulkAddBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
@@ -0,0 +1,82 @@
+package sa.elm.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.service.ProductExportService;
+import sa.elm.models.ProductExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares exporting the catalogue by paging through the admin listing with limit and offset, as clients had to,
+ * against the streaming export. Run with {@code -prof gc} to compare allocation as well.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProductExportBenchmark {
+
+  private static final int PAGE_SIZE = 1_000;
+
+  @Param("200000")
+  public int products;
+
+  private ConfigurableApplicationContext context;
+  private ProductRepository productRepository;
+  private ProductExportService productExportService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkSupport.startApplication("export");
+    BenchmarkSupport.seed(context.getBean(JdbcTemplate.class), 1_000, 0, products);
+    productRepository = context.getBean(ProductRepository.class);
+    productExportService = context.getBean(ProductExportService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void offsetPaging(Blackhole blackhole) {
+    Slice<ProductListingView> page = productRepository.findListingSlice(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+    blackhole.consume(page.getContent());
+    while (page.hasNext()) {
+      page = productRepository.findListingSlice(page.nextPageable());
+      blackhole.consume(page.getContent());
+    }
+  }
+
+  @Benchmark
+  public long streamingNdjson() throws IOException {
+    return productExportService.export(ProductExportFormat.NDJSON, OutputStream.nullOutputStream());
+  }
+
+  @Benchmark
+  public long streamingCsv() throws IOException {
+    return productExportService.export(ProductExportFormat.CSV, OutputStream.nullOutputStream());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ProductExportBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
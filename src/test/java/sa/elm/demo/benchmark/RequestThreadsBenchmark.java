@@ -0,0 +1,132 @@
+package sa.elm.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import sa.elm.demo.util.JwtUtil;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the application over HTTP with more concurrent clients than Tomcat has worker threads: most of them log in,
+ * which waits on the password hashing pool, while the rest page through the admin catalogue, which waits on JDBC.
+ * Compare the catalogue and login throughput with requests on Tomcat's platform threads against the virtual-threads
+ * profile. The live and peak thread counts, heap in use and resident set size of the process are printed after each
+ * trial; run with {@code -prof gc} to compare allocation as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadsBenchmark {
+
+  private static final String PASSWORD = "password";
+  private static final int PRODUCTS = 50_000;
+  private static final int PAGE_SIZE = 50;
+
+  @Param({"platform", "virtual-threads"})
+  public String mode;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient httpClient;
+  private String baseUrl;
+  private String adminAuthorization;
+
+  @Setup
+  public void setUp() {
+    boolean virtualThreads = mode.equals("virtual-threads");
+    context = BenchmarkSupport.startApplication(virtualThreads ? "threadsVirtual" : "threadsPlatform",
+        "spring.profiles.active=" + (virtualThreads ? mode : ""),
+        // Logins wait for the hashing pool instead of being turned away, as they would behind a longer queue
+        "sa.elm.demo.passwordHashing.queueCapacity=10000",
+        "sa.elm.demo.passwordHashing.timeout=PT1M");
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkSupport.seed(jdbcTemplate, 100, 0, PRODUCTS);
+    jdbcTemplate.update("INSERT INTO USERS(USERNAME, EMAIL, PASSWORD, ROLE, STATUS, CREATED_AT) " +
+        "VALUES ('load_client', 'load_client@bench.com', ?, 'CLIENT', 'ACTIVE', CURRENT_TIMESTAMP)",
+        new BCryptPasswordEncoder(10).encode(PASSWORD));
+    Long adminId = jdbcTemplate.queryForObject("SELECT MIN(ID) FROM USERS WHERE ROLE = 'ADMIN'", Long.class);
+    adminAuthorization = "Bearer " + context.getBean(JwtUtil.class)
+        .generateToken(Map.of("role", "ADMIN", "name", "testAdmin_1"), String.valueOf(adminId));
+    baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort() + "/api";
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    Runtime runtime = Runtime.getRuntime();
+    System.out.printf("%n%s: %d live threads, %d at peak, %d MB heap in use, resident set %s%n", mode,
+        ManagementFactory.getThreadMXBean().getThreadCount(), ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+        (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), residentSetSize());
+    httpClient.close();
+    context.close();
+  }
+
+  @Benchmark
+  @Group("load")
+  @GroupThreads(16)
+  public int catalogue() throws IOException, InterruptedException {
+    // A random page, so the reads go to the database rather than to one cached page
+    int offset = ThreadLocalRandom.current().nextInt(PRODUCTS / PAGE_SIZE) * PAGE_SIZE;
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/products/admin?limit=" + PAGE_SIZE + "&offset=" + offset))
+        .header(HttpHeaders.AUTHORIZATION, adminAuthorization)
+        .GET()
+        .build());
+  }
+
+  @Benchmark
+  @Group("load")
+  @GroupThreads(240)
+  public int login() throws IOException, InterruptedException {
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"load_client\",\"password\":\"" + PASSWORD + "\"}"))
+        .build());
+  }
+
+  private int send(HttpRequest request) throws IOException, InterruptedException {
+    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException(request.uri().getPath() + " answered " + response.statusCode() + ": " + response.body());
+    }
+    return response.body().length();
+  }
+
+  private static String residentSetSize() {
+    try {
+      return Files.readAllLines(Path.of("/proc/self/status")).stream()
+          .filter(line -> line.startsWith("VmRSS:"))
+          .map(line -> line.substring("VmRSS:".length()).trim())
+          .findFirst()
+          .orElse("unknown");
+    } catch (IOException e) {
+      return "unknown";
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RequestThreadsBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
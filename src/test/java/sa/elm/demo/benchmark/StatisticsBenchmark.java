@@ -0,0 +1,104 @@
+package sa.elm.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.StatisticsDailyRollupRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.service.StatisticsRollupService;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ten separate count and sum queries the statistics dashboard used to run, kept here as plain SQL,
+ * against the two conditional-aggregation queries and against summing the daily rollup, over an H2 database seeded
+ * with a million products.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+
+  @Param("1000000")
+  public int products;
+
+  private static final String[] SEPARATE_COUNTS = {
+      "SELECT COUNT(*) FROM PRODUCTS WHERE CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM PRODUCTS WHERE STATUS = 'ACTIVE' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM PRODUCTS WHERE STATUS = 'INACTIVE' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS WHERE ROLE = 'CLIENT' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS WHERE ROLE = 'CLIENT' AND STATUS = 'ACTIVE' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS WHERE ROLE = 'CLIENT' AND STATUS = 'INACTIVE' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS WHERE ROLE = 'DEALER' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS u WHERE u.ROLE = 'DEALER' AND EXISTS (SELECT 1 FROM PRODUCTS p WHERE p.USER_ID = u.ID) " +
+          "AND u.CREATED_AT >= ? AND u.CREATED_AT <= ?",
+      "SELECT COUNT(*) FROM USERS u WHERE u.ROLE = 'DEALER' AND NOT EXISTS (SELECT 1 FROM PRODUCTS p WHERE p.USER_ID = u.ID) " +
+          "AND u.CREATED_AT >= ? AND u.CREATED_AT <= ?"};
+
+  private ConfigurableApplicationContext context;
+  private JdbcTemplate jdbcTemplate;
+  private ProductRepository productRepository;
+  private UserRepository userRepository;
+  private StatisticsDailyRollupRepository rollupRepository;
+  private OffsetDateTime from;
+  private OffsetDateTime to;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkSupport.startApplication("statistics");
+    jdbcTemplate = context.getBean(JdbcTemplate.class);
+    BenchmarkSupport.seed(jdbcTemplate, 1_000, 10_000, products);
+    productRepository = context.getBean(ProductRepository.class);
+    userRepository = context.getBean(UserRepository.class);
+    rollupRepository = context.getBean(StatisticsDailyRollupRepository.class);
+    context.getBean(StatisticsRollupService.class).rebuild();
+    from = OffsetDateTime.now(ZoneOffset.UTC).minusYears(5);
+    to = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void separateQueries(Blackhole blackhole) {
+    for (String count : SEPARATE_COUNTS) {
+      blackhole.consume(jdbcTemplate.queryForObject(count, Long.class, from, to));
+    }
+    blackhole.consume(jdbcTemplate.queryForObject(
+        "SELECT SUM(PRICE) FROM PRODUCTS WHERE STATUS = 'ACTIVE' AND CREATED_AT >= ? AND CREATED_AT <= ?",
+        BigDecimal.class, from, to));
+  }
+
+  @Benchmark
+  public void conditionalAggregation(Blackhole blackhole) {
+    blackhole.consume(productRepository.aggregateProductStatistics(from, to));
+    blackhole.consume(userRepository.aggregateUserStatistics(from, to));
+  }
+
+  @Benchmark
+  public void dailyRollup(Blackhole blackhole) {
+    blackhole.consume(rollupRepository.sumTotals(from.toLocalDate(), to.toLocalDate()));
+    blackhole.consume(rollupRepository.findHighestPricedProduct(from.toLocalDate(), to.toLocalDate()));
+    blackhole.consume(rollupRepository.findLowestPricedProduct(from.toLocalDate(), to.toLocalDate()));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(StatisticsBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
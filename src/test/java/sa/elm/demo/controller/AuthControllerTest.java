@@ -1,5 +1,6 @@
 package sa.elm.demo.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -16,6 +17,7 @@ import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AuthControllerTest {
@@ -23,6 +25,9 @@ class AuthControllerTest {
   @Mock
   private UsersService usersService;
 
+  @Mock
+  private HttpServletRequest request;
+
   @InjectMocks
   private AuthController authController;
 
@@ -55,12 +60,13 @@ class AuthControllerTest {
     LoginResponse loginResponse = LoginResponse.builder().build();
     loginResponse.setToken("mocked_token");
 
-    when(usersService.loginUser(any(LoginRequest.class))).thenReturn(loginResponse);
+    when(request.getRemoteAddr()).thenReturn("203.0.113.7");
+    when(usersService.loginUser(any(LoginRequest.class), eq("203.0.113.7"))).thenReturn(loginResponse);
 
     ResponseEntity<LoginResponse> response = authController.loginUser(loginRequest);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals("mocked_token", Objects.requireNonNull(response.getBody()).getToken());
-    verify(usersService, times(1)).loginUser(any(LoginRequest.class));
+    verify(usersService, times(1)).loginUser(any(LoginRequest.class), eq("203.0.113.7"));
   }
 }
\ No newline at end of file
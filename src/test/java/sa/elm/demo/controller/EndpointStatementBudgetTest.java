@@ -0,0 +1,255 @@
+package sa.elm.demo.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.service.StatisticsRollupService;
+import sa.elm.demo.util.JwtUtil;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs each product endpoint through the full stack against a seeded database and fails when it issues more SQL
+ * statements than its budget, or hydrates a dealer it never reads.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statementbudget;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "sa.elm.demo.statistics.rebuildOnStartup=false"})
+class EndpointStatementBudgetTest {
+
+  private static final int DEALER_PRODUCTS = 60;
+  private static final int BULK_ITEMS = 200;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private ProductRepository productRepository;
+  @Autowired
+  private StatisticsRollupService statisticsRollupService;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private JwtUtil jwtUtil;
+
+  private MockMvc mockMvc;
+  private Statistics statistics;
+  private User dealer;
+  private User client;
+  private User admin;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    dealer = userRepository.findByUsername("budget_dealer").orElseGet(this::seed);
+    client = userRepository.findByUsername("budget_client").orElseThrow();
+    admin = userRepository.findByUsername("budget_admin").orElseThrow();
+  }
+
+  @Test
+  void testDealerListing() throws Exception {
+    assertWithinBudget(3, get("/products").param("limit", "50").header(HttpHeaders.AUTHORIZATION, bearer(dealer)));
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testClientListing() throws Exception {
+    assertWithinBudget(3, get("/products/user").param("limit", "50").header(HttpHeaders.AUTHORIZATION, bearer(client)));
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testClientListing_WithCurrentETag_NotModifiedWithoutStatements() throws Exception {
+    String etag = mockMvc.perform(get("/products/user").param("limit", "50").header(HttpHeaders.AUTHORIZATION, bearer(client)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    statistics.clear();
+
+    mockMvc.perform(get("/products/user").param("limit", "50")
+            .header(HttpHeaders.AUTHORIZATION, bearer(client))
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+    assertEquals(0, statistics.getPrepareStatementCount());
+
+    Long productId = productRepository.findListingByUserIdAfter(dealer.getId(), 0L, Limit.of(1)).get(0).id();
+    mockMvc.perform(post("/products/" + productId + "/change-status").header(HttpHeaders.AUTHORIZATION, bearer(dealer)))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/products/user").param("limit", "50")
+            .header(HttpHeaders.AUTHORIZATION, bearer(client))
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+  }
+
+  @Test
+  void testAdminListing() throws Exception {
+    assertWithinBudget(3, get("/products/admin").param("limit", "50").header(HttpHeaders.AUTHORIZATION, bearer(admin)));
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testAdminListing_WithExactCount() throws Exception {
+    assertWithinBudget(3, get("/products/admin").param("limit", "50").param("exactCount", "true")
+        .header(HttpHeaders.AUTHORIZATION, bearer(admin)));
+  }
+
+  @Test
+  void testStatistics() throws Exception {
+    assertWithinBudget(4, get("/products/statistics").header(HttpHeaders.AUTHORIZATION, bearer(admin)));
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testAddProduct() throws Exception {
+    assertWithinBudget(6, post("/products/add")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\": \"Budget product\", \"price\": \"25.00\"}")
+        .header(HttpHeaders.AUTHORIZATION, bearer(dealer)));
+    assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+  }
+
+  @Test
+  void testBulkAddProducts() throws Exception {
+    String items = IntStream.range(0, BULK_ITEMS)
+        .mapToObj(i -> "{\"name\": \"Bulk product " + i + "\", \"price\": " + (i + 1) + "}")
+        .collect(Collectors.joining(", ", "{\"items\": [", "]}"));
+
+    // Sequence fetches and insert batches grow with the batch size, not with the number of products
+    assertWithinBudget(10, post("/products/bulk-add")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(items)
+        .header(HttpHeaders.AUTHORIZATION, bearer(dealer)));
+    assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+    assertEquals(BULK_ITEMS, statistics.getEntityStatistics(Product.class.getName()).getInsertCount());
+  }
+
+  @Test
+  void testBulkChangeProductStatus() throws Exception {
+    String ids = productRepository.findListingByUserIdAfter(dealer.getId(), 0L, Limit.of(DEALER_PRODUCTS)).stream()
+        .map(product -> String.valueOf(product.id()))
+        .collect(Collectors.joining(", ", "[", "]"));
+
+    // Flipping every product twice keeps the seeded data as it was for the other tests
+    for (String status : List.of("INACTIVE", "ACTIVE")) {
+      assertWithinBudget(6, post("/products/bulk-change-status")
+          .contentType(MediaType.APPLICATION_JSON)
+          .content("{\"status\": \"" + status + "\", \"ids\": " + ids + "}")
+          .header(HttpHeaders.AUTHORIZATION, bearer(dealer)));
+      assertEquals(0, statistics.getEntityLoadCount());
+    }
+  }
+
+  @Test
+  void testChangeProductStatus() throws Exception {
+    Long productId = productRepository.findListingByUserIdAfter(dealer.getId(), 0L, Limit.of(1))
+        .get(0).id();
+
+    assertWithinBudget(4, post("/products/" + productId + "/change-status").header(HttpHeaders.AUTHORIZATION, bearer(dealer)));
+    assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+  }
+
+  @Test
+  void testExportProducts_StreamsWholeCatalogueWithOneStatement() throws Exception {
+    statistics.clear();
+
+    MvcResult started = mockMvc.perform(get("/products/admin/export").param("format", "CSV")
+            .header(HttpHeaders.AUTHORIZATION, bearer(admin)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    MvcResult finished = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv"))
+        .andReturn();
+
+    long statements = statistics.getPrepareStatementCount();
+    assertEquals(1, statements);
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(productRepository.count() + 1, finished.getResponse().getContentAsString().lines().count());
+  }
+
+  private void assertWithinBudget(long budget, RequestBuilder request) throws Exception {
+    statistics.clear();
+
+    mockMvc.perform(request).andExpect(status().isOk());
+
+    long statements = statistics.getPrepareStatementCount();
+    assertTrue(statements <= budget, "Expected at most " + budget + " statements but was " + statements);
+  }
+
+  private String bearer(User user) {
+    return "Bearer " + jwtUtil.generateToken(Map.of("role", user.getUserRole().name(), "name", user.getUsername()),
+        String.valueOf(user.getId()));
+  }
+
+  private User seed() {
+    User seededDealer = userRepository.save(buildUser("budget_dealer", UserRoleEnum.DEALER));
+    User otherDealer = userRepository.save(buildUser("budget_other_dealer", UserRoleEnum.DEALER));
+    userRepository.save(buildUser("budget_client", UserRoleEnum.CLIENT));
+    userRepository.save(buildUser("budget_admin", UserRoleEnum.ADMIN));
+    for (int i = 0; i < DEALER_PRODUCTS; i++) {
+      productRepository.save(buildProduct("Budget product " + i, seededDealer));
+      productRepository.save(buildProduct("Other product " + i, otherDealer));
+    }
+    statisticsRollupService.rebuild();
+    return seededDealer;
+  }
+
+  private static User buildUser(String username, UserRoleEnum role) {
+    return User.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("password")
+        .userRole(role)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build();
+  }
+
+  private static Product buildProduct(String name, User dealer) {
+    return Product.builder()
+        .name(name)
+        .price(BigDecimal.TEN)
+        .status(ProductStatus.ACTIVE)
+        .user(dealer)
+        .build();
+  }
+
+}
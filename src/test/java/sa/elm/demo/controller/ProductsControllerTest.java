@@ -8,17 +8,36 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import sa.elm.demo.service.ProductBulkImportService;
+import sa.elm.demo.service.ProductBulkStatusService;
+import sa.elm.demo.service.ProductExportService;
 import sa.elm.demo.service.ProductsService;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.CataloguePage;
+import sa.elm.models.ProductBulkCreationError;
+import sa.elm.models.ProductBulkCreationItem;
+import sa.elm.models.ProductBulkCreationResponse;
+import sa.elm.models.ProductBulkStatusChangeRequest;
+import sa.elm.models.ProductBulkStatusChangeResponse;
 import sa.elm.models.ProductCreationRequest;
+import sa.elm.models.ProductExportFormat;
 import sa.elm.models.ProductsResponse;
 import sa.elm.models.StatisticsResponse;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,9 +46,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest
 class ProductsControllerTest {
 
+  private static final String ETAG = "W/\"2-10-0--0\"";
+
   @MockBean
   private ProductsService productsService;
 
+  @MockBean
+  private ProductBulkImportService productBulkImportService;
+
+  @MockBean
+  private ProductBulkStatusService productBulkStatusService;
+
+  @MockBean
+  private ProductExportService productExportService;
+
   @Autowired
   private ProductsController productsController;
 
@@ -47,7 +77,7 @@ class ProductsControllerTest {
     ProductsResponse productsResponse = ProductsResponse.builder().build();
     productsResponse.setTotal(10L);
 
-    when(productsService.getAllDealerProducts(anyInt(), anyInt())).thenReturn(productsResponse);
+    when(productsService.getAllDealerProducts(anyInt(), anyInt(), isNull(), eq(false))).thenReturn(productsResponse);
 
     mockMvc.perform(get("/products")
             .param("limit", "10")
@@ -57,7 +87,7 @@ class ProductsControllerTest {
         .andExpect(header().string(ProductsController.X_TOTAL_COUNT, "10"))
         .andExpect(jsonPath("$.total").value(10));
 
-    verify(productsService, times(1)).getAllDealerProducts(anyInt(), anyInt());
+    verify(productsService, times(1)).getAllDealerProducts(anyInt(), anyInt(), isNull(), eq(false));
   }
 
   @Test
@@ -66,17 +96,70 @@ class ProductsControllerTest {
     ProductsResponse productsResponse = ProductsResponse.builder().build();
     productsResponse.setTotal(5L);
 
-    when(productsService.getAllActiveProducts(anyInt(), anyInt())).thenReturn(productsResponse);
+    when(productsService.getActiveProductsETag(anyInt(), anyInt(), isNull(), eq(false))).thenReturn(ETAG);
+    when(productsService.getActiveProductsPage(anyInt(), anyInt(), isNull(), eq(false)))
+        .thenReturn(new CataloguePage(ETAG, productsResponse));
 
     mockMvc.perform(get("/products/user")
             .param("limit", "10")
             .param("offset", "0")
             .contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG))
         .andExpect(header().string(ProductsController.X_TOTAL_COUNT, "5"))
         .andExpect(jsonPath("$.total").value(5));
 
-    verify(productsService, times(1)).getAllActiveProducts(anyInt(), anyInt());
+    verify(productsService, times(1)).getActiveProductsPage(anyInt(), anyInt(), isNull(), eq(false));
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "CLIENT")
+  void testGetActiveProducts_WithCurrentETag_NotModified() throws Exception {
+    when(productsService.getActiveProductsETag(anyInt(), anyInt(), isNull(), eq(false))).thenReturn(ETAG);
+
+    mockMvc.perform(get("/products/user")
+            .param("limit", "10")
+            .param("offset", "0")
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"other\", " + ETAG))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+        .andExpect(content().string(""));
+
+    verify(productsService, never()).getActiveProductsPage(anyInt(), anyInt(), any(), anyBoolean());
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "CLIENT")
+  void testGetActiveProducts_WithStaleETag_ReturnsPage() throws Exception {
+    when(productsService.getActiveProductsETag(anyInt(), anyInt(), isNull(), eq(false))).thenReturn(ETAG);
+    when(productsService.getActiveProductsPage(anyInt(), anyInt(), isNull(), eq(false)))
+        .thenReturn(new CataloguePage(ETAG, ProductsResponse.builder().total(5L).build()));
+
+    mockMvc.perform(get("/products/user")
+            .param("limit", "10")
+            .param("offset", "0")
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"1-10-0--0\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+        .andExpect(jsonPath("$.total").value(5));
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "CLIENT")
+  void testGetActiveProducts_WithoutTotal_OmitsTotalCount() throws Exception {
+    ProductsResponse productsResponse = ProductsResponse.builder().nextCursor("aWQ6MjA").build();
+
+    when(productsService.getActiveProductsETag(anyInt(), anyInt(), eq("aWQ6MTA"), eq(false))).thenReturn(ETAG);
+    when(productsService.getActiveProductsPage(anyInt(), anyInt(), eq("aWQ6MTA"), eq(false)))
+        .thenReturn(new CataloguePage(ETAG, productsResponse));
+
+    mockMvc.perform(get("/products/user")
+            .param("limit", "10")
+            .param("cursor", "aWQ6MTA")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(ProductsController.X_TOTAL_COUNT))
+        .andExpect(jsonPath("$.nextCursor").value("aWQ6MjA"));
   }
 
   @Test
@@ -92,13 +175,78 @@ class ProductsControllerTest {
     verify(productsService, times(1)).addNewProduct(any(ProductCreationRequest.class));
   }
 
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "DEALER")
+  void testAddProducts_WithDealerRole_ReturnsImportResult() throws Exception {
+    when(productBulkImportService.importProducts(anyList())).thenReturn(ProductBulkCreationResponse.builder()
+        .created(1L)
+        .rejected(1L)
+        .errors(List.of(ProductBulkCreationError.builder().index(1L).message("name: size must be between 1 and 255").build()))
+        .build());
+
+    mockMvc.perform(post("/products/bulk-add")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"items\": [{\"name\": \"New Product\", \"price\": 25.00}, {\"name\": \"\", \"price\": 1}]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(1))
+        .andExpect(jsonPath("$.rejected").value(1))
+        .andExpect(jsonPath("$.errors[0].index").value(1));
+
+    verify(productBulkImportService, times(1)).importProducts(argThat((List<ProductBulkCreationItem> items) -> items.size() == 2));
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "DEALER")
+  void testAddProducts_WithoutItems_BadRequest() throws Exception {
+    mockMvc.perform(post("/products/bulk-add")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"items\": []}"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(productBulkImportService);
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "DEALER")
+  void testAddProductsFromNdjson_StreamsBodyToImport() throws Exception {
+    String ndjson = "{\"name\": \"Product A\", \"price\": 10}\n{\"name\": \"Product B\", \"price\": 20}\n";
+    when(productBulkImportService.importProducts(any(InputStream.class))).thenAnswer(invocation -> {
+      InputStream body = invocation.getArgument(0);
+      assertEquals(ndjson, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+      return ProductBulkCreationResponse.builder().created(2L).rejected(0L).errors(List.of()).build();
+    });
+
+    mockMvc.perform(post("/products/bulk-add/ndjson")
+            .contentType("application/x-ndjson")
+            .content(ndjson))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created").value(2));
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "ADMIN")
+  void testChangeProductStatuses_WithAdminRole_ReturnsCounts() throws Exception {
+    when(productBulkStatusService.changeProductStatuses(any(ProductBulkStatusChangeRequest.class))).thenReturn(
+        ProductBulkStatusChangeResponse.builder().changed(2L).unchanged(0L).notOwned(0L).notFound(1L).build());
+
+    mockMvc.perform(post("/products/bulk-change-status")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"status\": \"INACTIVE\", \"ids\": [1, 2, 3]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.changed").value(2))
+        .andExpect(jsonPath("$.notFound").value(1));
+
+    verify(productBulkStatusService, times(1)).changeProductStatuses(argThat(request ->
+        request.getStatus() == ProductBulkStatusChangeRequest.StatusEnum.INACTIVE && request.getIds().size() == 3));
+  }
+
   @Test
   @WithMockUser(username = "1", password = "", authorities = "ADMIN")
   void testGetAllProducts_WithAdminRole_Success() throws Exception {
     ProductsResponse productsResponse = ProductsResponse.builder().build();
     productsResponse.setTotal(20L);
 
-    when(productsService.getAllProducts(anyInt(), anyInt())).thenReturn(productsResponse);
+    when(productsService.getAllProducts(anyInt(), anyInt(), isNull(), eq(false))).thenReturn(productsResponse);
 
     mockMvc.perform(get("/products/admin")
             .param("limit", "10")
@@ -108,7 +256,23 @@ class ProductsControllerTest {
         .andExpect(header().string(ProductsController.X_TOTAL_COUNT, "20"))
         .andExpect(jsonPath("$.total").value(20));
 
-    verify(productsService, times(1)).getAllProducts(anyInt(), anyInt());
+    verify(productsService, times(1)).getAllProducts(anyInt(), anyInt(), isNull(), eq(false));
+  }
+
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "ADMIN")
+  void testGetAllProducts_WithExactCount_PassesFlagThrough() throws Exception {
+    ProductsResponse productsResponse = ProductsResponse.builder().build();
+    productsResponse.setTotal(21L);
+
+    when(productsService.getAllProducts(anyInt(), anyInt(), isNull(), eq(true))).thenReturn(productsResponse);
+
+    mockMvc.perform(get("/products/admin")
+            .param("limit", "10")
+            .param("exactCount", "true")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ProductsController.X_TOTAL_COUNT, "21"));
   }
 
   @Test
@@ -123,6 +287,25 @@ class ProductsControllerTest {
     verify(productsService, times(1)).changeProductStatus(anyLong());
   }
 
+  @Test
+  @WithMockUser(username = "1", password = "", authorities = "ADMIN")
+  void testExportProducts_WithAdminRole_StreamsAttachment() throws Exception {
+    when(productExportService.export(eq(ProductExportFormat.NDJSON), any(OutputStream.class))).thenAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(1).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+      return 1L;
+    });
+
+    MvcResult result = mockMvc.perform(get("/products/admin/export"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\""))
+        .andExpect(content().string("{\"id\":1}\n"));
+  }
+
   @Test
   @WithMockUser(username = "1", password = "", authorities = "ADMIN")
   void testGetProductStatistics_WithAdminRole_Success() throws Exception {
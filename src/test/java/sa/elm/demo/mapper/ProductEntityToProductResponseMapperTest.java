@@ -5,9 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import sa.elm.demo.models.entity.Product;
-import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductSummaryView;
 import sa.elm.models.ProductItem;
 import sa.elm.models.ProductSummary;
 import sa.elm.models.ProductsResponse;
@@ -22,37 +22,19 @@ class ProductEntityToProductResponseMapperTest {
   @InjectMocks
   private ProductEntityToProductResponseMapper mapper;
 
-  private Product product1;
-  private Product product2;
+  private ProductListingView product1;
+  private ProductListingView product2;
 
   @BeforeEach
   void setUp() {
     mapper = new ProductEntityToProductResponseMapper();
-    User dealer = User.builder()
-        .username("dealer_user")
-        .email("dealer@example.com")
-        .build();
-
-    product1 = Product.builder()
-        .id(1L)
-        .name("Product 1")
-        .price(BigDecimal.valueOf(100))
-        .status(ProductStatus.ACTIVE)
-        .user(dealer)
-        .build();
-
-    product2 = Product.builder()
-        .id(2L)
-        .name("Product 2")
-        .price(BigDecimal.valueOf(200))
-        .status(ProductStatus.INACTIVE)
-        .user(dealer)
-        .build();
+    product1 = new ProductListingView(1L, "Product 1", BigDecimal.valueOf(100), ProductStatus.ACTIVE, "dealer_user");
+    product2 = new ProductListingView(2L, "Product 2", BigDecimal.valueOf(200), ProductStatus.INACTIVE, "dealer_user");
   }
 
   @Test
   void testMapForDealer() {
-    Page<Product> productPage = new PageImpl<>(List.of(product1, product2));
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(product1, product2));
 
     ProductsResponse response = mapper.mapForDealer(productPage);
 
@@ -65,7 +47,7 @@ class ProductEntityToProductResponseMapperTest {
 
   @Test
   void testMapForClient() {
-    Page<Product> productPage = new PageImpl<>(List.of(product1, product2));
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(product1, product2));
 
     ProductsResponse response = mapper.mapForClient(productPage);
 
@@ -78,7 +60,7 @@ class ProductEntityToProductResponseMapperTest {
 
   @Test
   void testMapForAdmin() {
-    Page<Product> productPage = new PageImpl<>(List.of(product1, product2));
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(product1, product2));
 
     ProductsResponse response = mapper.mapForAdmin(productPage);
 
@@ -92,8 +74,11 @@ class ProductEntityToProductResponseMapperTest {
 
   @Test
   void testMapToProductSummary() {
-    ProductSummary summary = mapper.mapToProductSummary(product1);
+    ProductSummaryView productSummaryView = new ProductSummaryView(1L, "Product 1", BigDecimal.valueOf(100), "dealer_user");
 
+    ProductSummary summary = mapper.mapToProductSummary(productSummaryView);
+
+    assertEquals(1L, summary.getId());
     assertEquals("Product 1", summary.getName());
     assertEquals("dealer_user", summary.getDealerName());
     assertEquals(BigDecimal.valueOf(100), summary.getPrice());
@@ -1,31 +1,48 @@
 package sa.elm.demo.repository;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import sa.elm.demo.models.entity.Product;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.ProductStatus;
 import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductOwnershipView;
+import sa.elm.demo.models.projection.ProductStatusView;
+import sa.elm.demo.models.projection.ProductSummaryView;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class ProductRepositoryTest {
 
   @Autowired
   private ProductRepository productRepository;
   @Autowired
   private UserRepository userRepository;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private TestEntityManager testEntityManager;
 
   private User user;
   private Product product1;
@@ -63,60 +80,232 @@ public class ProductRepositoryTest {
   }
 
   @Test
-  void testFindByUser() {
+  void testFindListingByUserId() {
     PageRequest pageRequest = PageRequest.of(0, 10);
 
-    Page<Product> productPage = productRepository.findByUser(user, pageRequest);
+    Page<ProductListingView> productPage = productRepository.findListingByUserId(user.getId(), pageRequest);
 
     assertEquals(2, productPage.getTotalElements());
-    assertEquals("Product 1", productPage.getContent().get(0).getName());
+    assertEquals("Product 1", productPage.getContent().get(0).name());
+    assertEquals("dummy", productPage.getContent().get(0).dealerName());
   }
 
   @Test
-  void testFindByStatus() {
+  void testFindListingByStatus() {
     PageRequest pageRequest = PageRequest.of(0, 10);
 
-    Page<Product> activeProductPage = productRepository.findByStatus(ProductStatus.ACTIVE, pageRequest);
+    Page<ProductListingView> activeProductPage = productRepository.findListingByStatus(ProductStatus.ACTIVE, pageRequest);
 
     assertEquals(1, activeProductPage.getTotalElements());
-    assertEquals("Product 1", activeProductPage.getContent().get(0).getName());
+    assertEquals("Product 1", activeProductPage.getContent().get(0).name());
+    assertEquals(ProductStatus.ACTIVE, activeProductPage.getContent().get(0).status());
+  }
+
+  @Test
+  void testFindListingByUserIdAfter_SeeksPastTheGivenId() {
+    List<ProductListingView> firstPage = productRepository.findListingByUserIdAfter(user.getId(), 0L, Limit.of(1));
+    List<ProductListingView> secondPage = productRepository.findListingByUserIdAfter(user.getId(), firstPage.get(0).id(), Limit.of(1));
+    List<ProductListingView> thirdPage = productRepository.findListingByUserIdAfter(user.getId(), secondPage.get(0).id(), Limit.of(1));
+
+    assertEquals("Product 1", firstPage.get(0).name());
+    assertEquals("Product 2", secondPage.get(0).name());
+    assertTrue(thirdPage.isEmpty());
+  }
+
+  @Test
+  void testFindListingSliceByUserId_ReportsNextWithoutCounting() {
+    Slice<ProductListingView> firstSlice = productRepository.findListingSliceByUserId(user.getId(), PageRequest.of(0, 1, Sort.by("id")));
+    Slice<ProductListingView> secondSlice = productRepository.findListingSliceByUserId(user.getId(), PageRequest.of(1, 1, Sort.by("id")));
+
+    assertEquals("Product 1", firstSlice.getContent().get(0).name());
+    assertTrue(firstSlice.hasNext());
+    assertEquals("Product 2", secondSlice.getContent().get(0).name());
+    assertFalse(secondSlice.hasNext());
+  }
+
+  @Test
+  void testCountByStatus() {
+    assertEquals(1, productRepository.countByStatus(ProductStatus.ACTIVE));
+    assertEquals(1, productRepository.countByStatus(ProductStatus.INACTIVE));
+  }
+
+  @Test
+  void testFindListingByStatusAfter() {
+    List<ProductListingView> activeProducts = productRepository.findListingByStatusAfter(ProductStatus.ACTIVE, 0L, Limit.of(10));
+
+    assertEquals(1, activeProducts.size());
+    assertEquals("Product 1", activeProducts.get(0).name());
+  }
+
+  @Test
+  void testFindListingAfter() {
+    List<ProductListingView> products = productRepository.findListingAfter(product1.getId(), Limit.of(10));
+
+    assertEquals(1, products.size());
+    assertEquals("Product 2", products.get(0).name());
+  }
+
+  @Test
+  void testFindListingSlice_LoadsAPageOfManyDealersInOneStatement() {
+    for (int i = 0; i < 100; i++) {
+      User dealer = userRepository.save(User.builder()
+          .username("dealer_" + i)
+          .email("dealer_" + i + "@example.com")
+          .password("dummyPassword")
+          .userRole(UserRoleEnum.DEALER)
+          .userStatus(UserStatusEnum.ACTIVE)
+          .build());
+      productRepository.save(Product.builder()
+          .name("Dealer product " + i)
+          .price(BigDecimal.TEN)
+          .status(ProductStatus.ACTIVE)
+          .user(dealer)
+          .createdAt(OffsetDateTime.now())
+          .build());
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    Slice<ProductListingView> slice = productRepository.findListingSliceByStatus(ProductStatus.ACTIVE, PageRequest.of(0, 100, Sort.by("id")));
+
+    assertEquals(100, slice.getNumberOfElements());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testToggleStatusOfDealerProduct_FlipsOwnedProduct() {
+    int updated = productRepository.toggleStatusOfDealerProduct(product1.getId(), user.getId(), OffsetDateTime.now());
+    testEntityManager.clear();
+
+    assertEquals(1, updated);
+    assertEquals(ProductStatus.INACTIVE, productRepository.findStatusViewById(product1.getId()).orElseThrow().status());
+  }
+
+  @Test
+  void testToggleStatusOfDealerProduct_IgnoresProductOfAnotherDealer() {
+    User otherDealer = userRepository.save(buildDealer("other"));
+
+    int updated = productRepository.toggleStatusOfDealerProduct(product2.getId(), otherDealer.getId(), OffsetDateTime.now());
+    testEntityManager.clear();
+
+    assertEquals(0, updated);
+    assertEquals(ProductStatus.INACTIVE, productRepository.findStatusViewById(product2.getId()).orElseThrow().status());
+  }
+
+  @Test
+  void testFindOwnershipViewsForUpdate_FlagsProductsTheDealerOwns() {
+    Product foreign = saveForeignProduct();
+    List<Long> ids = List.of(foreign.getId(), product2.getId(), product1.getId(), -1L);
+
+    List<ProductOwnershipView> products = productRepository.findOwnershipViewsForUpdate(ids, user.getId());
+
+    assertEquals(List.of(product1.getId(), product2.getId(), foreign.getId()),
+        products.stream().map(ProductOwnershipView::id).toList());
+    assertEquals(List.of(true, true, false), products.stream().map(ProductOwnershipView::owned).toList());
+    assertEquals(product2.getStatus(), products.get(1).status());
   }
 
   @Test
-  void testCountTotalProducts() {
-    Long count = productRepository.countTotalProducts(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
-    assertEquals(2, count);
+  void testFindOwnershipViewsForUpdate_AsAdmin_OwnsEveryProduct() {
+    Product foreign = saveForeignProduct();
+
+    List<ProductOwnershipView> products = productRepository.findOwnershipViewsForUpdate(
+        List.of(product1.getId(), foreign.getId()), null);
+
+    assertEquals(List.of(true, true), products.stream().map(ProductOwnershipView::owned).toList());
+  }
+
+  @Test
+  void testUpdateStatusOfProducts_ChangesOnlyProductsNotInTheStatus() {
+    List<Long> ids = List.of(product1.getId(), product2.getId());
+
+    int updated = productRepository.updateStatusOfProducts(ids, null, ProductStatus.INACTIVE, OffsetDateTime.now());
+    testEntityManager.clear();
+
+    assertEquals(1, updated);
+    assertEquals(ProductStatus.INACTIVE, productRepository.findStatusViewById(product1.getId()).orElseThrow().status());
+    assertEquals(ProductStatus.INACTIVE, productRepository.findStatusViewById(product2.getId()).orElseThrow().status());
   }
 
   @Test
-  void testCountProductsByStatus() {
-    Long activeCount = productRepository.countProductsByStatus(ProductStatus.ACTIVE, OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
-    Long inactiveCount = productRepository.countProductsByStatus(ProductStatus.INACTIVE, OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+  void testUpdateStatusOfProducts_SkipsProductsOfOtherDealers() {
+    Product foreign = saveForeignProduct();
+
+    int updated = productRepository.updateStatusOfProducts(List.of(product1.getId(), foreign.getId()), user.getId(),
+        ProductStatus.INACTIVE, OffsetDateTime.now());
+    testEntityManager.clear();
 
-    assertEquals(1, activeCount);
-    assertEquals(1, inactiveCount);
+    assertEquals(1, updated);
+    assertEquals(ProductStatus.ACTIVE, productRepository.findStatusViewById(foreign.getId()).orElseThrow().status());
   }
 
   @Test
-  void testSumActiveProductPrices() {
-    BigDecimal totalSum = productRepository.sumActiveProductPrices(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+  void testFindIdsForStatusChange_AppliesEveryGivenCondition() {
+    Product cheap = productRepository.save(Product.builder()
+        .name("Cheap product")
+        .price(BigDecimal.ONE)
+        .status(ProductStatus.INACTIVE)
+        .user(user)
+        .build());
+    OffsetDateTime yesterday = OffsetDateTime.now().minusDays(1);
+    OffsetDateTime tomorrow = OffsetDateTime.now().plusDays(1);
 
-    assertTrue(BigDecimal.valueOf(100.00).compareTo(totalSum) == 0);
+    assertEquals(List.of(product2.getId(), cheap.getId()), productRepository.findIdsForStatusChange(ProductStatus.ACTIVE,
+        user.getId(), null, null, null, null, 0L, Limit.of(10)));
+    assertEquals(List.of(product2.getId()), productRepository.findIdsForStatusChange(ProductStatus.ACTIVE,
+        null, BigDecimal.valueOf(50), BigDecimal.valueOf(200), yesterday, tomorrow, 0L, Limit.of(10)));
+    assertEquals(List.of(cheap.getId()), productRepository.findIdsForStatusChange(ProductStatus.ACTIVE,
+        null, null, null, null, null, product2.getId(), Limit.of(10)));
+    assertTrue(productRepository.findIdsForStatusChange(ProductStatus.ACTIVE,
+        null, null, null, tomorrow, null, 0L, Limit.of(10)).isEmpty());
   }
 
   @Test
   void testFindLowestPricedProduct() {
-    List<Product> lowestPricedProducts = productRepository.findLowestPricedProduct(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+    Optional<ProductSummaryView> lowestPricedProduct = productRepository.findLowestPricedProduct(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
 
-    assertEquals(2, lowestPricedProducts.size());
-    assertEquals("Product 1", lowestPricedProducts.get(0).getName());
+    assertTrue(lowestPricedProduct.isPresent());
+    assertEquals("Product 1", lowestPricedProduct.get().name());
+    assertEquals("dummy", lowestPricedProduct.get().dealerName());
   }
 
   @Test
   void testFindHighestPricedProduct() {
-    List<Product> highestPricedProducts = productRepository.findHighestPricedProduct(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+    Optional<ProductSummaryView> highestPricedProduct = productRepository.findHighestPricedProduct(OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+
+    assertTrue(highestPricedProduct.isPresent());
+    assertEquals("Product 2", highestPricedProduct.get().name());
+    assertEquals("dummy", highestPricedProduct.get().dealerName());
+  }
+
+  @Test
+  void testFindHighestPricedProduct_EmptyRange() {
+    Optional<ProductSummaryView> highestPricedProduct = productRepository.findHighestPricedProduct(OffsetDateTime.now().minusDays(10), OffsetDateTime.now().minusDays(9));
+
+    assertTrue(highestPricedProduct.isEmpty());
+  }
 
-    assertEquals(2, highestPricedProducts.size());
-    assertEquals("Product 2", highestPricedProducts.get(0).getName());
+  private Product saveForeignProduct() {
+    User otherDealer = userRepository.save(buildDealer("other"));
+    return productRepository.save(Product.builder()
+        .name("Foreign product")
+        .price(BigDecimal.TEN)
+        .status(ProductStatus.ACTIVE)
+        .user(otherDealer)
+        .build());
+  }
+
+  private static User buildDealer(String username) {
+    return User.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("dummyPassword")
+        .userRole(UserRoleEnum.DEALER)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build();
   }
-}
\ No newline at end of file
+
+}
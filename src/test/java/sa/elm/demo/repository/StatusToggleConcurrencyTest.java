@@ -0,0 +1,158 @@
+package sa.elm.demo.repository;
+
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fires an odd number of toggles at the same row at once. Every toggle must change the row, as counted by a trigger
+ * on the table, and the row must end in the opposite status; a read-modify-write toggle would write an unchanged
+ * status as soon as two of them read the same one.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatusToggleConcurrencyTest {
+
+  private static final int TOGGLES = 33;
+  // Rows whose status an update actually changed, across all connections
+  private static final AtomicInteger STATUS_CHANGES = new AtomicInteger();
+
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private ProductRepository productRepository;
+  @Autowired
+  private DataSource dataSource;
+
+  private User dealer;
+  private Product product;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    dealer = userRepository.save(User.builder()
+        .username("concurrent_dealer")
+        .email("concurrent_dealer@example.com")
+        .password("password")
+        .userRole(UserRoleEnum.DEALER)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build());
+    product = productRepository.save(Product.builder()
+        .name("Concurrent product")
+        .price(BigDecimal.TEN)
+        .status(ProductStatus.ACTIVE)
+        .user(dealer)
+        .build());
+    STATUS_CHANGES.set(0);
+    execute("CREATE TRIGGER USERS_STATUS_CHANGES AFTER UPDATE ON USERS FOR EACH ROW CALL \"" +
+        StatusChangeCounter.class.getName() + "\"");
+    execute("CREATE TRIGGER PRODUCTS_STATUS_CHANGES AFTER UPDATE ON PRODUCTS FOR EACH ROW CALL \"" +
+        StatusChangeCounter.class.getName() + "\"");
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    execute("DROP TRIGGER USERS_STATUS_CHANGES");
+    execute("DROP TRIGGER PRODUCTS_STATUS_CHANGES");
+    productRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void testConcurrentUserToggles_LoseNoUpdates() throws Exception {
+    int updated = toggleConcurrently(() -> userRepository.toggleStatus(dealer.getId(), OffsetDateTime.now()));
+
+    assertEquals(TOGGLES, updated);
+    assertEquals(TOGGLES, STATUS_CHANGES.get());
+    assertEquals(UserStatusEnum.INACTIVE, userRepository.findStatusViewById(dealer.getId()).orElseThrow().userStatus());
+  }
+
+  @Test
+  void testConcurrentProductToggles_LoseNoUpdates() throws Exception {
+    int updated = toggleConcurrently(() ->
+        productRepository.toggleStatusOfDealerProduct(product.getId(), dealer.getId(), OffsetDateTime.now()));
+
+    assertEquals(TOGGLES, updated);
+    assertEquals(TOGGLES, STATUS_CHANGES.get());
+    assertEquals(ProductStatus.INACTIVE, productRepository.findStatusViewById(product.getId()).orElseThrow().status());
+  }
+
+  private static int toggleConcurrently(Callable<Integer> toggle) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < TOGGLES; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return toggle.call();
+        }));
+      }
+      start.countDown();
+      int updated = 0;
+      for (Future<Integer> result : results) {
+        updated += result.get();
+      }
+      return updated;
+    }
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  /**
+   * Counts the updated rows whose status differs from the one they had before the update.
+   */
+  public static class StatusChangeCounter implements Trigger {
+
+    private int statusColumn;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName, boolean before,
+                     int type) throws SQLException {
+      try (ResultSet columns = connection.getMetaData().getColumns(null, schemaName, tableName, "STATUS")) {
+        columns.next();
+        statusColumn = columns.getInt("ORDINAL_POSITION") - 1;
+      }
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) {
+      if (!Objects.equals(oldRow[statusColumn], newRow[statusColumn])) {
+        STATUS_CHANGES.incrementAndGet();
+      }
+    }
+
+  }
+
+}
@@ -1,17 +1,27 @@
 package sa.elm.demo.repository;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.UserIdentityMatch;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.models.security.UserPrincipal;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -20,6 +30,9 @@ public class UserRepositoryTest {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private TestEntityManager testEntityManager;
+
   @BeforeEach
   void setUp() {
     User user1 = User.builder()
@@ -59,46 +72,69 @@ public class UserRepositoryTest {
   }
 
   @Test
-  void testCountTotalUsersBasedOnRole() {
-    OffsetDateTime from = OffsetDateTime.now().minusDays(10);
-    OffsetDateTime to = OffsetDateTime.now().plusDays(1);
+  void testFindPrincipalById() {
+    User user = userRepository.findByUsername("dummy2").orElseThrow();
 
-    Long clientCount = userRepository.countTotalUsersBasedOnRole(UserRoleEnum.CLIENT, from, to);
-    Long dealerCount = userRepository.countTotalUsersBasedOnRole(UserRoleEnum.DEALER, from, to);
+    Optional<UserPrincipal> principal = userRepository.findPrincipalById(user.getId());
 
-    assertEquals(1, clientCount);
-    assertEquals(1, dealerCount);
+    assertTrue(principal.isPresent());
+    assertEquals("dummy2", principal.get().username());
+    assertEquals(UserRoleEnum.DEALER, principal.get().role());
+    assertEquals(UserStatusEnum.INACTIVE, principal.get().status());
   }
 
   @Test
-  void testCountTotalUsersBasedOnRoleAndStatus() {
-    OffsetDateTime from = OffsetDateTime.now().minusDays(10);
-    OffsetDateTime to = OffsetDateTime.now().plusDays(1);
+  void testCountIdentityMatches() {
+    assertEquals(new UserIdentityMatch(1L, 0L), userRepository.countIdentityMatches("dummy1@example.com", "new_name"));
+    assertEquals(new UserIdentityMatch(0L, 1L), userRepository.countIdentityMatches("new@example.com", "dummy2"));
+    assertEquals(new UserIdentityMatch(1L, 1L), userRepository.countIdentityMatches("dummy1@example.com", "dummy2"));
+    assertEquals(new UserIdentityMatch(0L, 0L), userRepository.countIdentityMatches("new@example.com", "new_name"));
+  }
+
+  @Test
+  void testFindIdentitiesAfter_PagesInIdOrder() {
+    User first = userRepository.findByUsername("dummy1").orElseThrow();
+
+    List<UserIdentityView> firstPage = userRepository.findIdentitiesAfter(first.getId() - 1, Limit.of(1));
+    List<UserIdentityView> secondPage = userRepository.findIdentitiesAfter(firstPage.get(0).id(), Limit.of(1));
+
+    assertEquals(new UserIdentityView(first.getId(), "dummy1", "dummy1@example.com"), firstPage.get(0));
+    assertEquals("dummy2", secondPage.get(0).username());
+  }
 
-    Long activeClientCount = userRepository.countTotalUsersBasedOnRoleAndStatus(UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE, from, to);
-    Long inactiveDealerCount = userRepository.countTotalUsersBasedOnRoleAndStatus(UserRoleEnum.DEALER, UserStatusEnum.INACTIVE, from, to);
+  @Test
+  void testFindTakenIdentities_MatchesEitherKey() {
+    List<UserIdentityView> taken = userRepository.findTakenIdentities(List.of("dummy1", "nobody"),
+        List.of("dummy2@example.com", "nobody@example.com"));
 
-    assertEquals(1, activeClientCount);
-    assertEquals(1, inactiveDealerCount);
+    assertEquals(List.of("dummy1", "dummy2"), taken.stream().map(UserIdentityView::username).sorted().toList());
   }
 
   @Test
-  void testCountDealersWithNoProducts() {
-    OffsetDateTime from = OffsetDateTime.now().minusDays(10);
-    OffsetDateTime to = OffsetDateTime.now().plusDays(1);
+  void testSave_DuplicateUsername_ViolatesTheNamedConstraint() {
+    User duplicate = User.builder()
+        .username("dummy1")
+        .email("other@example.com")
+        .password("password")
+        .userRole(UserRoleEnum.CLIENT)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build();
 
-    long dealerNoProductsCount = userRepository.countDealersWithNoProducts(from, to);
+    DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class,
+        () -> userRepository.saveAndFlush(duplicate));
 
-    assertEquals(1, dealerNoProductsCount);
+    ConstraintViolationException violation = assertInstanceOf(ConstraintViolationException.class, exception.getCause());
+    assertTrue(violation.getConstraintName().toUpperCase().contains(User.USERNAME_CONSTRAINT));
   }
 
   @Test
-  void testCountDealersWithProducts() {
-    OffsetDateTime from = OffsetDateTime.now().minusDays(10);
-    OffsetDateTime to = OffsetDateTime.now().plusDays(1);
+  void testReplacePasswordHash_OnlyReplacesTheVerifiedHash() {
+    User user = userRepository.findByUsername("dummy1").orElseThrow();
 
-    long dealerWithProductsCount = userRepository.countDealersWithProducts(from, to);
+    assertEquals(0, userRepository.replacePasswordHash(user.getId(), "stale", "rehashed"));
+    assertEquals(1, userRepository.replacePasswordHash(user.getId(), "password", "rehashed"));
+    testEntityManager.clear();
 
-    assertEquals(0, dealerWithProductsCount);
+    assertEquals("rehashed", userRepository.findByUsername("dummy1").orElseThrow().getPassword());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package sa.elm.demo.security.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.security.UserPrincipal;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrincipalCacheTest {
+
+  private PrincipalCache principalCache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    principalCache = new PrincipalCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void testGet_LoadsOncePerUser() {
+    principalCache.get(1L, loader(UserStatusEnum.ACTIVE));
+    UserPrincipal principal = principalCache.get(1L, loader(UserStatusEnum.ACTIVE));
+
+    assertEquals(1, loads.get());
+    assertEquals(UserStatusEnum.ACTIVE, principal.status());
+  }
+
+  @Test
+  void testInvalidate_ReloadsMutatedUser() {
+    principalCache.get(1L, loader(UserStatusEnum.ACTIVE));
+
+    principalCache.invalidate(1L);
+    UserPrincipal principal = principalCache.get(1L, loader(UserStatusEnum.INACTIVE));
+
+    assertEquals(2, loads.get());
+    assertEquals(UserStatusEnum.INACTIVE, principal.status());
+  }
+
+  @Test
+  void testGet_LoadRunsOutsideTheCacheLock() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<UserPrincipal> slowGet = CompletableFuture.supplyAsync(() -> principalCache.get(1L, id -> {
+      loading.countDown();
+      awaitUninterruptibly(release);
+      return new UserPrincipal(id, "dummy", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE);
+    }));
+    assertTrue(loading.await(1, TimeUnit.SECONDS));
+
+    try {
+      // Would wait for the slow load if it held the entry's lock
+      UserPrincipal principal = CompletableFuture.supplyAsync(() -> principalCache.get(1L, loader(UserStatusEnum.INACTIVE)))
+          .get(1, TimeUnit.SECONDS);
+      assertEquals(UserStatusEnum.INACTIVE, principal.status());
+    } finally {
+      release.countDown();
+    }
+    slowGet.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testGet_InvalidatedDuringLoad_IsNotKept() {
+    principalCache.get(1L, id -> {
+      principalCache.invalidate(id);
+      return new UserPrincipal(id, "dummy", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE);
+    });
+
+    UserPrincipal principal = principalCache.get(1L, loader(UserStatusEnum.INACTIVE));
+
+    assertEquals(1, loads.get());
+    assertEquals(UserStatusEnum.INACTIVE, principal.status());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Function<Long, UserPrincipal> loader(UserStatusEnum status) {
+    return id -> {
+      loads.incrementAndGet();
+      return new UserPrincipal(id, "dummy", UserRoleEnum.DEALER, status);
+    };
+  }
+
+}
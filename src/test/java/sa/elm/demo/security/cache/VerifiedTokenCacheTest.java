@@ -0,0 +1,112 @@
+package sa.elm.demo.security.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.exception.InvalidJWTException;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.security.VerifiedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+  private VerifiedTokenCache verifiedTokenCache;
+  private AtomicInteger verifications;
+
+  @BeforeEach
+  void setUp() {
+    verifiedTokenCache = new VerifiedTokenCache(2, Duration.ofMinutes(15), new SimpleMeterRegistry());
+    verifications = new AtomicInteger();
+  }
+
+  @Test
+  void testGet_SecondLookupIsServedFromCache() {
+    VerifiedToken first = verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    VerifiedToken second = verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+
+    assertSame(first, second);
+    assertEquals(1, verifications.get());
+    assertEquals(1, verifiedTokenCache.stats().hitCount());
+    assertEquals(1, verifiedTokenCache.stats().missCount());
+  }
+
+  @Test
+  void testGet_ExpiredTokenIsVerifiedAgain() {
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().minusSeconds(1)));
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().minusSeconds(1)));
+
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void testGet_FailedVerificationIsNotCached() {
+    Function<String, VerifiedToken> failingVerifier = token -> {
+      verifications.incrementAndGet();
+      throw new InvalidJWTException("Invalid JWT signature");
+    };
+
+    assertThrows(InvalidJWTException.class, () -> verifiedTokenCache.get("token_1", failingVerifier));
+    assertThrows(InvalidJWTException.class, () -> verifiedTokenCache.get("token_1", failingVerifier));
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void testInvalidateSubject_OnlyEvictsThatSubject() {
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_2", verifier("2", Instant.now().plusSeconds(60)));
+
+    verifiedTokenCache.invalidateSubject("1");
+
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_2", verifier("2", Instant.now().plusSeconds(60)));
+    assertEquals(3, verifications.get());
+  }
+
+  @Test
+  void testInvalidateSubject_DuringVerification_IsNotCached() {
+    verifiedTokenCache.get("token_1", token -> {
+      verifications.incrementAndGet();
+      verifiedTokenCache.invalidateSubject("1");
+      return new VerifiedToken("1", UserRoleEnum.CLIENT, "dummy", Instant.now().plusSeconds(60));
+    });
+
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void testInvalidateSubject_TokenVerifiedAfterwardsIsCachedAgain() {
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+
+    verifiedTokenCache.invalidateSubject("1");
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void testGet_SizeBoundEvictsEntries() {
+    verifiedTokenCache.get("token_1", verifier("1", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_2", verifier("2", Instant.now().plusSeconds(60)));
+    verifiedTokenCache.get("token_3", verifier("3", Instant.now().plusSeconds(60)));
+
+    assertTrue(verifiedTokenCache.stats().evictionCount() >= 1);
+  }
+
+  private Function<String, VerifiedToken> verifier(String subject, Instant expiresAt) {
+    return token -> {
+      verifications.incrementAndGet();
+      return new VerifiedToken(subject, UserRoleEnum.CLIENT, "dummy", expiresAt);
+    };
+  }
+
+}
@@ -0,0 +1,106 @@
+package sa.elm.demo.security.filters;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.models.security.UserPrincipal;
+import sa.elm.demo.models.security.VerifiedToken;
+import sa.elm.demo.security.cache.VerifiedTokenCache;
+import sa.elm.demo.security.revocation.DeactivatedUserDenyList;
+import sa.elm.demo.service.UsersService;
+import sa.elm.demo.util.JwtUtil;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+  @Mock
+  private UsersService usersService;
+
+  @Mock
+  private JwtUtil jwtUtil;
+
+  @Mock
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Mock
+  private DeactivatedUserDenyList deactivatedUserDenyList;
+
+  @Mock
+  private FilterChain filterChain;
+
+  @InjectMocks
+  private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+  private MockHttpServletRequest request;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    SecurityContextHolder.clearContext();
+    request = new MockHttpServletRequest();
+    request.addHeader(JwtAuthenticationFilter.AUTHORIZATION_HEADER, "Bearer dummy_token");
+    VerifiedToken verifiedToken = new VerifiedToken("2", UserRoleEnum.DEALER, "dealer_user", Instant.now().plusSeconds(60));
+    when(verifiedTokenCache.get(eq("dummy_token"), any())).thenReturn(verifiedToken);
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testDoFilter_LoadsPrincipalByDefault() throws Exception {
+    when(usersService.findPrincipalById(2L)).thenReturn(new UserPrincipal(2L, "dealer_user", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+
+    jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    assertEquals(2L, ((SecurityUser) authentication.getPrincipal()).getId());
+    verify(usersService, times(1)).findPrincipalById(2L);
+  }
+
+  @Test
+  void testDoFilter_StatelessPrincipalSkipsUserLookup() throws Exception {
+    ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", true);
+
+    jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    assertEquals(2L, ((SecurityUser) authentication.getPrincipal()).getId());
+    assertTrue(authentication.getAuthorities().stream().anyMatch(authority -> "DEALER".equals(authority.getAuthority())));
+    verify(usersService, never()).findPrincipalById(anyLong());
+    verify(filterChain, times(1)).doFilter(any(), any());
+  }
+
+  @Test
+  void testDoFilter_StatelessPrincipalRejectsDeactivatedUser() throws Exception {
+    ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessPrincipal", true);
+    when(deactivatedUserDenyList.isDenied(2L)).thenReturn(true);
+
+    jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+    verify(usersService, never()).findPrincipalById(anyLong());
+    verify(filterChain, times(1)).doFilter(any(), any());
+  }
+
+}
@@ -0,0 +1,140 @@
+package sa.elm.demo.security.hashing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sa.elm.demo.exception.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+  private BoundedPasswordEncoder boundedPasswordEncoder;
+
+  @AfterEach
+  void tearDown() {
+    boundedPasswordEncoder.close();
+  }
+
+  @Test
+  void testEncodeAndMatches_RunOnTheHashingPool() {
+    boundedPasswordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, Duration.ofSeconds(5),
+        new SimpleMeterRegistry());
+
+    String hash = boundedPasswordEncoder.encode("password");
+
+    assertTrue(boundedPasswordEncoder.matches("password", hash));
+    assertFalse(boundedPasswordEncoder.matches("wrong", hash));
+  }
+
+  @Test
+  void testUpgradeEncoding_WhenTheStoredCostIsLower() {
+    boundedPasswordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1, Duration.ofSeconds(5),
+        new SimpleMeterRegistry());
+
+    assertTrue(boundedPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+    assertFalse(boundedPasswordEncoder.upgradeEncoding(boundedPasswordEncoder.encode("password")));
+  }
+
+  @Test
+  void testEncode_WhenPoolAndQueueAreFull_RejectsAtOnce() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+    when(slowEncoder.encode(any())).thenAnswer(invocation -> {
+      release.await();
+      return "hash";
+    });
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    boundedPasswordEncoder = new BoundedPasswordEncoder(slowEncoder, 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("first"));
+    verify(slowEncoder, timeout(1000)).encode("first");
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("second"));
+    awaitQueued(meterRegistry, 1);
+
+    try {
+      assertThrows(PasswordHashingBusyException.class, () -> boundedPasswordEncoder.matches("third", "hash"));
+    } finally {
+      release.countDown();
+    }
+    assertEquals("hash", running.get(1, TimeUnit.SECONDS));
+    assertEquals("hash", queued.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testEncode_WaitingLongerThanTheTimeout_IsRejected() {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+    when(slowEncoder.encode(anyString())).thenAnswer(invocation -> {
+      release.await();
+      return "hash";
+    });
+    boundedPasswordEncoder = new BoundedPasswordEncoder(slowEncoder, 1, 1, Duration.ofMillis(50), new SimpleMeterRegistry());
+
+    try {
+      assertThrows(PasswordHashingBusyException.class, () -> boundedPasswordEncoder.encode("password"));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void testMatches_RethrowsTheEncodersOwnException() {
+    PasswordEncoder failingEncoder = mock(PasswordEncoder.class);
+    when(failingEncoder.matches(any(), any())).thenThrow(new IllegalArgumentException("rawPassword cannot be null"));
+    boundedPasswordEncoder = new BoundedPasswordEncoder(failingEncoder, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+    assertThrows(IllegalArgumentException.class, () -> boundedPasswordEncoder.matches(null, "hash"));
+  }
+
+  @Test
+  void testEncodeAll_KeepsAtMostPoolSizeInFlight() {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    PasswordEncoder trackingEncoder = mock(PasswordEncoder.class);
+    when(trackingEncoder.encode(any())).thenAnswer(invocation -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      Thread.sleep(5);
+      inFlight.decrementAndGet();
+      return "hashed_" + invocation.getArgument(0);
+    });
+    // A queue of poolSize would reject the batch if it ever had more than poolSize hashes waiting; a smaller one can
+    // reject a hash submitted after its predecessor completed but before the worker that ran it polls again
+    boundedPasswordEncoder = new BoundedPasswordEncoder(trackingEncoder, 2, 2, Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+    List<String> hashes = boundedPasswordEncoder.encodeAll(List.of("a", "b", "c", "d", "e", "f"));
+
+    assertEquals(List.of("hashed_a", "hashed_b", "hashed_c", "hashed_d", "hashed_e", "hashed_f"), hashes);
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  void testEncodeAll_FailsAsAWhole() {
+    PasswordEncoder failingEncoder = mock(PasswordEncoder.class);
+    when(failingEncoder.encode(any())).thenReturn("hash");
+    when(failingEncoder.encode("bad")).thenThrow(new IllegalArgumentException("bad password"));
+    boundedPasswordEncoder = new BoundedPasswordEncoder(failingEncoder, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+    assertThrows(IllegalArgumentException.class, () -> boundedPasswordEncoder.encodeAll(List.of("good", "bad", "good")));
+  }
+
+  private static void awaitQueued(SimpleMeterRegistry meterRegistry, int queued) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (meterRegistry.get("executor.queued").gauge().value() < queued && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+
+}
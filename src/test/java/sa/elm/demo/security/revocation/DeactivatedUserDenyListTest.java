@@ -0,0 +1,96 @@
+package sa.elm.demo.security.revocation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class DeactivatedUserDenyListTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @InjectMocks
+  private DeactivatedUserDenyList deactivatedUserDenyList;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(userRepository.findIdsByStatus(UserStatusEnum.INACTIVE)).thenReturn(List.of(7L, 3L));
+    deactivatedUserDenyList.reload();
+  }
+
+  @Test
+  void testReload_DeniesInactiveUsers() {
+    assertTrue(deactivatedUserDenyList.isDenied(3L));
+    assertTrue(deactivatedUserDenyList.isDenied(7L));
+    assertFalse(deactivatedUserDenyList.isDenied(5L));
+  }
+
+  @Test
+  void testDenyAndAllow_ShouldSuccess() {
+    deactivatedUserDenyList.deny(5L);
+    deactivatedUserDenyList.deny(5L);
+    assertTrue(deactivatedUserDenyList.isDenied(5L));
+
+    deactivatedUserDenyList.allow(3L);
+    assertFalse(deactivatedUserDenyList.isDenied(3L));
+    assertTrue(deactivatedUserDenyList.isDenied(5L));
+    assertTrue(deactivatedUserDenyList.isDenied(7L));
+  }
+
+  @Test
+  void testReload_KeepsChangesMadeWhileItsQueryRan() throws Exception {
+    CountDownLatch querying = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    // The snapshot predates both changes: 5 was still active and 3 still inactive
+    when(userRepository.findIdsByStatus(UserStatusEnum.INACTIVE)).thenAnswer(invocation -> {
+      querying.countDown();
+      awaitUninterruptibly(release);
+      return List.of(7L, 3L);
+    });
+    CompletableFuture<Void> reload = CompletableFuture.runAsync(deactivatedUserDenyList::reload);
+    assertTrue(querying.await(1, TimeUnit.SECONDS));
+
+    deactivatedUserDenyList.deny(5L);
+    deactivatedUserDenyList.allow(3L);
+    release.countDown();
+    reload.get(1, TimeUnit.SECONDS);
+
+    assertTrue(deactivatedUserDenyList.isDenied(5L));
+    assertFalse(deactivatedUserDenyList.isDenied(3L));
+    assertTrue(deactivatedUserDenyList.isDenied(7L));
+  }
+
+  @Test
+  void testReload_ChangesMadeBeforeItsQuery_GiveWayToTheSnapshot() {
+    deactivatedUserDenyList.deny(5L);
+    // Reactivated on another instance after the local deactivation
+    when(userRepository.findIdsByStatus(UserStatusEnum.INACTIVE)).thenReturn(List.of(7L, 3L));
+
+    deactivatedUserDenyList.reload();
+
+    assertFalse(deactivatedUserDenyList.isDenied(5L));
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package sa.elm.demo.security.throttle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.exception.TooManyLoginAttemptsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailedLoginTrackerTest {
+
+  private static final Duration WINDOW = Duration.ofMinutes(10);
+
+  private AtomicLong clock;
+  private SimpleMeterRegistry meterRegistry;
+  private FailedLoginTracker failedLoginTracker;
+
+  @BeforeEach
+  void setUp() {
+    clock = new AtomicLong();
+    meterRegistry = new SimpleMeterRegistry();
+    failedLoginTracker = new FailedLoginTracker(3, 5, WINDOW, 1000, 4, meterRegistry, clock::get);
+  }
+
+  @Test
+  void testCheckAllowed_UsernameRejectedAfterMaxFailures() {
+    fail("alice", "198.51.100.1", 2);
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("alice", "198.51.100.1"));
+
+    fail("alice", "198.51.100.2", 1);
+
+    assertThrows(TooManyLoginAttemptsException.class, () -> failedLoginTracker.checkAllowed("alice", "198.51.100.3"));
+    assertThrows(TooManyLoginAttemptsException.class, () -> failedLoginTracker.checkAllowed("ALICE", null));
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("bob", "198.51.100.1"));
+    assertEquals(2, meterRegistry.get("login.rejections").tag("key", "username").counter().count());
+  }
+
+  @Test
+  void testCheckAllowed_ClientRejectedAcrossUsernames() {
+    for (int i = 0; i < 5; i++) {
+      failedLoginTracker.recordFailure("user" + i, "198.51.100.1");
+    }
+
+    assertThrows(TooManyLoginAttemptsException.class, () -> failedLoginTracker.checkAllowed("someone", "198.51.100.1"));
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("someone", "198.51.100.2"));
+    assertEquals(5, meterRegistry.get("login.failures").tag("key", "client").counter().count());
+  }
+
+  @Test
+  void testCheckAllowed_FailuresLeakAwayOverTheWindow() {
+    fail("alice", null, 3);
+
+    // Three failures per window leak one every third of it
+    clock.addAndGet(WINDOW.toNanos() / 3);
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("alice", null));
+
+    fail("alice", null, 1);
+    assertThrows(TooManyLoginAttemptsException.class, () -> failedLoginTracker.checkAllowed("alice", null));
+
+    clock.addAndGet(WINDOW.toNanos());
+    fail("alice", null, 2);
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("alice", null));
+  }
+
+  @Test
+  void testRecordSuccess_ForgivesTheUsernameButNotTheClient() {
+    fail("alice", "198.51.100.1", 3);
+    fail("bob", "198.51.100.1", 2);
+
+    failedLoginTracker.recordSuccess("alice");
+
+    assertDoesNotThrow(() -> failedLoginTracker.checkAllowed("alice", null));
+    assertThrows(TooManyLoginAttemptsException.class, () -> failedLoginTracker.checkAllowed("alice", "198.51.100.1"));
+  }
+
+  @Test
+  void testRecordFailure_OldestKeysEvictedWhenStripeIsFull() {
+    FailedLoginTracker smallTracker = new FailedLoginTracker(1, 100, WINDOW, 1, 1, meterRegistry, clock::get);
+
+    smallTracker.recordFailure("alice", null);
+    assertThrows(TooManyLoginAttemptsException.class, () -> smallTracker.checkAllowed("alice", null));
+    smallTracker.recordFailure("bob", null);
+
+    assertDoesNotThrow(() -> smallTracker.checkAllowed("alice", null));
+  }
+
+  @Test
+  void testRecordFailure_ConcurrentFailuresAreAllCounted() {
+    FailedLoginTracker concurrentTracker = new FailedLoginTracker(800, 800, WINDOW, 1000, 4, meterRegistry, clock::get);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 100; j++) {
+          concurrentTracker.recordFailure("alice", null);
+        }
+      }));
+    }
+    futures.forEach(CompletableFuture::join);
+
+    assertThrows(TooManyLoginAttemptsException.class, () -> concurrentTracker.checkAllowed("alice", null));
+    concurrentTracker.recordSuccess("alice");
+    for (int j = 0; j < 799; j++) {
+      concurrentTracker.recordFailure("alice", null);
+    }
+    assertDoesNotThrow(() -> concurrentTracker.checkAllowed("alice", null));
+  }
+
+  private void fail(String username, String clientAddress, int times) {
+    for (int i = 0; i < times; i++) {
+      failedLoginTracker.recordFailure(username, clientAddress);
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+package sa.elm.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.models.ProductBulkCreationError;
+import sa.elm.models.ProductBulkCreationItem;
+import sa.elm.models.ProductBulkCreationResponse;
+import sa.elm.models.ProductCreationRequest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductBulkImportServiceTest {
+
+  private static final int CHUNK_SIZE = 3;
+
+  private ValidatorFactory validatorFactory;
+  private ProductsService productsService;
+  private ProductBulkImportService productBulkImportService;
+  private final List<List<ProductCreationRequest>> storedChunks = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    productsService = mock(ProductsService.class);
+    when(productsService.addNewProducts(anyList())).thenAnswer(invocation -> {
+      List<ProductCreationRequest> chunk = invocation.getArgument(0);
+      storedChunks.add(chunk);
+      return chunk.stream().map(request -> new Product()).toList();
+    });
+    productBulkImportService = new ProductBulkImportService(productsService, validatorFactory.getValidator(),
+        new ObjectMapper(), CHUNK_SIZE);
+  }
+
+  @AfterEach
+  void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Test
+  void testImportProducts_StoresValidItemsInChunks() {
+    List<ProductBulkCreationItem> items = IntStream.range(0, 7)
+        .mapToObj(i -> item("Product " + i, BigDecimal.valueOf(i + 1)))
+        .toList();
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(items);
+
+    assertEquals(7L, response.getCreated());
+    assertEquals(0L, response.getRejected());
+    assertTrue(response.getErrors().isEmpty());
+    assertEquals(List.of(3, 3, 1), storedChunks.stream().map(List::size).toList());
+  }
+
+  @Test
+  void testImportProducts_ReportsInvalidItemsByIndex() {
+    List<ProductBulkCreationItem> items = List.of(
+        item("Valid", BigDecimal.TEN),
+        item("", BigDecimal.TEN),
+        item("Negative", BigDecimal.valueOf(-1)),
+        item(null, null));
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(items);
+
+    assertEquals(1L, response.getCreated());
+    assertEquals(3L, response.getRejected());
+    assertEquals(List.of(1L, 2L, 3L), response.getErrors().stream().map(ProductBulkCreationError::getIndex).toList());
+    assertTrue(response.getErrors().get(0).getMessage().startsWith("name: "));
+    assertTrue(response.getErrors().get(1).getMessage().startsWith("price: "));
+    assertTrue(response.getErrors().get(2).getMessage().contains("name: ") && response.getErrors().get(2).getMessage().contains("price: "));
+    assertEquals("Valid", storedChunks.get(0).get(0).getName());
+  }
+
+  @Test
+  void testImportProducts_RejectsNullItems() {
+    List<ProductBulkCreationItem> items = new ArrayList<>();
+    items.add(item("Valid", BigDecimal.TEN));
+    items.add(null);
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(items);
+
+    assertEquals(1L, response.getCreated());
+    assertEquals(1L, response.getRejected());
+    assertEquals(1L, response.getErrors().get(0).getIndex());
+    assertEquals("Item must not be null", response.getErrors().get(0).getMessage());
+  }
+
+  @Test
+  void testImportProducts_CapsReportedErrors() {
+    List<ProductBulkCreationItem> items = IntStream.range(0, ProductBulkImportService.MAX_REPORTED_ERRORS + 5)
+        .mapToObj(i -> item(null, BigDecimal.ONE))
+        .toList();
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(items);
+
+    assertEquals(0L, response.getCreated());
+    assertEquals(ProductBulkImportService.MAX_REPORTED_ERRORS + 5L, response.getRejected());
+    assertEquals(ProductBulkImportService.MAX_REPORTED_ERRORS, response.getErrors().size());
+    verify(productsService, never()).addNewProducts(anyList());
+  }
+
+  @Test
+  void testImportNdjson_NumbersItemsByLine() {
+    String ndjson = """
+        {"name": "Product A", "price": 10}
+
+        {"name": "Product B", "price":
+        {"name": "Product C", "price": 99999999999}
+        {"name": "Product D", "price": 5.5}
+        """;
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(
+        new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(2L, response.getCreated());
+    assertEquals(2L, response.getRejected());
+    assertEquals(2L, response.getErrors().get(0).getIndex());
+    assertTrue(response.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+    assertEquals(3L, response.getErrors().get(1).getIndex());
+    assertTrue(response.getErrors().get(1).getMessage().startsWith("price: "));
+    assertEquals(List.of("Product A", "Product D"),
+        storedChunks.get(0).stream().map(ProductCreationRequest::getName).toList());
+  }
+
+  @Test
+  void testImportNdjson_RejectsNullLines() {
+    String ndjson = """
+        null
+        {"name": "Product A", "price": 10}
+        """;
+
+    ProductBulkCreationResponse response = productBulkImportService.importProducts(
+        new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(1L, response.getCreated());
+    assertEquals(1L, response.getRejected());
+    assertEquals(0L, response.getErrors().get(0).getIndex());
+    assertEquals("Item must not be null", response.getErrors().get(0).getMessage());
+  }
+
+  private static ProductBulkCreationItem item(String name, BigDecimal price) {
+    return ProductBulkCreationItem.builder().name(name).price(price).build();
+  }
+
+}
@@ -0,0 +1,89 @@
+package sa.elm.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.exception.InvalidBulkRequestException;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.models.ProductBulkStatusChangeRequest;
+import sa.elm.models.ProductBulkStatusChangeResponse;
+import sa.elm.models.ProductStatusChangeFilter;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductBulkStatusServiceTest {
+
+  private static final int CHUNK_SIZE = 2;
+
+  private ProductsService productsService;
+  private ProductBulkStatusService productBulkStatusService;
+
+  @BeforeEach
+  void setUp() {
+    productsService = mock(ProductsService.class);
+    when(productsService.changeProductStatuses(anyCollection(), any(ProductStatus.class))).thenAnswer(invocation -> {
+      Collection<Long> ids = invocation.getArgument(0);
+      return ProductBulkStatusChangeResponse.builder()
+          .changed((long) ids.size() - 1).unchanged(0L).notOwned(1L).notFound(0L).build();
+    });
+    productBulkStatusService = new ProductBulkStatusService(productsService, CHUNK_SIZE);
+  }
+
+  @Test
+  void testChangeProductStatuses_ChunksDistinctIdsAndSumsCounts() {
+    ProductBulkStatusChangeRequest request = ProductBulkStatusChangeRequest.builder()
+        .status(ProductBulkStatusChangeRequest.StatusEnum.INACTIVE)
+        .ids(List.of(1L, 2L, 2L, 3L, 4L, 5L))
+        .build();
+
+    ProductBulkStatusChangeResponse response = productBulkStatusService.changeProductStatuses(request);
+
+    verify(productsService).changeProductStatuses(List.of(1L, 2L), ProductStatus.INACTIVE);
+    verify(productsService).changeProductStatuses(List.of(3L, 4L), ProductStatus.INACTIVE);
+    verify(productsService).changeProductStatuses(List.of(5L), ProductStatus.INACTIVE);
+    assertEquals(2L, response.getChanged());
+    assertEquals(3L, response.getNotOwned());
+    assertEquals(0L, response.getNotFound());
+  }
+
+  @Test
+  void testChangeProductStatuses_PagesThroughFilterMatches() {
+    ProductStatusChangeFilter filter = ProductStatusChangeFilter.builder().dealerId(2L).build();
+    when(productsService.findIdsForStatusChange(filter, ProductStatus.ACTIVE, 0L, CHUNK_SIZE)).thenReturn(List.of(3L, 7L));
+    when(productsService.findIdsForStatusChange(filter, ProductStatus.ACTIVE, 7L, CHUNK_SIZE)).thenReturn(List.of(9L));
+
+    productBulkStatusService.changeProductStatuses(ProductBulkStatusChangeRequest.builder()
+        .status(ProductBulkStatusChangeRequest.StatusEnum.ACTIVE)
+        .filter(filter)
+        .build());
+
+    verify(productsService).changeProductStatuses(List.of(3L, 7L), ProductStatus.ACTIVE);
+    verify(productsService).changeProductStatuses(List.of(9L), ProductStatus.ACTIVE);
+    // A short page is the last one
+    verify(productsService, times(2)).findIdsForStatusChange(any(), any(), anyLong(), anyInt());
+  }
+
+  @Test
+  void testChangeProductStatuses_RejectsBothIdsAndFilter() {
+    ProductBulkStatusChangeRequest request = ProductBulkStatusChangeRequest.builder()
+        .status(ProductBulkStatusChangeRequest.StatusEnum.ACTIVE)
+        .ids(List.of(1L))
+        .filter(ProductStatusChangeFilter.builder().build())
+        .build();
+
+    assertThrows(InvalidBulkRequestException.class, () -> productBulkStatusService.changeProductStatuses(request));
+    verifyNoInteractions(productsService);
+  }
+
+  @Test
+  void testChangeProductStatuses_RejectsMissingStatus() {
+    ProductBulkStatusChangeRequest request = ProductBulkStatusChangeRequest.builder().ids(List.of(1L)).build();
+
+    assertThrows(InvalidBulkRequestException.class, () -> productBulkStatusService.changeProductStatuses(request));
+  }
+
+}
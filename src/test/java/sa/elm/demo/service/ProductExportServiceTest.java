@@ -0,0 +1,142 @@
+package sa.elm.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.models.ProductExportFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(ProductExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductExportServiceTest {
+
+  @Autowired
+  private ProductExportService productExportService;
+  @Autowired
+  private ProductRepository productRepository;
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private TestEntityManager testEntityManager;
+
+  private Product plain;
+  private Product quoted;
+
+  @BeforeEach
+  void setUp() {
+    User dealer = userRepository.save(User.builder()
+        .username("export_dealer")
+        .email("export_dealer@example.com")
+        .password("password")
+        .userRole(UserRoleEnum.DEALER)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build());
+    plain = productRepository.save(buildProduct("Plain product", "12.50", ProductStatus.ACTIVE, dealer));
+    quoted = productRepository.save(buildProduct("Chair, \"oak\"", "99.99", ProductStatus.INACTIVE, dealer));
+    testEntityManager.flush();
+    testEntityManager.clear();
+  }
+
+  @Test
+  void testExportNdjson_WritesOneObjectPerLineInIdOrder() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    long exported = productExportService.export(ProductExportFormat.NDJSON, outputStream);
+
+    String body = outputStream.toString(StandardCharsets.UTF_8);
+    List<String> lines = body.lines().toList();
+    assertEquals(2, exported);
+    assertEquals(2, lines.size());
+    assertTrue(body.endsWith("\n"));
+    JsonNode first = objectMapper.readTree(lines.get(0));
+    JsonNode second = objectMapper.readTree(lines.get(1));
+    assertEquals(plain.getId(), first.get("id").asLong());
+    assertEquals("export_dealer", first.get("dealerName").asText());
+    assertEquals(0, new BigDecimal("12.50").compareTo(first.get("price").decimalValue()));
+    assertEquals("Chair, \"oak\"", second.get("name").asText());
+    assertEquals("INACTIVE", second.get("status").asText());
+  }
+
+  @Test
+  void testExportCsv_WritesHeaderAndQuotesSpecialCharacters() throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    long exported = productExportService.export(ProductExportFormat.CSV, outputStream);
+
+    List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+    assertEquals(2, exported);
+    assertEquals(ProductExportService.CSV_HEADER, lines.get(0));
+    assertTrue(lines.get(1).startsWith(plain.getId() + ",Plain product,export_dealer,12.50,ACTIVE,"));
+    assertTrue(lines.get(2).startsWith(quoted.getId() + ",\"Chair, \"\"oak\"\"\",export_dealer,99.99,INACTIVE,"));
+  }
+
+  @Test
+  void testExport_ReadsProjectionsWithOneStatement() throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    productExportService.export(ProductExportFormat.NDJSON, new ByteArrayOutputStream());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void testExport_EmptyCatalogue() throws Exception {
+    productRepository.deleteAll();
+    ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+    assertEquals(0, productExportService.export(ProductExportFormat.NDJSON, ndjson));
+    assertEquals(0, productExportService.export(ProductExportFormat.CSV, csv));
+    assertEquals(0, ndjson.size());
+    assertEquals(ProductExportService.CSV_HEADER + "\n", csv.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testCsvField() {
+    assertEquals("", ProductExportService.csvField(null));
+    assertEquals("plain", ProductExportService.csvField("plain"));
+    assertEquals("\"a,b\"", ProductExportService.csvField("a,b"));
+    assertEquals("\"line\nbreak\"", ProductExportService.csvField("line\nbreak"));
+    assertEquals("\"say \"\"hi\"\"\"", ProductExportService.csvField("say \"hi\""));
+  }
+
+  private static Product buildProduct(String name, String price, ProductStatus status, User dealer) {
+    return Product.builder()
+        .name(name)
+        .price(new BigDecimal(price))
+        .status(status)
+        .user(dealer)
+        .build();
+  }
+
+}
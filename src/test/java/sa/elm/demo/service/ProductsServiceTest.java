@@ -1,35 +1,53 @@
 package sa.elm.demo.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import sa.elm.demo.exception.InvalidCursorException;
 import sa.elm.demo.exception.NotAuthorizedToChangeStatusOfProduct;
 import sa.elm.demo.exception.ProductNotFoundException;
 import sa.elm.demo.mapper.ProductEntityToProductResponseMapper;
 import sa.elm.demo.models.entity.Product;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.ProductStatus;
-import sa.elm.demo.models.entity.enums.UserRoleEnum;
-import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.ProductListingView;
+import sa.elm.demo.models.projection.ProductOwnershipView;
+import sa.elm.demo.models.projection.ProductStatusView;
 import sa.elm.demo.models.security.SecurityUser;
 import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.service.cache.ActiveCatalogueCache;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.CataloguePage;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.PageKey;
+import sa.elm.demo.service.cache.CatalogueChangedEvent;
+import sa.elm.demo.service.cache.ProductCountCache;
+import sa.elm.demo.service.cache.StatisticsDataChangedEvent;
+import sa.elm.demo.service.cache.StatisticsResponseCache;
+import sa.elm.demo.util.ProductCursor;
+import sa.elm.models.ProductBulkStatusChangeResponse;
 import sa.elm.models.ProductCreationRequest;
+import sa.elm.models.ProductStatusChangeFilter;
 import sa.elm.models.ProductsResponse;
 import sa.elm.models.StatisticsResponse;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -46,6 +64,24 @@ class ProductsServiceTest {
   @Mock
   private ProductEntityToProductResponseMapper entityToProductResponseMapper;
 
+  @Mock
+  private StatisticsService statisticsService;
+
+  @Mock
+  private StatisticsRollupService statisticsRollupService;
+
+  @Mock
+  private StatisticsResponseCache statisticsResponseCache;
+
+  @Mock
+  private ProductCountCache productCountCache;
+
+  @Mock
+  private ActiveCatalogueCache activeCatalogueCache;
+
+  @Mock
+  private ApplicationEventPublisher applicationEventPublisher;
+
   @InjectMocks
   private ProductsService productsService;
 
@@ -63,6 +99,11 @@ class ProductsServiceTest {
     MockitoAnnotations.openMocks(this);
   }
 
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
 
   @Test
   void testGetAllDealerProducts_ShouldSuccess() {
@@ -71,21 +112,17 @@ class ProductsServiceTest {
     when(securityContext.getAuthentication()).thenReturn(authentication);
     SecurityContextHolder.setContext(securityContext);
 
-    User user = new User();
-    user.setId(1L);
-    when(usersService.findUserById(anyLong())).thenReturn(user);
-
-    Page<Product> productPage = new PageImpl<>(List.of(new Product()));
-    when(productRepository.findByUser(any(User.class), any(PageRequest.class))).thenReturn(productPage);
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(productWithId(1L)));
+    when(productRepository.findListingByUserId(eq(1L), any(PageRequest.class))).thenReturn(productPage);
 
     ProductsResponse productsResponse = ProductsResponse.builder().build();
     when(entityToProductResponseMapper.mapForDealer(any(Page.class))).thenReturn(productsResponse);
 
-    ProductsResponse response = productsService.getAllDealerProducts(10, 0);
+    ProductsResponse response = productsService.getAllDealerProducts(10, 0, null, true);
 
     assertNotNull(response);
-    verify(usersService, times(1)).findUserById(anyLong());
-    verify(productRepository, times(1)).findByUser(any(User.class), any(PageRequest.class));
+    verify(usersService, never()).findUserById(anyLong());
+    verify(productRepository, times(1)).findListingByUserId(eq(1L), any(PageRequest.class));
   }
 
   @Test
@@ -97,7 +134,7 @@ class ProductsServiceTest {
 
     User user = new User();
     user.setId(1L);
-    when(usersService.findUserById(anyLong())).thenReturn(user);
+    when(usersService.getUserReference(eq(1L))).thenReturn(user);
 
     ProductCreationRequest request = new ProductCreationRequest();
     request.setName("New Product");
@@ -105,129 +142,327 @@ class ProductsServiceTest {
 
     productsService.addNewProduct(request);
 
+    verify(usersService, never()).findUserById(anyLong());
     verify(productRepository, times(1)).save(any(Product.class));
+    verify(statisticsRollupService, times(1)).onProductCreated(any(Product.class));
+    verify(productCountCache, times(1)).onProductCreated(1L, ProductStatus.ACTIVE);
+    verify(applicationEventPublisher, times(1)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(applicationEventPublisher, times(1)).publishEvent(any(CatalogueChangedEvent.class));
   }
 
   @Test
-  void testChangeProductStatus_ShouldSuccess_ACTIVE_To_INACTIVE() {
-    Product product = new Product();
-    product.setId(1L);
-    product.setStatus(ProductStatus.ACTIVE);
+  void testAddNewProducts_SavesAllAndAdjustsOnce() {
+    when(securityUser.getId()).thenReturn(1L);
+    when(authentication.getPrincipal()).thenReturn(securityUser);
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    User user = new User();
+    user.setId(1L);
+    when(usersService.getUserReference(eq(1L))).thenReturn(user);
+    when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+      List<Product> saved = invocation.getArgument(0);
+      saved.forEach(product -> product.setCreatedAt(OffsetDateTime.now()));
+      return saved;
+    });
+
+    List<ProductCreationRequest> requests = List.of(
+        ProductCreationRequest.builder().name("Product A").price(BigDecimal.ONE).build(),
+        ProductCreationRequest.builder().name("Product B").price(BigDecimal.TEN).build());
+
+    List<Product> products = productsService.addNewProducts(requests);
+
+    assertEquals(2, products.size());
+    assertTrue(products.stream().allMatch(product -> product.getStatus() == ProductStatus.ACTIVE && product.getUser() == user));
+    verify(productRepository, never()).save(any(Product.class));
+    verify(productRepository, times(1)).saveAll(anyList());
+    verify(statisticsRollupService, times(1)).onProductsCreated(1L, products);
+    verify(productCountCache, times(1)).onProductsCreated(1L, ProductStatus.ACTIVE, 2);
+    verify(applicationEventPublisher, times(1)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(applicationEventPublisher, times(1)).publishEvent(any(CatalogueChangedEvent.class));
+  }
+
+  @Test
+  void testChangeProductStatuses_AsDealer_CountsEveryOutcome() {
+    when(securityUser.getId()).thenReturn(2L);
+    when(authentication.getPrincipal()).thenReturn(securityUser);
+    doReturn(List.of(new SimpleGrantedAuthority("DEALER"))).when(authentication).getAuthorities();
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    List<Long> ids = List.of(1L, 2L, 3L, 4L);
+    OffsetDateTime createdAt = OffsetDateTime.now();
+    when(productRepository.findOwnershipViewsForUpdate(ids, 2L)).thenReturn(List.of(
+        new ProductOwnershipView(1L, true, ProductStatus.ACTIVE, BigDecimal.TEN, createdAt),
+        new ProductOwnershipView(2L, true, ProductStatus.INACTIVE, BigDecimal.ONE, createdAt),
+        new ProductOwnershipView(3L, false, ProductStatus.ACTIVE, BigDecimal.ONE, createdAt)));
+    when(productRepository.updateStatusOfProducts(eq(List.of(1L)), eq(2L), eq(ProductStatus.INACTIVE), any(OffsetDateTime.class))).thenReturn(1);
+
+    ProductBulkStatusChangeResponse response = productsService.changeProductStatuses(ids, ProductStatus.INACTIVE);
+
+    assertEquals(1L, response.getChanged());
+    assertEquals(1L, response.getUnchanged());
+    assertEquals(1L, response.getNotOwned());
+    assertEquals(1L, response.getNotFound());
+    verify(productRepository, times(1)).updateStatusOfProducts(eq(List.of(1L)), eq(2L), eq(ProductStatus.INACTIVE), any(OffsetDateTime.class));
+    verify(statisticsRollupService, times(1)).onProductStatusesChanged(
+        List.of(new ProductStatusView(1L, ProductStatus.INACTIVE, BigDecimal.TEN, createdAt)));
+    verify(productCountCache, times(1)).onProductStatusesChanged(ProductStatus.INACTIVE, 1);
+    verify(applicationEventPublisher, times(1)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(applicationEventPublisher, times(1)).publishEvent(any(CatalogueChangedEvent.class));
+  }
+
+  @Test
+  void testChangeProductStatuses_AsAdmin_IgnoresOwnership() {
+    when(securityUser.getId()).thenReturn(1L);
+    when(authentication.getPrincipal()).thenReturn(securityUser);
+    doReturn(List.of(new SimpleGrantedAuthority("ADMIN"))).when(authentication).getAuthorities();
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    List<Long> ids = List.of(1L, 2L);
+    when(productRepository.findOwnershipViewsForUpdate(ids, null)).thenReturn(List.of(
+        new ProductOwnershipView(1L, true, ProductStatus.ACTIVE, BigDecimal.TEN, OffsetDateTime.now()),
+        new ProductOwnershipView(2L, true, ProductStatus.ACTIVE, BigDecimal.TEN, OffsetDateTime.now())));
+
+    ProductBulkStatusChangeResponse response = productsService.changeProductStatuses(ids, ProductStatus.ACTIVE);
+
+    verify(productRepository, never()).updateStatusOfProducts(anyCollection(), any(), any(ProductStatus.class), any(OffsetDateTime.class));
+    verify(statisticsRollupService, never()).onProductStatusesChanged(anyList());
+    verify(applicationEventPublisher, never()).publishEvent(any(CatalogueChangedEvent.class));
+    assertEquals(0L, response.getChanged());
+    assertEquals(2L, response.getUnchanged());
+    assertEquals(0L, response.getNotOwned());
+  }
+
+  @Test
+  void testFindIdsForStatusChange_DealerFilteringOnAnotherDealer_ShouldThrow() {
+    when(securityUser.getId()).thenReturn(2L);
+    when(authentication.getPrincipal()).thenReturn(securityUser);
+    doReturn(List.of(new SimpleGrantedAuthority("DEALER"))).when(authentication).getAuthorities();
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    ProductStatusChangeFilter filter = ProductStatusChangeFilter.builder().dealerId(3L).build();
+
+    assertThrows(NotAuthorizedToChangeStatusOfProduct.class,
+        () -> productsService.findIdsForStatusChange(filter, ProductStatus.INACTIVE, 0L, 10));
+    verifyNoInteractions(productRepository);
+  }
+
+  @Test
+  void testFindIdsForStatusChange_DealerIsLimitedToOwnProducts() {
+    when(securityUser.getId()).thenReturn(2L);
+    when(authentication.getPrincipal()).thenReturn(securityUser);
+    doReturn(List.of(new SimpleGrantedAuthority("DEALER"))).when(authentication).getAuthorities();
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    ProductStatusChangeFilter filter = ProductStatusChangeFilter.builder().minPrice(BigDecimal.ONE).build();
 
+    productsService.findIdsForStatusChange(filter, ProductStatus.INACTIVE, 0L, 10);
+
+    verify(productRepository, times(1)).findIdsForStatusChange(ProductStatus.INACTIVE, 2L, BigDecimal.ONE, null,
+        null, null, 0L, Limit.of(10));
+  }
+
+  @Test
+  void testChangeProductStatus_ShouldSuccess_ACTIVE_To_INACTIVE() {
     SecurityUser dealer = new SecurityUser(String.valueOf(2L),
         true,
         List.of(new SimpleGrantedAuthority("DEALER")));
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.getPrincipal()).thenReturn(dealer);
-    when(usersService.findUserById(eq(2L))).thenReturn(User.builder().id(2L).build());
     SecurityContextHolder.setContext(securityContext);
 
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
-    when(productRepository.findAllProductIdsByUserId(anyLong())).thenReturn(List.of(1L));
+    ProductStatusView product = new ProductStatusView(1L, ProductStatus.INACTIVE, BigDecimal.TEN, OffsetDateTime.now());
+    when(productRepository.toggleStatusOfDealerProduct(eq(1L), eq(2L), any(OffsetDateTime.class))).thenReturn(1);
+    when(productRepository.findStatusViewById(1L)).thenReturn(Optional.of(product));
 
     productsService.changeProductStatus(1L);
 
-    verify(productRepository, times(1)).save(any(Product.class));
-    assertEquals(ProductStatus.INACTIVE, product.getStatus());
+    verify(productRepository, never()).findById(anyLong());
+    verify(productRepository, never()).existsById(anyLong());
+    verify(statisticsRollupService, times(1)).onProductStatusChanged(product);
+    verify(productCountCache, times(1)).onProductStatusChanged(ProductStatus.INACTIVE);
+    verify(applicationEventPublisher, times(1)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(applicationEventPublisher, times(1)).publishEvent(any(CatalogueChangedEvent.class));
   }
 
   @Test
   void testChangeProductStatus_ShouldSuccess_INACTIVE_To_ACTIVE() {
-    Product product = new Product();
-    product.setId(1L);
-    product.setStatus(ProductStatus.INACTIVE);
-
     SecurityUser dealer = new SecurityUser(String.valueOf(2L),
         true,
         List.of(new SimpleGrantedAuthority("DEALER")));
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.getPrincipal()).thenReturn(dealer);
-    when(usersService.findUserById(eq(2L))).thenReturn(User.builder().id(2L).build());
     SecurityContextHolder.setContext(securityContext);
 
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
-    when(productRepository.findAllProductIdsByUserId(anyLong())).thenReturn(List.of(1L));
+    ProductStatusView product = new ProductStatusView(1L, ProductStatus.ACTIVE, BigDecimal.TEN, OffsetDateTime.now());
+    when(productRepository.toggleStatusOfDealerProduct(eq(1L), eq(2L), any(OffsetDateTime.class))).thenReturn(1);
+    when(productRepository.findStatusViewById(1L)).thenReturn(Optional.of(product));
 
     productsService.changeProductStatus(1L);
 
-    verify(productRepository, times(1)).save(any(Product.class));
-    assertEquals(ProductStatus.ACTIVE, product.getStatus());
+    verify(productCountCache, times(1)).onProductStatusChanged(ProductStatus.ACTIVE);
   }
 
   @Test
   void testChangeProductStatus_Should_GIVE_FORBIDDEN() {
-    Product product = new Product();
-    product.setId(1L);
-    product.setStatus(ProductStatus.ACTIVE);
-
     SecurityUser dealer = new SecurityUser(String.valueOf(2L),
         true,
         List.of(new SimpleGrantedAuthority("DEALER")));
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.getPrincipal()).thenReturn(dealer);
-    when(usersService.findUserById(eq(2L))).thenReturn(User.builder().id(2L).build());
     SecurityContextHolder.setContext(securityContext);
 
-    when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
-    when(productRepository.findAllProductIdsByUserId(anyLong())).thenReturn(List.of(2L));
+    when(productRepository.toggleStatusOfDealerProduct(eq(1L), eq(2L), any(OffsetDateTime.class))).thenReturn(0);
+    when(productRepository.existsById(1L)).thenReturn(true);
 
     assertThrows(NotAuthorizedToChangeStatusOfProduct.class, () -> productsService.changeProductStatus(1L));
+    verifyNoInteractions(statisticsRollupService, productCountCache, applicationEventPublisher);
   }
 
   @Test
   void testChangeProductStatus_ShouldFail() {
-    Product product = new Product();
-    product.setId(1L);
-    product.setStatus(ProductStatus.INACTIVE);
+    SecurityUser dealer = new SecurityUser(String.valueOf(2L),
+        true,
+        List.of(new SimpleGrantedAuthority("DEALER")));
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    when(authentication.getPrincipal()).thenReturn(dealer);
+    SecurityContextHolder.setContext(securityContext);
 
-    when(productRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(productRepository.toggleStatusOfDealerProduct(eq(1L), eq(2L), any(OffsetDateTime.class))).thenReturn(0);
+    when(productRepository.existsById(1L)).thenReturn(false);
 
     assertThrows(ProductNotFoundException.class, () -> productsService.changeProductStatus(1L));
+    verifyNoInteractions(statisticsRollupService, productCountCache, applicationEventPublisher);
   }
 
 
   @Test
   void testGetAllActiveProducts_ShouldSuccess() {
-    Page<Product> productPage = new PageImpl<>(List.of(new Product()));
-    when(productRepository.findByStatus(any(ProductStatus.class), any(PageRequest.class))).thenReturn(productPage);
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(productWithId(1L)));
+    when(productRepository.findListingByStatus(any(ProductStatus.class), any(PageRequest.class))).thenReturn(productPage);
 
     ProductsResponse productsResponse = ProductsResponse.builder().build();
     when(entityToProductResponseMapper.mapForClient(any(Page.class))).thenReturn(productsResponse);
 
-    ProductsResponse response = productsService.getAllActiveProducts(10, 0);
+    ProductsResponse response = productsService.getAllActiveProducts(10, 0, null, true);
 
     assertNotNull(response);
-    verify(productRepository, times(1)).findByStatus(any(ProductStatus.class), any(PageRequest.class));
+    verify(productRepository, times(1)).findListingByStatus(any(ProductStatus.class), any(PageRequest.class));
   }
 
   @Test
-  void testGetProductStatistics_ShouldSuccess() {
-    OffsetDateTime from = OffsetDateTime.now().minusDays(10);
-    OffsetDateTime to = OffsetDateTime.now();
+  void testGetAllActiveProducts_WithCursor_SeeksPastTheCursor() {
+    List<ProductListingView> products = List.of(productWithId(11L), productWithId(12L), productWithId(13L));
+    when(productRepository.findListingByStatusAfter(eq(ProductStatus.ACTIVE), eq(10L), eq(Limit.of(3))))
+        .thenReturn(products);
+    ProductsResponse productsResponse = ProductsResponse.builder().build();
+    when(entityToProductResponseMapper.mapForClient(anyList(), any())).thenReturn(productsResponse);
 
-    when(productRepository.countTotalProducts(any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(100L);
-    when(productRepository.countProductsByStatus(eq(ProductStatus.ACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(80L);
-    when(productRepository.countProductsByStatus(eq(ProductStatus.INACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(20L);
-    when(productRepository.sumActiveProductPrices(any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(BigDecimal.valueOf(50000));
+    ProductsResponse response = productsService.getAllActiveProducts(2, 0, ProductCursor.encode(10L), false);
 
-    when(usersService.getTotalUsers(any(UserRoleEnum.class), any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(50L);
-    when(usersService.getTotalUsersBasedOnStatus(eq(UserRoleEnum.CLIENT), eq(UserStatusEnum.ACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(30L);
-    when(usersService.getTotalUsersBasedOnStatus(eq(UserRoleEnum.CLIENT), eq(UserStatusEnum.INACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(20L);
-    when(usersService.getTotalDealersWithProducts(any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(25L);
-    when(usersService.getTotalDealersWithNoProducts(any(OffsetDateTime.class), any(OffsetDateTime.class))).thenReturn(10L);
+    assertSame(productsResponse, response);
+    verify(entityToProductResponseMapper, times(1)).mapForClient(products.subList(0, 2), ProductCursor.encode(12L));
+    verify(productRepository, never()).findListingByStatus(any(ProductStatus.class), any(PageRequest.class));
+  }
 
-    StatisticsResponse response = productsService.getProductStatistics(from.toLocalDate(), to.toLocalDate());
+  @Test
+  void testGetAllActiveProducts_WithCursor_LastPageHasNoNextCursor() {
+    List<ProductListingView> products = List.of(productWithId(11L));
+    when(productRepository.findListingByStatusAfter(eq(ProductStatus.ACTIVE), eq(10L), eq(Limit.of(3))))
+        .thenReturn(products);
+    when(entityToProductResponseMapper.mapForClient(anyList(), any())).thenReturn(ProductsResponse.builder().build());
 
-    assertNotNull(response);
-    assertEquals(100L, response.getProducts().getTotalProducts());
-    assertEquals(80L, response.getProducts().getActive());
-    assertEquals(20L, response.getProducts().getInactive());
-    assertEquals(BigDecimal.valueOf(50000), response.getProducts().getTotalPrice());
-
-    verify(usersService, times(1)).getTotalUsers(eq(UserRoleEnum.CLIENT), any(OffsetDateTime.class), any(OffsetDateTime.class));
-    verify(usersService, times(1)).getTotalUsers(eq(UserRoleEnum.DEALER), any(OffsetDateTime.class), any(OffsetDateTime.class));
-    verify(usersService, times(1)).getTotalUsersBasedOnStatus(eq(UserRoleEnum.CLIENT), eq(UserStatusEnum.ACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class));
-    verify(usersService, times(1)).getTotalUsersBasedOnStatus(eq(UserRoleEnum.CLIENT), eq(UserStatusEnum.INACTIVE), any(OffsetDateTime.class), any(OffsetDateTime.class));
+    productsService.getAllActiveProducts(2, 0, ProductCursor.encode(10L), false);
+
+    verify(entityToProductResponseMapper, times(1)).mapForClient(products, null);
+  }
+
+  @Test
+  void testGetAllActiveProducts_OffsetPageCarriesCursorOfItsLastProduct() {
+    Page<ProductListingView> productPage = new PageImpl<>(List.of(productWithId(1L), productWithId(2L)), PageRequest.of(0, 2), 5);
+    when(productRepository.findListingByStatus(any(ProductStatus.class), any(PageRequest.class))).thenReturn(productPage);
+    when(entityToProductResponseMapper.mapForClient(any(Page.class))).thenReturn(ProductsResponse.builder().build());
+
+    ProductsResponse response = productsService.getAllActiveProducts(2, 0, null, true);
+
+    assertEquals(ProductCursor.encode(2L), response.getNextCursor());
+  }
+
+  @Test
+  void testGetAllActiveProducts_WithoutExactCount_UsesSliceAndCachedTotal() {
+    SliceImpl<ProductListingView> productSlice = new SliceImpl<>(List.of(productWithId(1L), productWithId(2L)), PageRequest.of(0, 2), true);
+    when(productRepository.findListingSliceByStatus(eq(ProductStatus.ACTIVE), any(PageRequest.class))).thenReturn(productSlice);
+    when(entityToProductResponseMapper.mapForClient(anyList(), any())).thenReturn(ProductsResponse.builder().build());
+    when(productCountCache.countByStatus(ProductStatus.ACTIVE, false)).thenReturn(42L);
+
+    ProductsResponse response = productsService.getAllActiveProducts(2, 0, null, false);
+
+    assertEquals(42L, response.getTotal());
+    assertEquals(ProductCursor.encode(2L), response.getNextCursor());
+    verify(productRepository, never()).findListingByStatus(any(ProductStatus.class), any(PageRequest.class));
+  }
+
+  @Test
+  void testGetAllProducts_WithCursor_CarriesCachedTotal() {
+    when(productRepository.findListingAfter(eq(10L), eq(Limit.of(11)))).thenReturn(List.of(productWithId(11L)));
+    when(entityToProductResponseMapper.mapForAdmin(anyList(), any())).thenReturn(ProductsResponse.builder().build());
+    when(productCountCache.countAll(true)).thenReturn(7L);
+
+    ProductsResponse response = productsService.getAllProducts(10, 0, ProductCursor.encode(10L), true);
+
+    assertEquals(7L, response.getTotal());
+    verify(productRepository, never()).count();
+  }
+
+  @Test
+  void testGetAllProducts_WithInvalidCursor_ShouldFail() {
+    assertThrows(InvalidCursorException.class, () -> productsService.getAllProducts(10, 0, "not-a-cursor", false));
+    verifyNoInteractions(productRepository);
+  }
+
+  private static ProductListingView productWithId(Long id) {
+    return new ProductListingView(id, "Product " + id, BigDecimal.TEN, ProductStatus.ACTIVE, "dealer");
+  }
+
+  @Test
+  void testGetActiveProductsPage_LoadsThroughCatalogueCache() {
+    ProductsResponse productsResponse = ProductsResponse.builder().build();
+    when(productRepository.findListingByStatusAfter(eq(ProductStatus.ACTIVE), eq(10L), any(Limit.class))).thenReturn(List.of());
+    when(entityToProductResponseMapper.mapForClient(anyList(), isNull())).thenReturn(productsResponse);
+    when(activeCatalogueCache.get(eq(new PageKey(2, 0, 10L, false)), any())).thenAnswer(invocation ->
+        new CataloguePage("W/\"1\"", invocation.<Supplier<ProductsResponse>>getArgument(1).get()));
+
+    CataloguePage page = productsService.getActiveProductsPage(2, 4, ProductCursor.encode(10L), false);
+
+    assertSame(productsResponse, page.response());
+    verify(productRepository, times(1)).findListingByStatusAfter(eq(ProductStatus.ACTIVE), eq(10L), any(Limit.class));
+  }
+
+  @Test
+  void testGetActiveProductsETag_DoesNotQuery() {
+    when(activeCatalogueCache.etag(new PageKey(10, 20, null, true))).thenReturn("W/\"1-10-20--1\"");
+
+    assertEquals("W/\"1-10-20--1\"", productsService.getActiveProductsETag(10, 25, null, true));
+    verifyNoInteractions(productRepository, productCountCache);
+  }
+
+  @Test
+  void testGetProductStatistics_DelegatesToStatisticsServiceThroughCache() {
+    LocalDate from = LocalDate.now().minusDays(10);
+    LocalDate to = LocalDate.now();
+    StatisticsResponse statisticsResponse = StatisticsResponse.builder().build();
+    when(statisticsService.getStatistics(from, to)).thenReturn(statisticsResponse);
+    when(statisticsResponseCache.get(eq(from), eq(to), any())).thenAnswer(invocation ->
+        invocation.<Supplier<StatisticsResponse>>getArgument(2).get());
+
+    StatisticsResponse response = productsService.getProductStatistics(from, to);
+
+    assertSame(statisticsResponse, response);
+    verify(statisticsService, times(1)).getStatistics(from, to);
   }
 }
 
@@ -0,0 +1,105 @@
+package sa.elm.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.service.cache.StatisticsResponseCache;
+import sa.elm.models.DealersStatisticsResponse;
+import sa.elm.models.ProductCreationRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Caches a dashboard range that ended days ago, which never expires, and checks that writes counted on days other
+ * than their own still evict it.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statisticsfreshness;DB_CLOSE_DELAY=-1",
+    "sa.elm.demo.statistics.rebuildOnStartup=false"})
+class StatisticsCacheFreshnessTest {
+
+  private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+  @Autowired
+  private ProductsService productsService;
+  @Autowired
+  private StatisticsRollupService statisticsRollupService;
+  @Autowired
+  private StatisticsResponseCache statisticsResponseCache;
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private User dealer;
+
+  @BeforeEach
+  void setUp() {
+    dealer = userRepository.save(User.builder()
+        .username("freshness_dealer")
+        .email("freshness_dealer@example.com")
+        .password("password")
+        .userRole(UserRoleEnum.DEALER)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build());
+    jdbcTemplate.update("UPDATE USERS SET CREATED_AT = DATEADD('DAY', -3, CREATED_AT) WHERE ID = ?", dealer.getId());
+    statisticsRollupService.rebuild();
+    statisticsResponseCache.invalidateAll();
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+        new SecurityUser(String.valueOf(dealer.getId()), true, List.of(new SimpleGrantedAuthority("DEALER"))),
+        null, List.of(new SimpleGrantedAuthority("DEALER"))));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+    jdbcTemplate.update("DELETE FROM PRODUCTS");
+    jdbcTemplate.update("DELETE FROM USERS");
+  }
+
+  @Test
+  void testFirstProduct_EvictsRangesCoveringTheDealersCreationDay() {
+    DealersStatisticsResponse before = pastDealerStatistics();
+    assertEquals(0L, before.getHasProducts());
+    assertEquals(1L, before.getHasNoProducts());
+
+    productsService.addNewProduct(ProductCreationRequest.builder().name("First product").price(BigDecimal.TEN).build());
+
+    DealersStatisticsResponse after = pastDealerStatistics();
+    assertEquals(1L, after.getHasProducts());
+    assertEquals(0L, after.getHasNoProducts());
+  }
+
+  @Test
+  void testFirstBulkProducts_EvictRangesCoveringTheDealersCreationDay() {
+    pastDealerStatistics();
+
+    productsService.addNewProducts(List.of(
+        ProductCreationRequest.builder().name("First product").price(BigDecimal.TEN).build(),
+        ProductCreationRequest.builder().name("Second product").price(BigDecimal.ONE).build()));
+
+    assertEquals(1L, pastDealerStatistics().getHasProducts());
+  }
+
+  // Ends before today, so the cached response only changes through evictions
+  private DealersStatisticsResponse pastDealerStatistics() {
+    return productsService.getProductStatistics(TODAY.minusDays(5), TODAY.minusDays(1)).getDealers();
+  }
+
+}
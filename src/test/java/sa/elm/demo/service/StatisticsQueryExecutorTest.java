@@ -0,0 +1,102 @@
+package sa.elm.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StatisticsQueryExecutorTest {
+
+  private static final int MAX_CONCURRENT_QUERIES = 2;
+
+  private PlatformTransactionManager transactionManager;
+  private SimpleMeterRegistry meterRegistry;
+  private StatisticsQueryExecutor statisticsQueryExecutor;
+
+  @BeforeEach
+  void setUp() {
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    meterRegistry = new SimpleMeterRegistry();
+    statisticsQueryExecutor = new StatisticsQueryExecutor(true, MAX_CONCURRENT_QUERIES, transactionManager, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    statisticsQueryExecutor.shutdown();
+  }
+
+  @Test
+  void testSubmit_RunsQueriesConcurrentlyUpToTheCap() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      int query = i;
+      futures.add(statisticsQueryExecutor.submit("query", () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        sleep(50);
+        running.decrementAndGet();
+        return query;
+      }));
+    }
+
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(i, StatisticsQueryExecutor.await(futures.get(i)));
+    }
+    assertEquals(MAX_CONCURRENT_QUERIES, maxRunning.get());
+  }
+
+  @Test
+  void testSubmit_RunsEachQueryInItsOwnReadOnlyTransactionAndTimesIt() {
+    StatisticsQueryExecutor.await(statisticsQueryExecutor.submit("productAggregate", () -> 1));
+    StatisticsQueryExecutor.await(statisticsQueryExecutor.submit("userAggregate", () -> 2));
+
+    verify(transactionManager, times(2)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    assertEquals(1, meterRegistry.get("statistics.query").tag("query", "productAggregate").timer().count());
+    assertEquals(1, meterRegistry.get("statistics.query").tag("query", "userAggregate").timer().count());
+  }
+
+  @Test
+  void testAwait_RethrowsTheQueryException() {
+    CompletableFuture<Object> future = statisticsQueryExecutor.submit("failing", () -> {
+      throw new IllegalStateException("query failed");
+    });
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class, () -> StatisticsQueryExecutor.await(future));
+    assertEquals("query failed", exception.getMessage());
+  }
+
+  @Test
+  void testSubmit_SequentialModeRunsInline() {
+    StatisticsQueryExecutor sequentialExecutor = new StatisticsQueryExecutor(false, MAX_CONCURRENT_QUERIES, transactionManager, meterRegistry);
+
+    CompletableFuture<String> future = sequentialExecutor.submit("productAggregate", () -> Thread.currentThread().getName());
+
+    assertTrue(future.isDone());
+    assertEquals(Thread.currentThread().getName(), future.join());
+    verifyNoInteractions(transactionManager);
+    sequentialExecutor.shutdown();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,272 @@
+package sa.elm.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import sa.elm.demo.mapper.ProductEntityToProductResponseMapper;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.ProductStatusView;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.models.StatisticsResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+    "sa.elm.demo.statistics.rebuildOnStartup=false"})
+@Import({StatisticsService.class, StatisticsQueryExecutor.class, SimpleMeterRegistry.class, StatisticsRollupService.class, ProductEntityToProductResponseMapper.class})
+class StatisticsRollupServiceTest {
+
+  private static final long MAX_STATEMENTS_PER_CALL = 3;
+
+  @Autowired
+  private StatisticsService statisticsService;
+  @Autowired
+  private StatisticsRollupService statisticsRollupService;
+  @Autowired
+  private ProductRepository productRepository;
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private TestEntityManager testEntityManager;
+
+  private User dealerWithProducts;
+  private User client;
+
+  @BeforeEach
+  void setUp() {
+    dealerWithProducts = userRepository.save(buildUser("dealer_1", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    userRepository.save(buildUser("dealer_2", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    client = userRepository.save(buildUser("client_1", UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE));
+    userRepository.save(buildUser("client_2", UserRoleEnum.CLIENT, UserStatusEnum.INACTIVE));
+
+    productRepository.save(buildProduct("Product 1", 100, ProductStatus.ACTIVE, dealerWithProducts));
+    productRepository.save(buildProduct("Product 2", 300, ProductStatus.INACTIVE, dealerWithProducts));
+    productRepository.save(buildProduct("Product 3", 50, ProductStatus.ACTIVE, dealerWithProducts));
+    testEntityManager.flush();
+
+    statisticsRollupService.rebuild();
+    testEntityManager.clear();
+  }
+
+  @Test
+  void testRebuild_MatchesBaseTables() {
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(3L, response.getProducts().getTotalProducts());
+    assertEquals(2L, response.getProducts().getActive());
+    assertEquals(0, BigDecimal.valueOf(150).compareTo(response.getProducts().getTotalPrice()));
+    assertEquals("Product 2", response.getProducts().getHighest().getName());
+    assertEquals("Product 3", response.getProducts().getLowest().getName());
+    assertEquals(2L, response.getClients().getTotal());
+    assertEquals(1L, response.getDealers().getHasProducts());
+    assertEquals(1L, response.getDealers().getHasNoProducts());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testIncrementalUpdates_MatchBaseTables() {
+    User newDealer = userRepository.save(buildUser("dealer_3", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    statisticsRollupService.onUserCreated(newDealer);
+
+    Product cheapest = productRepository.save(buildProduct("Product 4", 10, ProductStatus.ACTIVE, newDealer));
+    statisticsRollupService.onProductCreated(cheapest);
+    Product mostExpensive = productRepository.save(buildProduct("Product 5", 900, ProductStatus.ACTIVE, dealerWithProducts));
+    statisticsRollupService.onProductCreated(mostExpensive);
+
+    mostExpensive.setStatus(ProductStatus.INACTIVE);
+    productRepository.save(mostExpensive);
+    statisticsRollupService.onProductStatusChanged(productRepository.findStatusViewById(mostExpensive.getId()).orElseThrow());
+
+    User deactivatedClient = userRepository.findById(client.getId()).orElseThrow();
+    deactivatedClient.setUserStatus(UserStatusEnum.INACTIVE);
+    userRepository.save(deactivatedClient);
+    statisticsRollupService.onUserStatusChanged(userRepository.findStatusViewById(deactivatedClient.getId()).orElseThrow());
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(5L, response.getProducts().getTotalProducts());
+    assertEquals(3L, response.getProducts().getActive());
+    assertEquals(0, BigDecimal.valueOf(160).compareTo(response.getProducts().getTotalPrice()));
+    assertEquals("Product 5", response.getProducts().getHighest().getName());
+    assertEquals("Product 4", response.getProducts().getLowest().getName());
+    assertEquals(2L, response.getClients().getInactive());
+    assertEquals(3L, response.getDealers().getTotal());
+    assertEquals(2L, response.getDealers().getHasProducts());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testBulkCreation_MatchesBaseTables() {
+    User newDealer = userRepository.save(buildUser("dealer_3", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    statisticsRollupService.onUserCreated(newDealer);
+
+    List<Product> products = productRepository.saveAll(List.of(
+        buildProduct("Product 4", 900, ProductStatus.ACTIVE, newDealer),
+        buildProduct("Product 5", 900, ProductStatus.INACTIVE, newDealer),
+        buildProduct("Product 6", 20, ProductStatus.ACTIVE, newDealer),
+        buildProduct("Product 7", 10, ProductStatus.ACTIVE, newDealer)));
+    statisticsRollupService.onProductsCreated(newDealer.getId(), products);
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(7L, response.getProducts().getTotalProducts());
+    assertEquals(5L, response.getProducts().getActive());
+    assertEquals(0, BigDecimal.valueOf(1080).compareTo(response.getProducts().getTotalPrice()));
+    assertEquals("Product 5", response.getProducts().getHighest().getName());
+    assertEquals("Product 7", response.getProducts().getLowest().getName());
+    assertEquals(2L, response.getDealers().getHasProducts());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testBulkStatusChange_MatchesBaseTables() {
+    List<Long> ids = productRepository.findIdsForStatusChange(ProductStatus.INACTIVE, dealerWithProducts.getId(),
+        null, null, null, null, 0L, Limit.of(10));
+    List<ProductStatusView> changedProducts = productRepository.findOwnershipViewsForUpdate(ids, dealerWithProducts.getId()).stream()
+        .map(product -> new ProductStatusView(product.id(), ProductStatus.INACTIVE, product.price(), product.createdAt()))
+        .toList();
+    productRepository.updateStatusOfProducts(ids, dealerWithProducts.getId(), ProductStatus.INACTIVE, OffsetDateTime.now());
+    statisticsRollupService.onProductStatusesChanged(changedProducts);
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(0L, response.getProducts().getActive());
+    assertEquals(3L, response.getProducts().getInactive());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testOnUserCreated_IgnoresAdmins() {
+    User admin = userRepository.save(buildUser("admin_1", UserRoleEnum.ADMIN, UserStatusEnum.ACTIVE));
+    statisticsRollupService.onUserCreated(admin);
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    assertEquals(liveStatistics(), rollupStatistics());
+  }
+
+  @Test
+  void testBulkUserCreation_MatchesBaseTables() {
+    List<User> users = userRepository.saveAll(List.of(
+        buildUser("admin_1", UserRoleEnum.ADMIN, UserStatusEnum.ACTIVE),
+        buildUser("dealer_3", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE),
+        buildUser("dealer_4", UserRoleEnum.DEALER, UserStatusEnum.INACTIVE),
+        buildUser("client_3", UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE)));
+    statisticsRollupService.onUsersCreated(users);
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(3L, response.getClients().getTotal());
+    assertEquals(4L, response.getDealers().getTotal());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testGetStatistics_RowsStampedAtMidnightOfTheEndDay_AreLeftOutOfBothSources() {
+    User dealer = userRepository.save(buildUser("dealer_3", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    Product product = productRepository.save(buildProduct("Product 4", 10, ProductStatus.ACTIVE, dealer));
+    testEntityManager.flush();
+    OffsetDateTime midnight = today().plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    testEntityManager.getEntityManager().createNativeQuery("UPDATE USERS SET CREATED_AT = ?1 WHERE ID = ?2")
+        .setParameter(1, midnight).setParameter(2, dealer.getId()).executeUpdate();
+    testEntityManager.getEntityManager().createNativeQuery("UPDATE PRODUCTS SET CREATED_AT = ?1 WHERE ID = ?2")
+        .setParameter(1, midnight).setParameter(2, product.getId()).executeUpdate();
+    statisticsRollupService.rebuild();
+    testEntityManager.clear();
+
+    StatisticsResponse response = rollupStatistics();
+
+    assertEquals(3L, response.getProducts().getTotalProducts());
+    assertEquals(2L, response.getDealers().getTotal());
+    assertEquals(liveStatistics(), response);
+  }
+
+  @Test
+  void testGetStatistics_EmptyRange() {
+    StatisticsResponse response = statisticsService.getStatistics(today().minusDays(10), today().minusDays(9));
+
+    assertEquals(0L, response.getProducts().getTotalProducts());
+    assertNull(response.getProducts().getTotalPrice());
+    assertNull(response.getProducts().getHighest());
+    assertEquals(0L, response.getClients().getTotal());
+    assertEquals(0L, response.getDealers().getHasNoProducts());
+  }
+
+  @Test
+  void testGetStatistics_IssuesBoundedNumberOfStatements() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    rollupStatistics();
+
+    assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS_PER_CALL,
+        "Expected at most " + MAX_STATEMENTS_PER_CALL + " statements but was " + statistics.getPrepareStatementCount());
+  }
+
+  private StatisticsResponse rollupStatistics() {
+    statisticsService.source = StatisticsService.Source.ROLLUP;
+    return statisticsService.getStatistics(today().minusDays(1), today().plusDays(1));
+  }
+
+  private StatisticsResponse liveStatistics() {
+    statisticsService.source = StatisticsService.Source.LIVE;
+    try {
+      return statisticsService.getStatistics(today().minusDays(1), today().plusDays(1));
+    } finally {
+      statisticsService.source = StatisticsService.Source.ROLLUP;
+    }
+  }
+
+  private static LocalDate today() {
+    return LocalDate.now(ZoneOffset.UTC);
+  }
+
+  private static User buildUser(String username, UserRoleEnum role, UserStatusEnum status) {
+    return User.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("password")
+        .userRole(role)
+        .userStatus(status)
+        .build();
+  }
+
+  private static Product buildProduct(String name, long price, ProductStatus status, User dealer) {
+    return Product.builder()
+        .name(name)
+        .price(BigDecimal.valueOf(price))
+        .status(status)
+        .user(dealer)
+        .build();
+  }
+
+}
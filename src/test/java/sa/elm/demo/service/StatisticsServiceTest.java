@@ -0,0 +1,127 @@
+package sa.elm.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import sa.elm.demo.mapper.ProductEntityToProductResponseMapper;
+import sa.elm.demo.models.entity.Product;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.repository.ProductRepository;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.models.StatisticsResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "sa.elm.demo.statistics.source=LIVE"})
+@Import({StatisticsService.class, StatisticsQueryExecutor.class, SimpleMeterRegistry.class, ProductEntityToProductResponseMapper.class})
+class StatisticsServiceTest {
+
+  private static final long MAX_STATEMENTS_PER_CALL = 4;
+
+  @Autowired
+  private StatisticsService statisticsService;
+  @Autowired
+  private ProductRepository productRepository;
+  @Autowired
+  private UserRepository userRepository;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private TestEntityManager testEntityManager;
+
+  @BeforeEach
+  void setUp() {
+    User dealerWithProducts = userRepository.save(buildUser("dealer_1", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    userRepository.save(buildUser("dealer_2", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE));
+    userRepository.save(buildUser("client_1", UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE));
+    userRepository.save(buildUser("client_2", UserRoleEnum.CLIENT, UserStatusEnum.INACTIVE));
+    userRepository.save(buildUser("client_3", UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE));
+
+    productRepository.save(buildProduct("Product 1", 100, ProductStatus.ACTIVE, dealerWithProducts));
+    productRepository.save(buildProduct("Product 2", 300, ProductStatus.INACTIVE, dealerWithProducts));
+    productRepository.save(buildProduct("Product 3", 50, ProductStatus.ACTIVE, dealerWithProducts));
+    testEntityManager.flush();
+    testEntityManager.clear();
+  }
+
+  @Test
+  void testGetStatistics_ShouldSuccess() {
+    StatisticsResponse response = statisticsService.getStatistics(today().minusDays(1), today().plusDays(1));
+
+    assertEquals(3L, response.getProducts().getTotalProducts());
+    assertEquals(2L, response.getProducts().getActive());
+    assertEquals(1L, response.getProducts().getInactive());
+    assertEquals(0, BigDecimal.valueOf(150).compareTo(response.getProducts().getTotalPrice()));
+    assertEquals("Product 2", response.getProducts().getHighest().getName());
+    assertEquals("Product 3", response.getProducts().getLowest().getName());
+
+    assertEquals(3L, response.getClients().getTotal());
+    assertEquals(2L, response.getClients().getActive());
+    assertEquals(1L, response.getClients().getInactive());
+
+    assertEquals(2L, response.getDealers().getTotal());
+    assertEquals(1L, response.getDealers().getHasProducts());
+    assertEquals(1L, response.getDealers().getHasNoProducts());
+  }
+
+  @Test
+  void testGetStatistics_EmptyRange() {
+    StatisticsResponse response = statisticsService.getStatistics(today().minusDays(10), today().minusDays(9));
+
+    assertEquals(0L, response.getProducts().getTotalProducts());
+    assertEquals(0L, response.getProducts().getActive());
+    assertNull(response.getProducts().getTotalPrice());
+    assertNull(response.getProducts().getHighest());
+    assertEquals(0L, response.getClients().getTotal());
+    assertEquals(0L, response.getDealers().getHasNoProducts());
+  }
+
+  @Test
+  void testGetStatistics_IssuesBoundedNumberOfStatements() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    statisticsService.getStatistics(today().minusDays(1), today().plusDays(1));
+
+    assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS_PER_CALL,
+        "Expected at most " + MAX_STATEMENTS_PER_CALL + " statements but was " + statistics.getPrepareStatementCount());
+  }
+
+  private static LocalDate today() {
+    return LocalDate.now(ZoneOffset.UTC);
+  }
+
+  private static User buildUser(String username, UserRoleEnum role, UserStatusEnum status) {
+    return User.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("password")
+        .userRole(role)
+        .userStatus(status)
+        .build();
+  }
+
+  private static Product buildProduct(String name, long price, ProductStatus status, User dealer) {
+    return Product.builder()
+        .name(name)
+        .price(BigDecimal.valueOf(price))
+        .status(status)
+        .user(dealer)
+        .build();
+  }
+
+}
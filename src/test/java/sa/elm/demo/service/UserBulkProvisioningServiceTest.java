@@ -0,0 +1,145 @@
+package sa.elm.demo.service;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.exception.PasswordHashingBusyException;
+import sa.elm.demo.models.entity.User;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.security.hashing.BoundedPasswordEncoder;
+import sa.elm.demo.service.cache.RegisteredIdentityFilter;
+import sa.elm.models.UserBulkCreationError;
+import sa.elm.models.UserBulkCreationItem;
+import sa.elm.models.UserBulkCreationResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserBulkProvisioningServiceTest {
+
+  private static final int CHUNK_SIZE = 3;
+
+  private ValidatorFactory validatorFactory;
+  private UsersService usersService;
+  private UserRepository userRepository;
+  private RegisteredIdentityFilter registeredIdentityFilter;
+  private BoundedPasswordEncoder passwordEncoder;
+  private UserBulkProvisioningService userBulkProvisioningService;
+  private final List<List<User>> storedChunks = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    usersService = mock(UsersService.class);
+    userRepository = mock(UserRepository.class);
+    registeredIdentityFilter = mock(RegisteredIdentityFilter.class);
+    passwordEncoder = mock(BoundedPasswordEncoder.class);
+    when(passwordEncoder.encodeAll(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+        .map(password -> "hashed_" + password)
+        .toList());
+    when(usersService.addNewUsers(anyList())).thenAnswer(invocation -> {
+      List<User> chunk = invocation.getArgument(0);
+      storedChunks.add(chunk);
+      return chunk;
+    });
+    userBulkProvisioningService = new UserBulkProvisioningService(usersService, userRepository, registeredIdentityFilter,
+        passwordEncoder, validatorFactory.getValidator(), CHUNK_SIZE);
+  }
+
+  @AfterEach
+  void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Test
+  void testCreateUsers_HashesAndStoresInChunks() {
+    List<UserBulkCreationItem> items = IntStream.range(0, 7)
+        .mapToObj(i -> item("dealer_" + i, UserBulkCreationItem.RoleEnum.DEALER))
+        .toList();
+
+    UserBulkCreationResponse response = userBulkProvisioningService.createUsers(items);
+
+    assertEquals(7L, response.getCreated());
+    assertEquals(0L, response.getRejected());
+    assertEquals(List.of(3, 3, 1), storedChunks.stream().map(List::size).toList());
+    assertEquals("hashed_password_dealer_0", storedChunks.get(0).get(0).getPassword());
+    assertEquals(UserRoleEnum.DEALER, storedChunks.get(0).get(0).getUserRole());
+    verify(passwordEncoder, times(3)).encodeAll(anyList());
+    verify(userRepository, never()).findTakenIdentities(anyCollection(), anyCollection());
+  }
+
+  @Test
+  void testCreateUsers_ReportsInvalidAndDuplicateItemsByIndex() {
+    List<UserBulkCreationItem> items = List.of(
+        item("admin_1", UserBulkCreationItem.RoleEnum.ADMIN),
+        item("dealer_1", null),
+        UserBulkCreationItem.builder().username("dealer_2").email("admin_1@example.com").password("password")
+            .role(UserBulkCreationItem.RoleEnum.DEALER).build(),
+        UserBulkCreationItem.builder().username("admin_1").email("dealer_3@example.com").password("password")
+            .role(UserBulkCreationItem.RoleEnum.DEALER).build());
+
+    UserBulkCreationResponse response = userBulkProvisioningService.createUsers(items);
+
+    assertEquals(1L, response.getCreated());
+    assertEquals(3L, response.getRejected());
+    assertEquals(List.of(1L, 2L, 3L), response.getErrors().stream().map(UserBulkCreationError::getIndex).toList());
+    assertTrue(response.getErrors().get(0).getMessage().startsWith("role: "));
+    assertEquals("Email Already Exist", response.getErrors().get(1).getMessage());
+    assertEquals("Username Already Exist", response.getErrors().get(2).getMessage());
+    assertEquals(UserRoleEnum.ADMIN, storedChunks.get(0).get(0).getUserRole());
+  }
+
+  @Test
+  void testCreateUsers_ChecksMaybeTakenItemsWithOneQuery() {
+    when(registeredIdentityFilter.mightBeTaken("dealer_1@example.com", "dealer_1")).thenReturn(true);
+    when(registeredIdentityFilter.mightBeTaken("dealer_2@example.com", "dealer_2")).thenReturn(true);
+    when(registeredIdentityFilter.mightBeTaken("dealer_3@example.com", "dealer_3")).thenReturn(true);
+    when(userRepository.findTakenIdentities(Set.of("dealer_1", "dealer_2", "dealer_3"),
+        Set.of("dealer_1@example.com", "dealer_2@example.com", "dealer_3@example.com")))
+        .thenReturn(List.of(new UserIdentityView(10L, "dealer_1", "other@example.com"),
+            new UserIdentityView(11L, "other", "dealer_3@example.com")));
+    List<UserBulkCreationItem> items = IntStream.range(0, 5)
+        .mapToObj(i -> item("dealer_" + i, UserBulkCreationItem.RoleEnum.DEALER))
+        .toList();
+
+    UserBulkCreationResponse response = userBulkProvisioningService.createUsers(items);
+
+    assertEquals(3L, response.getCreated());
+    assertEquals(List.of(1L, 3L), response.getErrors().stream().map(UserBulkCreationError::getIndex).toList());
+    assertEquals("Username Already Exist", response.getErrors().get(0).getMessage());
+    assertEquals("Email Already Exist", response.getErrors().get(1).getMessage());
+    verify(userRepository, times(1)).findTakenIdentities(anyCollection(), anyCollection());
+    assertEquals(List.of("dealer_0", "dealer_2", "dealer_4"),
+        storedChunks.stream().flatMap(List::stream).map(User::getUsername).toList());
+  }
+
+  @Test
+  void testCreateUsers_BusyPool_FailsBeforeStoringTheChunk() {
+    when(passwordEncoder.encodeAll(anyList())).thenThrow(new PasswordHashingBusyException("busy"));
+    List<UserBulkCreationItem> items = List.of(item("dealer_1", UserBulkCreationItem.RoleEnum.DEALER));
+
+    assertThrows(PasswordHashingBusyException.class, () -> userBulkProvisioningService.createUsers(items));
+
+    verify(usersService, never()).addNewUsers(anyList());
+  }
+
+  private UserBulkCreationItem item(String username, UserBulkCreationItem.RoleEnum role) {
+    return UserBulkCreationItem.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("password_" + username)
+        .role(role)
+        .build();
+  }
+
+}
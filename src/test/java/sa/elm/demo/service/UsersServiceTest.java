@@ -1,35 +1,56 @@
 package sa.elm.demo.service;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import sa.elm.demo.exception.AuthenticationException;
 import sa.elm.demo.exception.OperationNotAllowedException;
+import sa.elm.demo.exception.PasswordHashingBusyException;
+import sa.elm.demo.exception.TooManyLoginAttemptsException;
 import sa.elm.demo.exception.UserAlreadyExistsException;
 import sa.elm.demo.exception.UserNotFoundException;
 import sa.elm.demo.models.entity.User;
 import sa.elm.demo.models.entity.enums.UserRoleEnum;
 import sa.elm.demo.models.entity.enums.UserStatusEnum;
+import sa.elm.demo.models.projection.UserIdentityMatch;
+import sa.elm.demo.models.projection.UserStatusView;
 import sa.elm.demo.models.security.SecurityUser;
+import sa.elm.demo.models.security.UserPrincipal;
 import sa.elm.demo.repository.UserRepository;
+import sa.elm.demo.security.cache.PrincipalCache;
+import sa.elm.demo.security.cache.VerifiedTokenCache;
+import sa.elm.demo.security.revocation.DeactivatedUserDenyList;
+import sa.elm.demo.security.throttle.FailedLoginTracker;
+import sa.elm.demo.service.cache.RegisteredIdentityFilter;
+import sa.elm.demo.service.cache.StatisticsDataChangedEvent;
 import sa.elm.demo.util.JwtUtil;
 import sa.elm.models.LoginRequest;
 import sa.elm.models.LoginResponse;
 import sa.elm.models.RegistrationRequest;
 import sa.elm.models.UserCreationRequest;
 
+import java.sql.SQLException;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,6 +58,8 @@ import static org.mockito.Mockito.*;
 
 class UsersServiceTest {
 
+  private static final String CLIENT_ADDRESS = "203.0.113.7";
+
   @Mock
   private UserRepository userRepository;
 
@@ -46,54 +69,134 @@ class UsersServiceTest {
   @Mock
   private PasswordEncoder bCryptPasswordEncoder;
 
+  @Mock
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Mock
+  private PrincipalCache principalCache;
+
+  @Mock
+  private DeactivatedUserDenyList deactivatedUserDenyList;
+
+  @Mock
+  private FailedLoginTracker failedLoginTracker;
+
+  @Mock
+  private RegisteredIdentityFilter registeredIdentityFilter;
+
+  @Mock
+  private StatisticsRollupService statisticsRollupService;
+
+  @Mock
+  private ApplicationEventPublisher applicationEventPublisher;
+
   @Mock
   private Authentication authentication;
 
   @Mock
   private SecurityContext securityContext;
 
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
   @InjectMocks
   private UsersService usersService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
   }
 
   @Test
   void testRegisterUser_ShouldSuccess() {
     RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
 
-    when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-    when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+    when(registeredIdentityFilter.mightBeTaken("dummy@example.com", "dummy")).thenReturn(false);
     when(bCryptPasswordEncoder.encode(anyString())).thenReturn("hashed_password");
 
     usersService.registerUser(registrationRequest);
 
-    verify(userRepository, times(1)).save(any(User.class));
+    InOrder inOrder = inOrder(bCryptPasswordEncoder, transactionTemplate, userRepository);
+    inOrder.verify(bCryptPasswordEncoder).encode("password");
+    inOrder.verify(transactionTemplate).execute(any());
+    inOrder.verify(userRepository).saveAll(anyList());
+    verify(userRepository, never()).countIdentityMatches(anyString(), anyString());
+    verify(userRepository, times(1)).saveAll(anyList());
+    verify(registeredIdentityFilter, times(1)).add("dummy", "dummy@example.com");
+    verify(statisticsRollupService, times(1)).onUserCreated(any(User.class));
+  }
+
+  @Test
+  void testRegisterUser_MaybeTaken_ChecksWithOneQuery() {
+    RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
+    when(registeredIdentityFilter.mightBeTaken("dummy@example.com", "dummy")).thenReturn(true);
+    when(userRepository.countIdentityMatches("dummy@example.com", "dummy")).thenReturn(new UserIdentityMatch(0L, 0L));
+    when(bCryptPasswordEncoder.encode(anyString())).thenReturn("hashed_password");
+
+    usersService.registerUser(registrationRequest);
+
+    verify(userRepository, times(1)).countIdentityMatches("dummy@example.com", "dummy");
+    verify(userRepository, times(1)).saveAll(anyList());
   }
 
   @Test
   void testRegisterUser_EmailAlreadyExists() {
     RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
-    User existingUser = new User();
-    when(userRepository.findByEmail(registrationRequest.getEmail())).thenReturn(Optional.of(existingUser));
+    when(registeredIdentityFilter.mightBeTaken(anyString(), anyString())).thenReturn(true);
+    when(userRepository.countIdentityMatches("dummy@example.com", "dummy")).thenReturn(new UserIdentityMatch(1L, 1L));
 
-    assertThrows(UserAlreadyExistsException.class, () -> usersService.registerUser(registrationRequest));
+    UserAlreadyExistsException exception = assertThrows(UserAlreadyExistsException.class,
+        () -> usersService.registerUser(registrationRequest));
 
-    verify(userRepository, never()).save(any(User.class));
+    assertEquals("Email Already Exist", exception.getMessage());
+    verify(userRepository, never()).saveAll(anyList());
   }
 
   @Test
   void testRegisterUser_UsernameAlreadyExists() {
     RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
-    User existingUser = new User();
-    when(userRepository.findByEmail(registrationRequest.getEmail())).thenReturn(Optional.empty());
-    when(userRepository.findByUsername(registrationRequest.getUsername())).thenReturn(Optional.of(existingUser));
+    when(registeredIdentityFilter.mightBeTaken(anyString(), anyString())).thenReturn(true);
+    when(userRepository.countIdentityMatches("dummy@example.com", "dummy")).thenReturn(new UserIdentityMatch(0L, 1L));
+
+    UserAlreadyExistsException exception = assertThrows(UserAlreadyExistsException.class,
+        () -> usersService.registerUser(registrationRequest));
+
+    assertEquals("Username Already Exist", exception.getMessage());
+    verify(userRepository, never()).saveAll(anyList());
+  }
+
+  @Test
+  void testRegisterUser_ConcurrentDuplicate_TranslatesUniqueConstraintViolation() {
+    RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
+    when(bCryptPasswordEncoder.encode(anyString())).thenReturn("hashed_password");
+    doThrow(new DataIntegrityViolationException("could not execute statement",
+        new ConstraintViolationException("Unique index or primary key violation", new SQLException(),
+            "PUBLIC.UK_USERS_USERNAME_INDEX_4"))).when(userRepository).flush();
 
-    assertThrows(UserAlreadyExistsException.class, () -> usersService.registerUser(registrationRequest));
+    UserAlreadyExistsException exception = assertThrows(UserAlreadyExistsException.class,
+        () -> usersService.registerUser(registrationRequest));
 
-    verify(userRepository, never()).save(any(User.class));
+    assertEquals("Username Already Exist", exception.getMessage());
+    verify(registeredIdentityFilter, never()).add(anyString(), anyString());
+    verify(statisticsRollupService, never()).onUserCreated(any(User.class));
+  }
+
+  @Test
+  void testRegisterUser_OtherIntegrityViolation_IsNotTranslated() {
+    RegistrationRequest registrationRequest = new RegistrationRequest("dummy", "dummy@example.com", "password");
+    when(bCryptPasswordEncoder.encode(anyString())).thenReturn("hashed_password");
+    doThrow(new DataIntegrityViolationException("could not execute statement",
+        new ConstraintViolationException("Check constraint violation", new SQLException(), "CONSTRAINT_4")))
+        .when(userRepository).flush();
+
+    assertThrows(DataIntegrityViolationException.class, () -> usersService.registerUser(registrationRequest));
   }
 
   @Test
@@ -114,10 +217,66 @@ class UsersServiceTest {
 
     when(jwtUtil.generateToken(anyMap(), anyString())).thenReturn("jwt_token");
 
-    LoginResponse response = usersService.loginUser(loginRequest);
+    LoginResponse response = usersService.loginUser(loginRequest, CLIENT_ADDRESS);
 
     assertNotNull(response);
     assertEquals("jwt_token", response.getToken());
+    verify(failedLoginTracker, times(1)).recordSuccess("dummy");
+  }
+
+  @Test
+  void testLoginUser_ThrottledCaller_RejectedBeforeLookupAndHashing() {
+    doThrow(new TooManyLoginAttemptsException("Too many failed logins"))
+        .when(failedLoginTracker).checkAllowed("dummy", CLIENT_ADDRESS);
+
+    assertThrows(TooManyLoginAttemptsException.class,
+        () -> usersService.loginUser(new LoginRequest("dummy", "password"), CLIENT_ADDRESS));
+    verifyNoInteractions(userRepository, bCryptPasswordEncoder);
+  }
+
+  @Test
+  void testLoginUser_WithOutdatedCost_RehashesPassword() {
+    User user = User.builder().id(1L).username("dummy").password("old_hash").userRole(UserRoleEnum.CLIENT).build();
+
+    when(userRepository.findByUsername("dummy")).thenReturn(Optional.of(user));
+    when(bCryptPasswordEncoder.matches("password", "old_hash")).thenReturn(true);
+    when(bCryptPasswordEncoder.upgradeEncoding("old_hash")).thenReturn(true);
+    when(bCryptPasswordEncoder.encode("password")).thenReturn("new_hash");
+    when(jwtUtil.generateToken(anyMap(), anyString())).thenReturn("jwt_token");
+
+    usersService.loginUser(new LoginRequest("dummy", "password"), CLIENT_ADDRESS);
+
+    verify(userRepository, times(1)).replacePasswordHash(1L, "old_hash", "new_hash");
+  }
+
+  @Test
+  void testLoginUser_WithCurrentCost_DoesNotRehash() {
+    User user = User.builder().id(1L).username("dummy").password("hash").userRole(UserRoleEnum.CLIENT).build();
+
+    when(userRepository.findByUsername("dummy")).thenReturn(Optional.of(user));
+    when(bCryptPasswordEncoder.matches("password", "hash")).thenReturn(true);
+    when(jwtUtil.generateToken(anyMap(), anyString())).thenReturn("jwt_token");
+
+    usersService.loginUser(new LoginRequest("dummy", "password"), CLIENT_ADDRESS);
+
+    verify(bCryptPasswordEncoder, never()).encode(anyString());
+    verify(userRepository, never()).replacePasswordHash(anyLong(), anyString(), anyString());
+  }
+
+  @Test
+  void testLoginUser_RehashRejectedAsBusy_StillLogsIn() {
+    User user = User.builder().id(1L).username("dummy").password("old_hash").userRole(UserRoleEnum.CLIENT).build();
+
+    when(userRepository.findByUsername("dummy")).thenReturn(Optional.of(user));
+    when(bCryptPasswordEncoder.matches("password", "old_hash")).thenReturn(true);
+    when(bCryptPasswordEncoder.upgradeEncoding("old_hash")).thenReturn(true);
+    when(bCryptPasswordEncoder.encode("password")).thenThrow(new PasswordHashingBusyException("busy"));
+    when(jwtUtil.generateToken(anyMap(), anyString())).thenReturn("jwt_token");
+
+    LoginResponse response = usersService.loginUser(new LoginRequest("dummy", "password"), CLIENT_ADDRESS);
+
+    assertEquals("jwt_token", response.getToken());
+    verify(userRepository, never()).replacePasswordHash(anyLong(), anyString(), anyString());
   }
 
   @Test
@@ -126,7 +285,8 @@ class UsersServiceTest {
 
     when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
 
-    assertThrows(AuthenticationException.class, () -> usersService.loginUser(loginRequest));
+    assertThrows(AuthenticationException.class, () -> usersService.loginUser(loginRequest, CLIENT_ADDRESS));
+    verify(failedLoginTracker, times(1)).recordFailure("dummy", CLIENT_ADDRESS);
   }
 
   @Test
@@ -139,7 +299,8 @@ class UsersServiceTest {
     when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
     when(bCryptPasswordEncoder.matches(anyString(), anyString())).thenReturn(false);
 
-    assertThrows(AuthenticationException.class, () -> usersService.loginUser(loginRequest));
+    assertThrows(AuthenticationException.class, () -> usersService.loginUser(loginRequest, CLIENT_ADDRESS));
+    verify(failedLoginTracker, times(1)).recordFailure("dummy", CLIENT_ADDRESS);
   }
 
   @Test
@@ -162,18 +323,37 @@ class UsersServiceTest {
     assertThrows(UserNotFoundException.class, () -> usersService.findUserById(1L));
   }
 
+  @Test
+  void testFindPrincipalById_ShouldSuccess() {
+    UserPrincipal principal = new UserPrincipal(1L, "dummy", UserRoleEnum.DEALER, UserStatusEnum.ACTIVE);
+    when(principalCache.get(eq(1L), any())).thenAnswer(invocation ->
+        invocation.<Function<Long, UserPrincipal>>getArgument(1).apply(1L));
+    when(userRepository.findPrincipalById(1L)).thenReturn(Optional.of(principal));
+
+    UserPrincipal foundPrincipal = usersService.findPrincipalById(1L);
+
+    assertEquals(principal, foundPrincipal);
+    verify(userRepository, never()).findById(anyLong());
+  }
 
   @Test
-  void testAdminChangeOtherUserStatus_ShouldSuccess() {
-    User user = new User();
-    user.setId(2L);
-    user.setUserStatus(UserStatusEnum.ACTIVE);
+  void testFindPrincipalById_UserNotFound() {
+    when(principalCache.get(eq(1L), any())).thenAnswer(invocation ->
+        invocation.<Function<Long, UserPrincipal>>getArgument(1).apply(1L));
+    when(userRepository.findPrincipalById(1L)).thenReturn(Optional.empty());
+
+    assertThrows(UserNotFoundException.class, () -> usersService.findPrincipalById(1L));
+  }
 
+  @Test
+  void testAdminChangeOtherUserStatus_ShouldSuccess() {
     SecurityUser admin = new SecurityUser(String.valueOf(1L),
         true,
         List.of(new SimpleGrantedAuthority("ADMIN")));
 
-    when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+    UserStatusView user = new UserStatusView(2L, UserRoleEnum.CLIENT, UserStatusEnum.INACTIVE, OffsetDateTime.now());
+    when(userRepository.toggleStatus(eq(2L), any(OffsetDateTime.class))).thenReturn(1);
+    when(userRepository.findStatusViewById(2L)).thenReturn(Optional.of(user));
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.getPrincipal()).thenReturn(admin);
     SecurityContextHolder.setContext(securityContext);
@@ -181,67 +361,43 @@ class UsersServiceTest {
 
     usersService.changeUserStatus(2L);
 
-    verify(userRepository, times(1)).save(any(User.class));
-    assertEquals(UserStatusEnum.INACTIVE, user.getUserStatus());
+    verify(userRepository, never()).findById(anyLong());
+    verify(userRepository, never()).saveAll(anyList());
+    verify(statisticsRollupService, times(1)).onUserStatusChanged(user);
+    verify(applicationEventPublisher, times(1)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(deactivatedUserDenyList, times(1)).deny(2L);
+    verify(principalCache, times(1)).invalidate(2L);
+    verify(verifiedTokenCache, times(1)).invalidateSubject("2");
   }
 
-
   @Test
-  void testAdminChangeTheirStatus_ShouldFail() {
-    User user = new User();
-    user.setId(2L);
-    user.setUserStatus(UserStatusEnum.ACTIVE);
-
-    SecurityUser admin = new SecurityUser(String.valueOf(2L),
+  void testAdminChangeOtherUserStatus_UserNotFound() {
+    SecurityUser admin = new SecurityUser(String.valueOf(1L),
         true,
         List.of(new SimpleGrantedAuthority("ADMIN")));
 
-    when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+    when(userRepository.toggleStatus(eq(2L), any(OffsetDateTime.class))).thenReturn(0);
     when(securityContext.getAuthentication()).thenReturn(authentication);
     when(authentication.getPrincipal()).thenReturn(admin);
     SecurityContextHolder.setContext(securityContext);
 
-    assertThrows(OperationNotAllowedException.class, () -> usersService.changeUserStatus(2L));
-  }
-
-  @Test
-  void testGetTotalUsers_ShouldSuccess() {
-    when(userRepository.countTotalUsersBasedOnRole(any(UserRoleEnum.class), any(OffsetDateTime.class), any(OffsetDateTime.class)))
-        .thenReturn(10L);
-
-    Long totalUsers = usersService.getTotalUsers(UserRoleEnum.DEALER, OffsetDateTime.now(), OffsetDateTime.now());
-
-    assertEquals(10L, totalUsers);
+    assertThrows(UserNotFoundException.class, () -> usersService.changeUserStatus(2L));
+    verifyNoInteractions(statisticsRollupService, applicationEventPublisher, deactivatedUserDenyList, principalCache);
   }
 
-  @Test
-  void testGetTotalUsersBasedOnStatus_ShouldSuccess() {
-    when(userRepository.countTotalUsersBasedOnRoleAndStatus(any(UserRoleEnum.class), any(UserStatusEnum.class), any(OffsetDateTime.class), any(OffsetDateTime.class)))
-        .thenReturn(5L);
-
-    Long totalUsers = usersService.getTotalUsersBasedOnStatus(UserRoleEnum.CLIENT, UserStatusEnum.ACTIVE, OffsetDateTime.now(), OffsetDateTime.now());
-
-    assertEquals(5L, totalUsers);
-  }
 
   @Test
-  void testGetTotalDealersWithNoProducts_ShouldSuccess() {
-    when(userRepository.countDealersWithNoProducts(any(OffsetDateTime.class), any(OffsetDateTime.class)))
-        .thenReturn(2L);
-
-    Long totalDealersWithNoProducts = usersService.getTotalDealersWithNoProducts(OffsetDateTime.now(), OffsetDateTime.now());
-
-    assertEquals(2L, totalDealersWithNoProducts);
-  }
-
-  @Test
-  void testGetTotalDealersWithProducts_ShouldSuccess() {
-    when(userRepository.countDealersWithProducts(any(OffsetDateTime.class), any(OffsetDateTime.class)))
-        .thenReturn(7L);
+  void testAdminChangeTheirStatus_ShouldFail() {
+    SecurityUser admin = new SecurityUser(String.valueOf(2L),
+        true,
+        List.of(new SimpleGrantedAuthority("ADMIN")));
 
-    Long totalDealersWithProducts = usersService.getTotalDealersWithProducts(OffsetDateTime.now(), OffsetDateTime.now());
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    when(authentication.getPrincipal()).thenReturn(admin);
+    SecurityContextHolder.setContext(securityContext);
 
-    assertEquals(7L, totalDealersWithProducts);
+    assertThrows(OperationNotAllowedException.class, () -> usersService.changeUserStatus(2L));
+    verify(userRepository, never()).toggleStatus(anyLong(), any(OffsetDateTime.class));
   }
 
   @Test
@@ -253,13 +409,63 @@ class UsersServiceTest {
         .password("dummy_password")
         .build();
 
-    when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
-    when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+    when(registeredIdentityFilter.mightBeTaken(anyString(), anyString())).thenReturn(true);
+    when(userRepository.countIdentityMatches("email@email.com", "dummy_name")).thenReturn(new UserIdentityMatch(0L, 0L));
     when(bCryptPasswordEncoder.encode(anyString())).thenReturn("hashed_password");
 
     usersService.createNewAdminOrDealer(userCreationRequest);
 
-    verify(userRepository, times(1)).save(any(User.class));
+    InOrder inOrder = inOrder(bCryptPasswordEncoder, transactionTemplate, userRepository);
+    inOrder.verify(bCryptPasswordEncoder).encode("dummy_password");
+    inOrder.verify(transactionTemplate).execute(any());
+    inOrder.verify(userRepository).saveAll(anyList());
+    verify(userRepository, times(1)).saveAll(anyList());
+    verify(registeredIdentityFilter, times(1)).add("dummy_name", "email@email.com");
+  }
+
+  @Test
+  void testAddNewUsers_OneEventPerDay() {
+    OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+    List<User> users = List.of(
+        buildNewUser(1L, "dealer_1", now),
+        buildNewUser(2L, "dealer_2", now),
+        buildNewUser(3L, "dealer_3", now.minusDays(1)));
+
+    usersService.addNewUsers(users);
+
+    verify(userRepository, times(1)).saveAll(users);
+    verify(userRepository, times(1)).flush();
+    verify(statisticsRollupService, times(1)).onUsersCreated(users);
+    verify(applicationEventPublisher, times(2)).publishEvent(any(StatisticsDataChangedEvent.class));
+    verify(principalCache, times(1)).invalidate(3L);
+    verify(registeredIdentityFilter, times(1)).add("dealer_2", "dealer_2@example.com");
+  }
+
+  @Test
+  void testAddNewUsers_ConcurrentDuplicate_StoresNone() {
+    doThrow(new DataIntegrityViolationException("could not execute statement",
+        new ConstraintViolationException("Unique index or primary key violation", new SQLException(),
+            "PUBLIC.UK_USERS_EMAIL_INDEX_4"))).when(userRepository).flush();
+
+    UserAlreadyExistsException exception = assertThrows(UserAlreadyExistsException.class,
+        () -> usersService.addNewUsers(List.of(buildNewUser(1L, "dealer_1", OffsetDateTime.now()))));
+
+    assertEquals("Email Already Exist", exception.getMessage());
+    verify(statisticsRollupService, never()).onUsersCreated(anyList());
+    verify(registeredIdentityFilter, never()).add(anyString(), anyString());
+  }
+
+  private User buildNewUser(Long id, String username, OffsetDateTime createdAt) {
+    User user = User.builder()
+        .username(username)
+        .email(username + "@example.com")
+        .password("hashed_password")
+        .userRole(UserRoleEnum.DEALER)
+        .userStatus(UserStatusEnum.ACTIVE)
+        .build();
+    user.setId(id);
+    user.setCreatedAt(createdAt);
+    return user;
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package sa.elm.demo.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.CataloguePage;
+import sa.elm.demo.service.cache.ActiveCatalogueCache.PageKey;
+import sa.elm.demo.util.ProductCursor;
+import sa.elm.models.ProductsResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveCatalogueCacheTest {
+
+  private ActiveCatalogueCache activeCatalogueCache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    activeCatalogueCache = new ActiveCatalogueCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void testGet_LoadsOncePerPageAndTagsItWithTheCurrentETag() {
+    PageKey key = PageKey.of(10, 0, null, false);
+
+    CataloguePage first = activeCatalogueCache.get(key, loader());
+    CataloguePage second = activeCatalogueCache.get(key, loader());
+
+    assertSame(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(activeCatalogueCache.etag(key), first.etag());
+    assertTrue(first.etag().startsWith("W/\""));
+  }
+
+  @Test
+  void testOnCatalogueChanged_ChangesETagAndDropsPages() {
+    PageKey key = PageKey.of(10, 0, null, false);
+    CataloguePage before = activeCatalogueCache.get(key, loader());
+
+    activeCatalogueCache.onCatalogueChanged(new CatalogueChangedEvent());
+    CataloguePage after = activeCatalogueCache.get(key, loader());
+
+    assertEquals(2, loads.get());
+    assertNotEquals(before.etag(), after.etag());
+    assertEquals(activeCatalogueCache.etag(key), after.etag());
+  }
+
+  @Test
+  void testGet_ChangeDuringLoad_PageIsNotKeptAndKeepsTheOldETag() {
+    PageKey key = PageKey.of(10, 0, null, false);
+    String etagBeforeLoad = activeCatalogueCache.etag(key);
+
+    CataloguePage page = activeCatalogueCache.get(key, () -> {
+      loads.incrementAndGet();
+      activeCatalogueCache.invalidateAll();
+      return ProductsResponse.builder().build();
+    });
+    activeCatalogueCache.get(key, loader());
+
+    assertEquals(etagBeforeLoad, page.etag());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testPageKey_NormalisesOffsetsThatReadTheSamePage() {
+    assertEquals(PageKey.of(10, 20, null, true), PageKey.of(10, 29, null, true));
+    assertNotEquals(PageKey.of(10, 20, null, true), PageKey.of(10, 30, null, true));
+    assertNotEquals(PageKey.of(10, 20, null, true), PageKey.of(10, 20, null, false));
+    assertEquals(new PageKey(10, 0, 42L, false), PageKey.of(10, 20, ProductCursor.encode(42L), false));
+  }
+
+  @Test
+  void testEtag_DiffersPerPage() {
+    assertNotEquals(activeCatalogueCache.etag(PageKey.of(10, 0, null, false)),
+        activeCatalogueCache.etag(PageKey.of(10, 10, null, false)));
+    assertNotEquals(activeCatalogueCache.etag(PageKey.of(10, 0, null, false)),
+        activeCatalogueCache.etag(PageKey.of(20, 0, null, false)));
+  }
+
+  private Supplier<ProductsResponse> loader() {
+    return () -> {
+      loads.incrementAndGet();
+      return ProductsResponse.builder().build();
+    };
+  }
+
+}
@@ -0,0 +1,98 @@
+package sa.elm.demo.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.models.entity.enums.ProductStatus;
+import sa.elm.demo.repository.ProductRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductCountCacheTest {
+
+  private ProductRepository productRepository;
+  private ProductCountCache productCountCache;
+
+  @BeforeEach
+  void setUp() {
+    productRepository = mock(ProductRepository.class);
+    productCountCache = new ProductCountCache(productRepository, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void testCountAll_CountsOnceUntilExpiry() {
+    when(productRepository.count()).thenReturn(10L);
+
+    assertEquals(10L, productCountCache.countAll(false));
+    assertEquals(10L, productCountCache.countAll(false));
+
+    verify(productRepository, times(1)).count();
+  }
+
+  @Test
+  void testCountAll_ExactCountRefreshesCachedTotal() {
+    when(productRepository.count()).thenReturn(10L, 12L);
+    productCountCache.countAll(false);
+
+    assertEquals(12L, productCountCache.countAll(true));
+    assertEquals(12L, productCountCache.countAll(false));
+
+    verify(productRepository, times(2)).count();
+  }
+
+  @Test
+  void testOnProductCreated_AdjustsCachedTotals() {
+    when(productRepository.count()).thenReturn(10L);
+    when(productRepository.countByStatus(ProductStatus.ACTIVE)).thenReturn(6L);
+    when(productRepository.countByUserId(1L)).thenReturn(3L);
+    productCountCache.countAll(false);
+    productCountCache.countByStatus(ProductStatus.ACTIVE, false);
+    productCountCache.countByDealer(1L, false);
+
+    productCountCache.onProductCreated(1L, ProductStatus.ACTIVE);
+
+    assertEquals(11L, productCountCache.countAll(false));
+    assertEquals(7L, productCountCache.countByStatus(ProductStatus.ACTIVE, false));
+    assertEquals(4L, productCountCache.countByDealer(1L, false));
+    verify(productRepository, times(1)).count();
+  }
+
+  @Test
+  void testOnProductsCreated_AdjustsCachedTotalsByCount() {
+    when(productRepository.count()).thenReturn(10L);
+    when(productRepository.countByUserId(1L)).thenReturn(3L);
+    productCountCache.countAll(false);
+    productCountCache.countByDealer(1L, false);
+
+    productCountCache.onProductsCreated(1L, ProductStatus.ACTIVE, 500);
+
+    assertEquals(510L, productCountCache.countAll(false));
+    assertEquals(503L, productCountCache.countByDealer(1L, false));
+    verify(productRepository, times(1)).count();
+  }
+
+  @Test
+  void testOnProductStatusChanged_MovesOneProductBetweenStatuses() {
+    when(productRepository.countByStatus(ProductStatus.ACTIVE)).thenReturn(6L);
+    when(productRepository.countByStatus(ProductStatus.INACTIVE)).thenReturn(4L);
+    productCountCache.countByStatus(ProductStatus.ACTIVE, false);
+    productCountCache.countByStatus(ProductStatus.INACTIVE, false);
+
+    productCountCache.onProductStatusChanged(ProductStatus.INACTIVE);
+
+    assertEquals(5L, productCountCache.countByStatus(ProductStatus.ACTIVE, false));
+    assertEquals(5L, productCountCache.countByStatus(ProductStatus.INACTIVE, false));
+  }
+
+  @Test
+  void testAdjust_DoesNotSeedMissingTotals() {
+    productCountCache.onProductCreated(1L, ProductStatus.ACTIVE);
+    when(productRepository.countByUserId(1L)).thenReturn(1L);
+
+    assertEquals(1L, productCountCache.countByDealer(1L, false));
+  }
+
+}
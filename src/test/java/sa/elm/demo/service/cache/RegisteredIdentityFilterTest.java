@@ -0,0 +1,74 @@
+package sa.elm.demo.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import sa.elm.demo.models.projection.UserIdentityView;
+import sa.elm.demo.repository.UserRepository;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RegisteredIdentityFilterTest {
+
+  private UserRepository userRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private RegisteredIdentityFilter registeredIdentityFilter;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    registeredIdentityFilter = new RegisteredIdentityFilter(userRepository, 10_000, 0.001, meterRegistry);
+  }
+
+  @Test
+  void testRebuild_PagesThroughAllUsers() {
+    List<UserIdentityView> firstPage = LongStream.rangeClosed(1, 1000).mapToObj(RegisteredIdentityFilterTest::identity).toList();
+    when(userRepository.findIdentitiesAfter(eq(0L), any(Limit.class))).thenReturn(firstPage);
+    when(userRepository.findIdentitiesAfter(eq(1000L), any(Limit.class))).thenReturn(List.of(identity(1001)));
+
+    registeredIdentityFilter.rebuild();
+
+    assertTrue(registeredIdentityFilter.mightBeTaken("user1@example.com", "new_name"));
+    assertTrue(registeredIdentityFilter.mightBeTaken("new@example.com", "user1001"));
+    assertFalse(registeredIdentityFilter.mightBeTaken("new@example.com", "new_name"));
+    verify(userRepository, times(2)).findIdentitiesAfter(anyLong(), any(Limit.class));
+  }
+
+  @Test
+  void testAdd_NewUserIsTakenWithoutARebuild() {
+    when(userRepository.findIdentitiesAfter(anyLong(), any(Limit.class))).thenReturn(List.of());
+    registeredIdentityFilter.rebuild();
+
+    registeredIdentityFilter.add("fresh", "fresh@example.com");
+
+    assertTrue(registeredIdentityFilter.mightBeTaken("fresh@example.com", "other"));
+    assertTrue(registeredIdentityFilter.mightBeTaken("other@example.com", "fresh"));
+    assertEquals(2, meterRegistry.get("users.identityFilter").tag("result", "maybe").counter().count());
+  }
+
+  @Test
+  void testAdd_DuringRebuild_IsKeptByTheRebuiltFilter() {
+    when(userRepository.findIdentitiesAfter(anyLong(), any(Limit.class))).thenReturn(List.of());
+    registeredIdentityFilter.rebuild();
+    when(userRepository.findIdentitiesAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+      registeredIdentityFilter.add("racer", "racer@example.com");
+      return List.of();
+    });
+
+    registeredIdentityFilter.rebuild();
+
+    assertTrue(registeredIdentityFilter.mightBeTaken("racer@example.com", "racer"));
+  }
+
+  private static UserIdentityView identity(long id) {
+    return new UserIdentityView(id, "user" + id, "user" + id + "@example.com");
+  }
+
+}
@@ -0,0 +1,103 @@
+package sa.elm.demo.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.elm.models.StatisticsResponse;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsResponseCacheTest {
+
+  private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+  private StatisticsResponseCache statisticsResponseCache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    statisticsResponseCache = new StatisticsResponseCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void testGet_LoadsOncePerRange() {
+    StatisticsResponse first = statisticsResponseCache.get(TODAY.minusDays(7), TODAY, loader());
+    StatisticsResponse second = statisticsResponseCache.get(TODAY.minusDays(7), TODAY, loader());
+
+    assertSame(first, second);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testGet_MissingBoundsShareTheTodayEntry() {
+    statisticsResponseCache.get(null, null, loader());
+    statisticsResponseCache.get(TODAY, TODAY, loader());
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testInvalidateCovering_OnlyEvictsRangesIncludingTheDay() {
+    statisticsResponseCache.get(TODAY.minusDays(30), TODAY.minusDays(20), loader());
+    statisticsResponseCache.get(TODAY.minusDays(7), TODAY.plusDays(1), loader());
+
+    statisticsResponseCache.invalidateCovering(TODAY.atStartOfDay().atOffset(ZoneOffset.UTC).plusHours(3));
+    statisticsResponseCache.get(TODAY.minusDays(30), TODAY.minusDays(20), loader());
+    statisticsResponseCache.get(TODAY.minusDays(7), TODAY.plusDays(1), loader());
+
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void testInvalidateCovering_UsesTheUtcDayOfTheChangedRow() {
+    statisticsResponseCache.get(TODAY.minusDays(1), TODAY.minusDays(1), loader());
+
+    // Just after midnight in UTC+3 is still the previous day in UTC
+    statisticsResponseCache.invalidateCovering(TODAY.atStartOfDay().atOffset(ZoneOffset.ofHours(3)).plusMinutes(5));
+    statisticsResponseCache.get(TODAY.minusDays(1), TODAY.minusDays(1), loader());
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testGet_DoesNotKeepAResponseLoadedWhileAChangeCommitted() {
+    statisticsResponseCache.get(TODAY.minusDays(1), TODAY.plusDays(1), () -> {
+      statisticsResponseCache.invalidateCovering(TODAY.atStartOfDay().atOffset(ZoneOffset.UTC));
+      return loader().get();
+    });
+    statisticsResponseCache.get(TODAY.minusDays(1), TODAY.plusDays(1), loader());
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testOnStatisticsDataChanged_WithoutCreationTimeEvictsEverything() {
+    statisticsResponseCache.get(TODAY.minusDays(30), TODAY.minusDays(20), loader());
+
+    statisticsResponseCache.onStatisticsDataChanged(new StatisticsDataChangedEvent(null));
+    statisticsResponseCache.get(TODAY.minusDays(30), TODAY.minusDays(20), loader());
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testRange_IsHistoricalOnceItsLastDayHasBegun() {
+    assertTrue(StatisticsResponseCache.StatisticsRange.of(TODAY.minusDays(7), TODAY).isHistorical());
+    assertFalse(StatisticsResponseCache.StatisticsRange.of(TODAY.minusDays(7), TODAY.plusDays(1)).isHistorical());
+  }
+
+  private Supplier<StatisticsResponse> loader() {
+    return () -> {
+      loads.incrementAndGet();
+      return StatisticsResponse.builder().build();
+    };
+  }
+
+}
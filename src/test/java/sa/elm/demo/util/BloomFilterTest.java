@@ -0,0 +1,60 @@
+package sa.elm.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+  @Test
+  void testMightContain_NeverMissesAPutValue() {
+    BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      bloomFilter.put("user" + i + "@example.com");
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(bloomFilter.mightContain("user" + i + "@example.com"));
+    }
+  }
+
+  @Test
+  void testMightContain_FalsePositivesStayNearTheConfiguredRate() {
+    BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      bloomFilter.put("user" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (bloomFilter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+  }
+
+  @Test
+  void testPut_ConcurrentPutsAreAllKept() {
+    BloomFilter bloomFilter = new BloomFilter(8_000, 0.01);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      int offset = thread * 1_000;
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int i = offset; i < offset + 1_000; i++) {
+          bloomFilter.put("name" + i);
+        }
+      }));
+    }
+    futures.forEach(CompletableFuture::join);
+
+    for (int i = 0; i < 8_000; i++) {
+      assertTrue(bloomFilter.mightContain("name" + i));
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package sa.elm.demo.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import sa.elm.demo.config.JwtKeyProperties;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyReloaderTest {
+
+  private static final String PRIMARY_SECRET = "2ECCD48E35ADF9C17813D4C22B4672ECCD48E35ADF9C17813D4C22B4672ECCD48E35ADF9C17813D4C22B467";
+  private static final String ROTATED_SECRET = "3FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C578";
+
+  private MockEnvironment environment;
+  private JwtUtil jwtUtil;
+  private JwtKeyReloader jwtKeyReloader;
+
+  @BeforeEach
+  void setUp() {
+    environment = new MockEnvironment()
+        .withProperty("sa.elm.demo.jwt.activeKeyId", "primary")
+        .withProperty("sa.elm.demo.jwt.secrets.primary", PRIMARY_SECRET);
+    JwtKeyProperties keyProperties = new JwtKeyProperties("primary", Map.of("primary", PRIMARY_SECRET));
+    jwtUtil = new JwtUtil(keyProperties);
+    jwtKeyReloader = new JwtKeyReloader(environment, jwtUtil, keyProperties);
+  }
+
+  @Test
+  void testReload_SignsWithTheNewActiveKeyAndStillAcceptsTheOldOne() {
+    String oldToken = jwtUtil.generateToken(Map.of(), "dummy_sub");
+    environment.setProperty("sa.elm.demo.jwt.activeKeyId", "rotated");
+    environment.setProperty("sa.elm.demo.jwt.secrets.rotated", ROTATED_SECRET);
+
+    jwtKeyReloader.reload();
+    String newToken = jwtUtil.generateToken(Map.of(), "dummy_sub");
+
+    assertTrue(headerOf(newToken).contains("\"kid\":\"rotated\""));
+    assertEquals("dummy_sub", jwtUtil.verifyToken(newToken).subject());
+    assertEquals("dummy_sub", jwtUtil.verifyToken(oldToken).subject());
+  }
+
+  @Test
+  void testReload_InvalidKeys_KeepsTheCurrentOnes() {
+    environment.setProperty("sa.elm.demo.jwt.activeKeyId", "missing");
+
+    jwtKeyReloader.reload();
+
+    assertTrue(headerOf(jwtUtil.generateToken(Map.of(), "dummy_sub")).contains("\"kid\":\"primary\""));
+  }
+
+  private static String headerOf(String token) {
+    return new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]));
+  }
+
+}
@@ -1,6 +1,5 @@
 package sa.elm.demo.util;
 
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -10,10 +9,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
-import org.springframework.test.util.ReflectionTestUtils;
+import sa.elm.demo.config.JwtKeyProperties;
 import sa.elm.demo.exception.InvalidJWTException;
+import sa.elm.demo.models.entity.enums.UserRoleEnum;
+import sa.elm.demo.models.security.VerifiedToken;
 
 import javax.crypto.SecretKey;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -29,16 +31,7 @@ class JwtUtilTest {
 
   @BeforeEach
   void setUp() {
-    jwtUtil = new JwtUtil();
-    ReflectionTestUtils.setField(jwtUtil, "JWT_SECRET", jwtSecret);
-  }
-
-  @Test
-  void testExtractUsername_ShouldSuccess() {
-    String token = generateMockToken("dummy_sub");
-
-    String username = jwtUtil.extractUsername(token);
-    assertEquals("dummy_sub", username);
+    jwtUtil = new JwtUtil(new JwtKeyProperties("primary", Map.of("primary", jwtSecret)));
   }
 
   @Test
@@ -50,43 +43,88 @@ class JwtUtilTest {
     String token = jwtUtil.generateToken(claims, subject);
     assertNotNull(token);
 
-    Claims parsedClaims = jwtUtil.extractAllClaims(token);
-    assertEquals("ADMIN", parsedClaims.get("role"));
-    assertEquals(subject, parsedClaims.getSubject());
+    VerifiedToken verifiedToken = jwtUtil.verifyToken(token);
+    assertEquals(UserRoleEnum.ADMIN, verifiedToken.role());
+    assertEquals(subject, verifiedToken.subject());
   }
 
   @Test
-  void testValidateToken_ShouldSuccess() {
+  void testVerifyToken_MockToken_ShouldSuccess() {
     String token = generateMockToken("dummy_sub");
 
-    boolean isValid = jwtUtil.validateToken(token);
-    assertTrue(isValid);
+    VerifiedToken verifiedToken = jwtUtil.verifyToken(token);
+    assertEquals("dummy_sub", verifiedToken.subject());
+    assertNotNull(verifiedToken.expiresAt());
+  }
+
+  @Test
+  void testInvalidToken_SignatureException() {
+    try (MockedStatic<Jwts> jwtsMockedStatic = Mockito.mockStatic(Jwts.class)) {
+      jwtsMockedStatic.when(Jwts::parser)
+          .thenThrow(SignatureException.class);
+
+      String invalidToken = "invalid_token";
+      assertThrows(InvalidJWTException.class, () -> jwtUtil.verifyToken(invalidToken));
+    }
   }
 
   @Test
-  void testValidateToken_Expired() {
+  void testVerifyToken_ShouldSuccess() {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("role", UserRoleEnum.DEALER);
+    claims.put("name", "dealer_user");
+    String token = jwtUtil.generateToken(claims, "5");
+
+    VerifiedToken verifiedToken = jwtUtil.verifyToken(token);
+
+    assertEquals("5", verifiedToken.subject());
+    assertEquals(5L, verifiedToken.getUserId());
+    assertEquals(UserRoleEnum.DEALER, verifiedToken.role());
+    assertEquals("dealer_user", verifiedToken.name());
+    assertNotNull(verifiedToken.expiresAt());
+  }
+
+  @Test
+  void testVerifyToken_Expired() {
     String expiredToken = generateExpiredMockToken("dummy_sub");
 
-    assertThrows(InvalidJWTException.class, () -> jwtUtil.validateToken(expiredToken));
+    assertThrows(InvalidJWTException.class, () -> jwtUtil.verifyToken(expiredToken));
   }
 
   @Test
-  void testExtractExpiration_ShouldSuccess() {
+  void testVerifyToken_DoesNotRebuildParser() {
     String token = generateMockToken("dummy_sub");
 
-    Date expiration = jwtUtil.extractExpiration(token);
-    assertNotNull(expiration);
+    try (MockedStatic<Jwts> jwtsMockedStatic = Mockito.mockStatic(Jwts.class, Mockito.CALLS_REAL_METHODS)) {
+      assertEquals("dummy_sub", jwtUtil.verifyToken(token).subject());
+      assertEquals("dummy_sub", jwtUtil.verifyToken(token).subject());
+
+      jwtsMockedStatic.verify(Jwts::parser, Mockito.never());
+    }
   }
 
   @Test
-  void testInvalidToken_SignatureException() {
-    try (MockedStatic<Jwts> jwtsMockedStatic = Mockito.mockStatic(Jwts.class)) {
-      jwtsMockedStatic.when(Jwts::parser)
-          .thenThrow(SignatureException.class);
+  void testReloadKeys_OldTokensStillValidDuringRotation() {
+    String oldToken = jwtUtil.generateToken(new HashMap<>(), "dummy_sub");
 
-      String invalidToken = "invalid_token";
-      assertThrows(InvalidJWTException.class, () -> jwtUtil.validateToken(invalidToken));
-    }
+    String newSecret = "3FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C578";
+    jwtUtil.reloadKeys(new JwtKeyProperties("rotated", Map.of("primary", jwtSecret, "rotated", newSecret)));
+    String newToken = jwtUtil.generateToken(new HashMap<>(), "dummy_sub");
+
+    assertEquals("dummy_sub", jwtUtil.verifyToken(oldToken).subject());
+    assertEquals("dummy_sub", jwtUtil.verifyToken(newToken).subject());
+    String newTokenHeader = new String(Base64.getUrlDecoder().decode(newToken.split("\\.")[0]));
+    assertTrue(newTokenHeader.contains("\"kid\":\"rotated\""));
+  }
+
+  @Test
+  void testReloadKeys_RetiredKeyIsRejected() {
+    String oldToken = jwtUtil.generateToken(new HashMap<>(), "dummy_sub");
+
+    String newSecret = "3FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C5783FDDE59F46BEA0D28924E5D33C578";
+    jwtUtil.reloadKeys(new JwtKeyProperties("rotated", Map.of("rotated", newSecret)));
+
+    assertThrows(InvalidJWTException.class, () -> jwtUtil.verifyToken(oldToken));
   }
 
   private String generateMockToken(String subject) {
@@ -0,0 +1,23 @@
+package sa.elm.demo.util;
+
+import org.junit.jupiter.api.Test;
+import sa.elm.demo.exception.InvalidCursorException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTest {
+
+  @Test
+  void testEncodeDecode_RoundTrips() {
+    assertEquals(42L, ProductCursor.decode(ProductCursor.encode(42L)));
+  }
+
+  @Test
+  void testDecode_MalformedCursor_ShouldFail() {
+    assertThrows(InvalidCursorException.class, () -> ProductCursor.decode("%%%"));
+    assertThrows(InvalidCursorException.class, () -> ProductCursor.decode("bm90LWFuLWlk"));
+    assertThrows(InvalidCursorException.class, () -> ProductCursor.decode("aWQ6YWJj"));
+  }
+
+}